@@ -0,0 +1,183 @@
+package bench;
+
+import catalog.CatalogExporter;
+import catalog.CatalogImporter;
+import inventory.InventoryManager;
+import inventory.Item;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Rows per second and heap for a generated catalog of a million rows, as
+// CSV and as JSONL:
+//   check   CatalogImporter.validateFile; parses and checks every row but
+//           keeps nothing, so its peak heap is what streaming costs
+//   import  CatalogImporter.importFile into an empty InventoryManager;
+//           "retained" is the loaded catalog
+//   export  CatalogExporter.exportFile of that catalog
+// It also loads the same items with one addItem call per item (how the
+// built-in catalog is seeded) against addItems in batches, the import's
+// load step.
+// "Alloc" is bytes allocated per row, garbage included; "retained" is
+// heap still in use after a full GC. Checking retains nothing, so it runs
+// in a heap far smaller than the file (try -Xmx16m with "check" as the
+// third argument); an import retains only the catalog it builds.
+// Run: ./gradlew bench -Pbenchmark=CatalogImportBenchmark -PbenchArgs="[rows] [dir] [check]"
+public class CatalogImportBenchmark {
+    private static final String[] COURSES = {"BSIT", "BSCS", "BSCpE", "BSBA", "BSA", "BSHM", "BMMA", "BSTM",
+                                             "ABM", "STEM", "HUMSS", "TVL-ICT", "TVL-TO", "TVL-CA", "STI Special"};
+    private static final String[] SIZES = {"XS", "S", "M", "L", "XL", "XXL", "One Size"};
+    private static final int BATCH = 4096;
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Path dir = args.length > 1 ? Path.of(args[1]) : Files.createTempDirectory("catalog-bench");
+        Path csv = dir.resolve("catalog.csv");
+        Path jsonl = dir.resolve("catalog.jsonl");
+        generate(csv, rows, false);
+        generate(jsonl, rows, true);
+        System.out.printf("%,d rows: CSV %,d KB, JSONL %,d KB%n%n", rows, Files.size(csv) >> 10, Files.size(jsonl) >> 10);
+        System.out.printf("%-14s %12s %14s %14s%n", "Step", "Rows/s", "Alloc B/row", "Retained MB");
+        boolean checkOnly = args.length > 2 && args[2].equals("check");
+
+        for (Path file : new Path[] {csv, jsonl}) {
+            String format = file == csv ? "CSV" : "JSONL";
+            // Warm-up.
+            CatalogImporter.validateFile(file);
+
+            long before = usedHeap();
+            long allocated = allocatedBytes();
+            CatalogImporter.Report check = CatalogImporter.validateFile(file);
+            allocated = allocatedBytes() - allocated;
+            print(format + " check", check.getRowsPerSecond(), allocated / rows, usedHeap() - before);
+            expect(check, rows);
+            if (checkOnly) {
+                continue;
+            }
+
+            before = usedHeap();
+            allocated = allocatedBytes();
+            InventoryManager manager = new InventoryManager();
+            CatalogImporter.Report load = CatalogImporter.importFile(file, manager);
+            allocated = allocatedBytes() - allocated;
+            print(format + " import", load.getRowsPerSecond(), allocated / rows, usedHeap() - before);
+            expect(load, rows);
+
+            Path out = dir.resolve("export-" + file.getFileName());
+            allocated = allocatedBytes();
+            long start = System.nanoTime();
+            long written = CatalogExporter.exportFile(manager, out);
+            double rate = written * 1e9 / (System.nanoTime() - start);
+            print(format + " export", rate, (allocatedBytes() - allocated) / rows, 0);
+            Reference.reachabilityFence(manager);
+            Files.delete(out);
+        }
+        if (checkOnly) {
+            cleanUp(args, csv, jsonl, dir);
+            return;
+        }
+
+        List<Item> items = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            items.add(item(i));
+        }
+        System.out.println();
+        long oneByOne = Long.MAX_VALUE;
+        long batched = Long.MAX_VALUE;
+        for (int round = 0; round < 3; round++) {
+            InventoryManager manager = new InventoryManager();
+            long start = System.nanoTime();
+            for (Item item : items) {
+                manager.addItem(item);
+            }
+            oneByOne = Math.min(oneByOne, System.nanoTime() - start);
+
+            manager = new InventoryManager();
+            boolean[] added = new boolean[BATCH];
+            start = System.nanoTime();
+            for (int from = 0; from < rows; from += BATCH) {
+                manager.addItems(items.subList(from, Math.min(rows, from + BATCH)), added);
+            }
+            batched = Math.min(batched, System.nanoTime() - start);
+        }
+        System.out.printf("Load only, addItem per item: %,12.0f items/s%n", rows * 1e9 / oneByOne);
+        System.out.printf("Load only, addItems batches: %,12.0f items/s (%.1fx)%n",
+                          rows * 1e9 / batched, (double) oneByOne / batched);
+
+        cleanUp(args, csv, jsonl, dir);
+    }
+
+    // Files in a directory given on the command line are kept.
+    private static void cleanUp(String[] args, Path csv, Path jsonl, Path dir) throws IOException {
+        if (args.length < 2) {
+            Files.delete(csv);
+            Files.delete(jsonl);
+            Files.delete(dir);
+        }
+    }
+
+    // Every (name, course, size) is distinct, so every row loads.
+    private static Item item(int i) {
+        int product = i / SIZES.length;
+        return new Item(10_000 + i, "Uniform Item " + product, COURSES[product % COURSES.length],
+                        SIZES[i % SIZES.length], i % 500, 100 + (i % 9_000) / 10.0);
+    }
+
+    private static void generate(Path file, int rows, boolean json) throws IOException {
+        try (Writer out = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8), 1 << 16)) {
+            if (!json) {
+                out.write("code,name,course,size,quantity,price\n");
+            }
+            StringBuilder line = new StringBuilder(128);
+            for (int i = 0; i < rows; i++) {
+                Item item = item(i);
+                line.setLength(0);
+                if (json) {
+                    line.append("{\"code\":").append(item.getCode())
+                        .append(",\"name\":\"").append(item.getName())
+                        .append("\",\"course\":\"").append(item.getCourse())
+                        .append("\",\"size\":\"").append(item.getSize())
+                        .append("\",\"quantity\":").append(item.getQuantity())
+                        .append(",\"price\":").append(item.getPrice()).append("}\n");
+                } else {
+                    line.append(item.getCode()).append(',').append(item.getName()).append(',')
+                        .append(item.getCourse()).append(',').append(item.getSize()).append(',')
+                        .append(item.getQuantity()).append(',').append(item.getPrice()).append('\n');
+                }
+                out.append(line);
+            }
+        }
+    }
+
+    private static void expect(CatalogImporter.Report report, int rows) {
+        if (report.getImported() != rows) {
+            throw new IllegalStateException("Expected " + rows + " rows, got " + report + " " + report.getErrors());
+        }
+    }
+
+    private static void print(String step, double rowsPerSecond, long allocatedPerRow, long retainedBytes) {
+        System.out.printf("%-14s %,12.0f %,14d %,14.1f%n", step, rowsPerSecond, allocatedPerRow,
+                          Math.max(0, retainedBytes) / 1048576.0);
+    }
+
+    // Everything here runs on the main thread.
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+            .getThreadAllocatedBytes(Thread.currentThread().threadId());
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            ManagementFactory.getMemoryMXBean().gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
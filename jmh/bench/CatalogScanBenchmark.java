@@ -0,0 +1,93 @@
+package bench;
+
+import inventory.ColumnarCatalog;
+import inventory.InventoryManager;
+import inventory.Item;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+// Times the three catalog aggregates (stock per course, items below a
+// threshold, inventory value) two ways over the same items: walking the
+// List<Item> from getAllItems(), and scanning ColumnarCatalog's arrays.
+// Reports the best of several runs per query, in milliseconds.
+// Run: ./gradlew bench -Pbenchmark=CatalogScanBenchmark -PbenchArgs="[skus] [courses]"
+public class CatalogScanBenchmark {
+    private static final int RUNS = 15;
+    private static final int THRESHOLD = 10;
+
+    public static void main(String[] args) {
+        int skus = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int courses = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+
+        InventoryManager inventoryManager = new InventoryManager();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < skus; i++) {
+            inventoryManager.addItem(new Item(i + 1, "Item " + i, "Course " + (i % courses), "M",
+                                              random.nextInt(200), 100 + random.nextInt(900) + 0.50));
+        }
+        ColumnarCatalog catalog = new ColumnarCatalog(inventoryManager);
+
+        System.out.printf("%d SKUs, %d courses%n", skus, courses);
+        System.out.println("Query            | Objects ms | Columns ms");
+        report("stock per course",
+            () -> objectStockByCourse(inventoryManager).size(),
+            () -> catalog.getStockByCourse().size());
+        report("items below " + THRESHOLD,
+            () -> objectItemsBelow(inventoryManager),
+            () -> catalog.getItemsBelow(THRESHOLD).size());
+        report("inventory value",
+            () -> (long) objectInventoryValue(inventoryManager),
+            () -> (long) catalog.getInventoryValue());
+    }
+
+    private static void report(String name, LongSupplier objects, LongSupplier columns) {
+        long[] result = new long[2];
+        double objectMs = best(objects, result, 0);
+        double columnMs = best(columns, result, 1);
+        if (result[0] != result[1]) {
+            throw new IllegalStateException(name + ": results differ (" + result[0] + " vs " + result[1] + ")");
+        }
+        System.out.printf("%-16s | %-10.2f | %.2f%n", name, objectMs, columnMs);
+    }
+
+    private static double best(LongSupplier query, long[] result, int slot) {
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            result[slot] = query.getAsLong();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1e6;
+    }
+
+    private static Map<String, Long> objectStockByCourse(InventoryManager inventoryManager) {
+        Map<String, Long> totals = new HashMap<>();
+        for (Item item : inventoryManager.getAllItems()) {
+            totals.merge(item.getCourse(), (long) item.getQuantity(), Long::sum);
+        }
+        return totals;
+    }
+
+    private static long objectItemsBelow(InventoryManager inventoryManager) {
+        List<Item> items = inventoryManager.getAllItems();
+        long count = 0;
+        for (Item item : items) {
+            if (item.getQuantity() < THRESHOLD) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static double objectInventoryValue(InventoryManager inventoryManager) {
+        double value = 0;
+        for (Item item : inventoryManager.getAllItems()) {
+            value += item.getPrice() * item.getQuantity();
+        }
+        return value;
+    }
+}
@@ -0,0 +1,84 @@
+package bench;
+
+import inventory.InventoryManager;
+import inventory.Item;
+import inventory.ReservationExpiry;
+import inventory.ReservationManager;
+import inventory.ReservationService;
+import inventory.ReservationStatus;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+// Creates a large number of PENDING reservations under ReservationExpiry,
+// approves every other one (which reschedules it under the APPROVED
+// time-to-live), then waits for the rest to expire. Reports the cost of
+// creating and approving with expiry tracking on, the heap it holds, and
+// how long the expiry thread takes to cancel everything that is due.
+// Run: ./gradlew bench -Pbenchmark=ExpiryBenchmark -PbenchArgs="[reservations] [pendingTtlMs]"
+public class ExpiryBenchmark {
+    private static final int ITEM_CODE = 1000;
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        long pendingTtl = args.length > 1 ? Long.parseLong(args[1]) : 30_000;
+
+        long baseline = createAll(new InventoryManager(), new ReservationManager(), count);
+        InventoryManager inventoryManager = new InventoryManager();
+        ReservationManager reservationManager = new ReservationManager();
+        ReservationService reservationService = new ReservationService(inventoryManager, reservationManager);
+
+        Map<ReservationStatus, Long> ttl = new EnumMap<>(ReservationStatus.class);
+        ttl.put(ReservationStatus.PENDING, pendingTtl);
+        ttl.put(ReservationStatus.APPROVED, 3_600_000L);
+        long heapBefore = usedHeap();
+        ReservationExpiry expiry = new ReservationExpiry(reservationService, ttl, 10);
+
+        long created = createAll(inventoryManager, reservationManager, count);
+        long createdAt = System.nanoTime();
+
+        long begin = System.nanoTime();
+        int firstId = reservationManager.getNextReservationId() - count;
+        for (int i = 0; i < count; i += 2) {
+            reservationManager.updateReservationStatus(firstId + i, ReservationStatus.APPROVED);
+        }
+        long approved = System.nanoTime() - begin;
+        long heapAfter = usedHeap();
+
+        System.out.printf("Created %d reservations: %.0f ns each without expiry, %.0f ns with%n",
+            count, (double) baseline / count, (double) created / count);
+        System.out.printf("Approved %d: %.0f ns each (timer rescheduled)%n", (count + 1) / 2, (double) approved / ((count + 1) / 2));
+        System.out.printf("Tracked: %d timers, about %d bytes per reservation overall%n",
+            expiry.getTrackedCount(), (heapAfter - heapBefore) / count);
+
+        // The last PENDING deadline is pendingTtl after creation finished.
+        int expected = count / 2;
+        while (expiry.getExpiredCount() < expected) {
+            Thread.sleep(1);
+        }
+        long lag = System.nanoTime() - createdAt - pendingTtl * 1_000_000;
+        System.out.printf("Expired %d PENDING reservations; the last one %.0f ms after its deadline%n",
+            expiry.getExpiredCount(), lag / 1e6);
+        System.out.printf("Stock back on the shelf: %d (expected %d), still tracked: %d%n",
+            inventoryManager.findItemByCode(ITEM_CODE).getQuantity(), expected, expiry.getTrackedCount());
+        expiry.close();
+    }
+
+    private static long createAll(InventoryManager inventoryManager, ReservationManager reservationManager, int count) {
+        inventoryManager.addItem(new Item(ITEM_CODE, "Bench Shirt", "BSIT", "M", count, 100.00));
+        long begin = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            inventoryManager.reserveItem(ITEM_CODE, 1);
+            reservationManager.createReservation("Student " + i, String.format("%08d", i), "BSIT", ITEM_CODE, "Bench Shirt", 1);
+        }
+        return System.nanoTime() - begin;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,196 @@
+package bench;
+
+import inventory.InventoryManager;
+import inventory.Item;
+import inventory.Reservation;
+import inventory.ReservationManager;
+import inventory.ReservationStatus;
+import utils.InputValidator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Throughput of the inventory, reservation and input-parsing hot paths
+// across catalog and reservation history sizes. The benchmarks here run on
+// one thread; HotPathBenchmark.FourThreads runs the same ones on four.
+//
+// Run everything, results in build/reports/jmh/results.json:
+//   ./gradlew jmh
+// or a subset, e.g.:
+//   ./gradlew jmh -PjmhArgs="findItemByCode -p items=100,10000"
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Threads(1)
+public class HotPathBenchmark {
+    private static final String[] COURSES = {"BSIT", "BSCS", "BSCpE", "BSBA", "BSA", "BSHM", "BMMA", "BSTM",
+                                             "STEM", "ABM"};
+    // About one in twenty history rows is still pending.
+    private static final int PENDING_EVERY = 20;
+
+    @Threads(4)
+    public static class FourThreads extends HotPathBenchmark {
+    }
+
+    @State(Scope.Benchmark)
+    public static class Catalog {
+        @Param({"100", "10000", "1000000"})
+        public int items;
+
+        InventoryManager inventory;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            inventory = new InventoryManager();
+            for (int i = 0; i < items; i++) {
+                inventory.addItem(new Item(1000 + i, "Item " + i, COURSES[i % COURSES.length], "M", 1_000_000, 100.00));
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class History {
+        @Param({"100", "10000", "1000000"})
+        public int history;
+
+        ReservationManager reservations;
+
+        // createReservation keeps adding to the history, so every trial
+        // starts from a fresh one.
+        @Setup(Level.Trial)
+        public void setUp() {
+            reservations = new ReservationManager();
+            LocalDateTime time = LocalDateTime.now().minusDays(30);
+            for (int i = 1; i <= history; i++) {
+                ReservationStatus status = i % PENDING_EVERY == 0 ? ReservationStatus.PENDING : ReservationStatus.COMPLETED;
+                reservations.restoreReservation(new Reservation(i, "Student " + i % 5000, "ID" + i % 5000, "BSIT",
+                                                                1000 + i % 200, "Item", 1, time, status));
+            }
+        }
+    }
+
+    // The validators print prompts; System.out is muted for the trial.
+    @State(Scope.Benchmark)
+    public static class MutedConsole {
+        private PrintStream console;
+
+        @Setup(Level.Trial)
+        public void mute() {
+            console = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+
+        @TearDown(Level.Trial)
+        public void restore() {
+            System.setOut(console);
+        }
+    }
+
+    // One validator per thread, each reading its own endless input: mostly
+    // valid entries, with the retries an out-of-range or mistyped one costs.
+    @State(Scope.Thread)
+    public static class Input {
+        InputValidator integers;
+        InputValidator prices;
+
+        @Setup(Level.Trial)
+        public void setUp(MutedConsole console) {
+            integers = new InputValidator(new Scanner(new Repeating("1234\n99999\n42\nabc\n7\n")));
+            prices = new InputValidator(new Scanner(new Repeating("450.00\n-1\n99.5\n")));
+        }
+    }
+
+    @Benchmark
+    public Item findItemByCode(Catalog catalog) {
+        return catalog.inventory.findItemByCode(1000 + ThreadLocalRandom.current().nextInt(catalog.items));
+    }
+
+    // Takes one unit and puts it back, so stock never runs out.
+    @Benchmark
+    public boolean reserveItem(Catalog catalog) {
+        int code = 1000 + ThreadLocalRandom.current().nextInt(catalog.items);
+        if (catalog.inventory.reserveItem(code, 1)) {
+            catalog.inventory.releaseItem(code, 1);
+            return true;
+        }
+        return false;
+    }
+
+    @Benchmark
+    public List<Item> getItemsByCourse(Catalog catalog) {
+        return catalog.inventory.getItemsByCourse(COURSES[ThreadLocalRandom.current().nextInt(COURSES.length)]);
+    }
+
+    @Benchmark
+    public List<Reservation> getPendingReservations(History history) {
+        return history.reservations.getPendingReservations();
+    }
+
+    @Benchmark
+    public Reservation createReservation(History history) {
+        int student = ThreadLocalRandom.current().nextInt(5000);
+        return history.reservations.createReservation("Student " + student, "ID" + student, "BSIT",
+                                                      1000 + student % 200, "Item", 1);
+    }
+
+    @Benchmark
+    public int getValidInteger(Input input) {
+        return input.integers.getValidInteger("Code: ", 1, 9999);
+    }
+
+    @Benchmark
+    public double getValidPrice(Input input) {
+        return input.prices.getValidPrice("Price: ");
+    }
+
+    @Benchmark
+    public boolean isValidCourse() {
+        return InputValidator.isValidCourse(COURSES[ThreadLocalRandom.current().nextInt(COURSES.length)]);
+    }
+
+    // Endless input: the same text over and over.
+    private static class Repeating extends Reader {
+        private final char[] text;
+        private int position;
+
+        Repeating(String text) {
+            this.text = text.toCharArray();
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            for (int i = 0; i < length; i++) {
+                buffer[offset + i] = text[position];
+                position = (position + 1) % text.length;
+            }
+            return length;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package bench;
+
+import inventory.Item;
+import main.MerchSystem;
+import server.MerchHttpApi;
+import student.Student;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Load-tests the HTTP API in-process: many virtual-thread clients issue a
+// mix of item lookups, course listings and reservations against the
+// default catalog. Reports requests/sec and latency percentiles per kind.
+// Run: ./gradlew bench -Pbenchmark=HttpLoadBenchmark -PbenchArgs="[clients] [requestsPerClient]"
+public class HttpLoadBenchmark {
+    private static final int STUDENTS = 1_000;
+    private static final int ITEM_CODE = 9990;
+    private static final String[] KINDS = {"GET item", "GET course", "POST reservation"};
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int requestsPerClient = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+
+        System.setProperty("merch.persistence", "off");
+        MerchSystem system = new MerchSystem();
+        system.getInventoryManager().addItem(new Item(ITEM_CODE, "Bench Shirt", "STI Special", "M", Integer.MAX_VALUE / 2, 100.00));
+        for (int i = 0; i < STUDENTS; i++) {
+            system.getStudentRegistry().register(new Student("user" + i, "secret" + i, String.format("%08d", i), "BSIT", "User", "No" + i));
+        }
+        MerchHttpApi api = new MerchHttpApi(system, 0);
+        api.start();
+        String base = "http://127.0.0.1:" + api.getPort();
+
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+        // Warm up the JIT and the connection pool.
+        for (int i = 0; i < 200; i++) {
+            client.send(HttpRequest.newBuilder(URI.create(base + "/api/items/" + ITEM_CODE)).build(),
+                HttpResponse.BodyHandlers.discarding());
+        }
+
+        long[][] latencies = new long[KINDS.length][clients * requestsPerClient];
+        AtomicInteger[] counts = new AtomicInteger[KINDS.length];
+        for (int k = 0; k < KINDS.length; k++) {
+            counts[k] = new AtomicInteger();
+        }
+        AtomicLong errors = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(clients);
+        long begin = System.nanoTime();
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                pool.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    try {
+                        for (int r = 0; r < requestsPerClient; r++) {
+                            int kind = pick(random.nextInt(100));
+                            HttpRequest request = request(base, kind, random);
+                            long start = System.nanoTime();
+                            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                            long elapsed = System.nanoTime() - start;
+                            if (response.statusCode() >= 300) {
+                                errors.incrementAndGet();
+                            }
+                            latencies[kind][counts[kind].getAndIncrement()] = elapsed;
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            done.await();
+        }
+        long elapsed = System.nanoTime() - begin;
+        api.close();
+
+        long total = 0;
+        System.out.println("Kind              | Requests | p50 ms | p90 ms | p99 ms | max ms");
+        for (int k = 0; k < KINDS.length; k++) {
+            long[] sorted = Arrays.copyOf(latencies[k], counts[k].get());
+            Arrays.sort(sorted);
+            total += sorted.length;
+            if (sorted.length == 0) {
+                continue;
+            }
+            System.out.printf("%-17s | %-8d | %-6.2f | %-6.2f | %-6.2f | %.2f%n", KINDS[k], sorted.length,
+                percentile(sorted, 50) / 1e6, percentile(sorted, 90) / 1e6, percentile(sorted, 99) / 1e6,
+                sorted[sorted.length - 1] / 1e6);
+        }
+        System.out.printf("%d clients, %d requests in %.1f ms: %.0f requests/s, %d errors%n",
+            clients, total, elapsed / 1e6, total / (elapsed / 1e9), errors.get());
+    }
+
+    // 70% single-item lookups, 20% course listings, 10% reservations.
+    private static int pick(int roll) {
+        return roll < 70 ? 0 : roll < 90 ? 1 : 2;
+    }
+
+    private static HttpRequest request(String base, int kind, ThreadLocalRandom random) {
+        switch (kind) {
+            case 0:
+                return HttpRequest.newBuilder(URI.create(base + "/api/items/" + (1001 + random.nextInt(200)))).build();
+            case 1:
+                return HttpRequest.newBuilder(URI.create(base + "/api/items?course=BSIT")).build();
+            default:
+                int student = random.nextInt(STUDENTS);
+                String body = "{\"studentId\":\"" + String.format("%08d", student)
+                    + "\",\"itemCode\":" + ITEM_CODE + ",\"quantity\":1}";
+                String login = "user" + student + ":secret" + student;
+                return HttpRequest.newBuilder(URI.create(base + "/api/reservations"))
+                    .header("Content-Type", "application/json")
+                    .header("Authorization", "Basic " + Base64.getEncoder().encodeToString(login.getBytes(StandardCharsets.UTF_8)))
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        }
+    }
+
+    private static long percentile(long[] sorted, int p) {
+        int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
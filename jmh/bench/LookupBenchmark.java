@@ -0,0 +1,52 @@
+package bench;
+
+import inventory.InventoryManager;
+import inventory.Item;
+
+import java.util.Random;
+
+// Measures InventoryManager.findItemByCode as the catalog grows.
+// Run: ./gradlew bench -Pbenchmark=LookupBenchmark
+public class LookupBenchmark {
+    private static final int[] CATALOG_SIZES = {100, 1_000, 10_000, 100_000, 1_000_000};
+    private static final int LOOKUPS = 2_000_000;
+
+    public static void main(String[] args) {
+        System.out.println("Catalog size | ns/lookup");
+        System.out.println("-------------|----------");
+        for (int size : CATALOG_SIZES) {
+            InventoryManager manager = new InventoryManager();
+            for (int i = 0; i < size; i++) {
+                manager.addItem(new Item(1000 + i, "Item " + i, "BSIT", "M", 10, 100.00));
+            }
+
+            int[] codes = new int[LOOKUPS];
+            Random random = new Random(42);
+            for (int i = 0; i < codes.length; i++) {
+                codes[i] = 1000 + random.nextInt(size);
+            }
+
+            // Warm up, then measure.
+            run(manager, codes);
+            long start = System.nanoTime();
+            long checksum = run(manager, codes);
+            long elapsed = System.nanoTime() - start;
+
+            System.out.printf("%-12d | %.1f%n", size, (double) elapsed / LOOKUPS);
+            if (checksum == 0) {
+                System.out.println("(unexpected empty result)");
+            }
+        }
+    }
+
+    private static long run(InventoryManager manager, int[] codes) {
+        long checksum = 0;
+        for (int code : codes) {
+            Item item = manager.findItemByCode(code);
+            if (item != null) {
+                checksum += item.getQuantity();
+            }
+        }
+        return checksum;
+    }
+}
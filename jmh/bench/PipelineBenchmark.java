@@ -0,0 +1,117 @@
+package bench;
+
+import inventory.CheckoutResult;
+import inventory.InventoryManager;
+import inventory.Item;
+import inventory.ReservationManager;
+import inventory.ReservationPipeline;
+import persistence.Journal;
+import persistence.JournalRecorder;
+import persistence.SyncPolicy;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Compares reserving through ReservationPipeline at several batch sizes
+// against calling InventoryManager.reserveItem + createReservation
+// directly. Each client thread waits for its reservation before sending
+// the next, like an interactive session. With a journal policy given, every
+// run journals to a fresh temp file, which is where batching pays off.
+// Run: ./gradlew bench -Pbenchmark=PipelineBenchmark -PbenchArgs="[threads] [requestsPerThread] [none|PER_OP|BATCHED|INTERVAL]"
+public class PipelineBenchmark {
+    private static final int ITEMS = 16;
+    private static final int[] BATCH_SIZES = {1, 8, 32, 128, 512};
+
+    private interface Client {
+        boolean reserve(int itemCode) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int requestsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        String journalPolicy = args.length > 2 ? args[2].toUpperCase() : "BATCHED";
+
+        System.out.println("Mode            | Requests/s | Failed");
+        run("direct", threads, requestsPerThread, journalPolicy, 0);
+        for (int batch : BATCH_SIZES) {
+            run("pipeline " + batch, threads, requestsPerThread, journalPolicy, batch);
+        }
+    }
+
+    private static void run(String name, int threads, int requestsPerThread, String journalPolicy, int batch)
+            throws Exception {
+        InventoryManager inventoryManager = new InventoryManager();
+        ReservationManager reservationManager = new ReservationManager();
+        for (int i = 0; i < ITEMS; i++) {
+            inventoryManager.addItem(new Item(1000 + i, "Item " + i, "BSIT", "M", Integer.MAX_VALUE / 2, 100.00));
+        }
+        Journal journal = null;
+        Path dir = null;
+        if (!journalPolicy.equals("NONE")) {
+            dir = Files.createTempDirectory("pipeline-bench");
+            journal = Journal.open(dir.resolve("journal.wal"), SyncPolicy.valueOf(journalPolicy), 50);
+            JournalRecorder recorder = new JournalRecorder(journal);
+            inventoryManager.addListener(recorder);
+            reservationManager.addListener(recorder);
+        }
+
+        ReservationPipeline pipeline = batch > 0
+            ? new ReservationPipeline(inventoryManager, reservationManager, 4096, batch)
+            : null;
+        Client client;
+        if (pipeline != null) {
+            client = code -> {
+                CheckoutResult result = pipeline.submit("Student", "000001", "BSIT", code, 1).get();
+                return result.isSuccess();
+            };
+        } else {
+            client = code -> {
+                if (!inventoryManager.reserveItem(code, 1)) {
+                    return false;
+                }
+                reservationManager.createReservation("Student", "000001", "BSIT", code, "Item", 1);
+                return true;
+            };
+        }
+
+        AtomicLong failed = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                    for (int r = 0; r < requestsPerThread; r++) {
+                        if (!client.reserve(1000 + random.nextInt(ITEMS))) {
+                            failed.incrementAndGet();
+                        }
+                    }
+                } catch (Exception e) {
+                    failed.incrementAndGet();
+                } finally {
+                    done.countDown();
+                }
+            });
+            worker.start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+
+        if (pipeline != null) {
+            pipeline.close();
+        }
+        if (journal != null) {
+            journal.close();
+            Files.deleteIfExists(dir.resolve("journal.wal"));
+            Files.deleteIfExists(dir);
+        }
+        long requests = (long) threads * requestsPerThread;
+        System.out.printf("%-15s | %-10.0f | %d%n", name, requests / (elapsed / 1e9), failed.get());
+    }
+}
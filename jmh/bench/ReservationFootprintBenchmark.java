@@ -0,0 +1,123 @@
+package bench;
+
+import inventory.Reservation;
+import inventory.ReservationManager;
+import inventory.ReservationStatus;
+import utils.IntHashMap;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+// Measures retained heap per reservation for a school year's worth of
+// history. "Before" holds one Reservation object per reservation in the
+// indexes ReservationManager used to keep (list, by ID, by student, by
+// status); "after" is the current ReservationManager. Both are fed the
+// same way the app does, with the student's full name and the item label
+// built fresh for every reservation.
+// Run: ./gradlew bench -Pbenchmark=ReservationFootprintBenchmark -PbenchArgs="[reservations] [students] [items]"
+public class ReservationFootprintBenchmark {
+    private static final String[] COURSES = {"BSIT", "BSCS", "BSCpE", "BSHM", "BSTM", "BSBA", "BMMA", "STI Special"};
+    private static final String[] SIZES = {"XS", "S", "M", "L", "XL", "2XL"};
+    private static final ReservationStatus[] STATUSES = ReservationStatus.values();
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        int students = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+        int items = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        // Student IDs come from the Student object, so they are shared.
+        String[] studentIds = new String[students];
+        for (int i = 0; i < students; i++) {
+            studentIds[i] = String.format("%08d", i);
+        }
+
+        long beforeBytes = retained(() -> {
+            ObjectLayout before = new ObjectLayout();
+            for (int i = 0; i < count; i++) {
+                before.add(new Reservation(1001 + i, studentName(i % students), studentIds[i % students], course(i % students),
+                                           1000 + i % items, itemName(i % items), 1 + i % 3,
+                                           LocalDateTime.now(), STATUSES[i % STATUSES.length]));
+            }
+            return before;
+        });
+        System.out.printf("Before: %d bytes per reservation%n", beforeBytes / count);
+
+        long afterBytes = retained(() -> {
+            ReservationManager after = new ReservationManager();
+            for (int i = 0; i < count; i++) {
+                Reservation r = after.createReservation(studentName(i % students), studentIds[i % students], course(i % students),
+                                                        1000 + i % items, itemName(i % items), 1 + i % 3);
+                ReservationStatus status = STATUSES[i % STATUSES.length];
+                if (status != ReservationStatus.PENDING) {
+                    after.updateReservationStatus(r.getReservationId(), status);
+                }
+            }
+            return after;
+        });
+        System.out.printf("After:  %d bytes per reservation%n", afterBytes / count);
+        System.out.printf("%.1fx smaller%n", (double) beforeBytes / afterBytes);
+    }
+
+    // Heap in use with the structure minus heap in use once it is dropped,
+    // which is immune to whatever else happens to be live at the time.
+    private static long retained(Supplier<Object> build) {
+        Object built = build.get();
+        long with = usedHeap();
+        Reference.reachabilityFence(built);
+        built = null;
+        return with - usedHeap();
+    }
+
+    // What ReservationManager kept before the column store.
+    private static class ObjectLayout {
+        private final List<Reservation> reservations = new ArrayList<>();
+        private final IntHashMap<Reservation> byId = new IntHashMap<>();
+        private final Map<String, List<Reservation>> byStudent = new HashMap<>();
+        private final Map<ReservationStatus, Set<Reservation>> byStatus = new EnumMap<>(ReservationStatus.class);
+
+        ObjectLayout() {
+            for (ReservationStatus status : STATUSES) {
+                byStatus.put(status, new LinkedHashSet<>());
+            }
+        }
+
+        void add(Reservation r) {
+            reservations.add(r);
+            byId.put(r.getReservationId(), r);
+            byStudent.computeIfAbsent(r.getStudentId(), id -> new ArrayList<>()).add(r);
+            byStatus.get(r.getStatus()).add(r);
+        }
+    }
+
+    // Like Student.getFullName(): a new String on every call.
+    private static String studentName(int student) {
+        return "Lastname" + student + ", " + "Firstname" + student;
+    }
+
+    private static String course(int student) {
+        return COURSES[student % COURSES.length];
+    }
+
+    // Like the reserve flow: name + " (" + size + ")" built per reservation.
+    private static String itemName(int item) {
+        return "Uniform Item " + item / SIZES.length + " (" + SIZES[item % SIZES.length] + ")";
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            memory.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,106 @@
+package bench;
+
+import inventory.InventoryManager;
+import inventory.Item;
+import inventory.ItemSearchIndex;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+// Times name searches against a large generated catalog: ItemSearchIndex
+// versus a linear scan of getAllItems() matching lower-cased substrings.
+// Names are built from uniform vocabulary plus a per-SKU model word, so
+// common words ("polo") hit thousands of items and rare ones hit a few.
+// Reports mean and p99 microseconds per query.
+// Run: ./gradlew bench -Pbenchmark=SearchBenchmark -PbenchArgs="[skus]"
+public class SearchBenchmark {
+    private static final String[] COURSES = {"BSIT", "BSCS", "BSCpE", "BSHM", "BSTM", "BSBA", "BMMA", "STI Special"};
+    private static final String[] SIZES = {"XS", "S", "M", "L", "XL", "2XL"};
+    private static final String[] COLORS = {"Gray", "White", "Navy", "Black", "Maroon", "Khaki"};
+    private static final String[] KINDS = {"Polo", "Blouse", "Pants", "Skirt", "Necktie", "PE Shirt", "Jogging Pants",
+                                           "Washday Shirt", "Jacket", "Lanyard", "Anniversary Shirt", "Cap"};
+    private static final String[] FITS = {"Male", "Female", "Unisex"};
+    private static final String[] QUERIES = {"polo", "jog pants", "necktei", "navy polo female", "anniv", "model 4711", "xyz"};
+    private static final int WARMUP = 2_000;
+    private static final int RUNS = 2_000;
+    private static final int LIMIT = 50;
+
+    public static void main(String[] args) {
+        int skus = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        Random random = new Random(42);
+        InventoryManager inventoryManager = new InventoryManager();
+        for (int i = 0; i < skus; i++) {
+            String name = COLORS[random.nextInt(COLORS.length)] + " " + KINDS[random.nextInt(KINDS.length)]
+                + " Model " + i / SIZES.length + " (" + FITS[random.nextInt(FITS.length)] + ")";
+            inventoryManager.addItem(new Item(i + 1, name, COURSES[i % COURSES.length], SIZES[i % SIZES.length],
+                                              random.nextInt(200), 350.00));
+        }
+        long start = System.nanoTime();
+        ItemSearchIndex index = new ItemSearchIndex(inventoryManager);
+        System.out.printf("%d SKUs, index built in %d ms%n", skus, (System.nanoTime() - start) / 1_000_000);
+
+        System.out.println("Query              | Hits  | Index mean us | Index p99 us | Scan mean us");
+        for (String query : QUERIES) {
+            int hits = index.search(query, Integer.MAX_VALUE).size();
+            long[] indexed = time(() -> index.search(query, LIMIT).size());
+            long[] scanned = time(() -> scan(inventoryManager, query));
+            System.out.printf("%-18s | %-5d | %-13.1f | %-12.1f | %.1f%n", query, hits,
+                              mean(indexed), indexed[indexed.length * 99 / 100] / 1e3, mean(scanned));
+        }
+    }
+
+    private interface Query {
+        int run();
+    }
+
+    // Sorted per-query nanoseconds, after a warm-up.
+    private static long[] time(Query query) {
+        int sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += query.run();
+        }
+        long[] nanos = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            sink += query.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+        if (sink == -1) {
+            System.out.println(sink);
+        }
+        Arrays.sort(nanos);
+        return nanos;
+    }
+
+    private static double mean(long[] nanos) {
+        long total = 0;
+        for (long n : nanos) {
+            total += n;
+        }
+        return total / 1e3 / nanos.length;
+    }
+
+    // What searching looks like without an index: every word must appear
+    // somewhere in the name. No typo tolerance, so it finds less.
+    private static int scan(InventoryManager inventoryManager, String query) {
+        String[] words = query.toLowerCase(Locale.ROOT).split(" ");
+        List<Item> items = inventoryManager.getAllItems();
+        int found = 0;
+        for (Item item : items) {
+            String name = item.getName().toLowerCase(Locale.ROOT);
+            boolean all = true;
+            for (String word : words) {
+                if (!name.contains(word)) {
+                    all = false;
+                    break;
+                }
+            }
+            if (all && ++found == LIMIT) {
+                break;
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,156 @@
+package bench;
+
+import inventory.Item;
+import main.MerchSystem;
+import server.MerchServer;
+import student.Student;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Drives full terminal sessions against an in-process MerchServer: each
+// session logs in as its own student, reserves one item and exits. Reports
+// sessions/sec and the latency of the reservation step (from sending "y" at
+// the confirmation prompt to receiving the reservation ID).
+// Run: ./gradlew bench -Pbenchmark=SessionBenchmark -PbenchArgs="[sessions] [concurrent]"
+public class SessionBenchmark {
+    private static final int ITEM_CODE = 9990;
+
+    public static void main(String[] args) throws Exception {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int concurrent = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        System.setProperty("merch.persistence", "off");
+        MerchSystem system = new MerchSystem();
+        system.getInventoryManager().addItem(new Item(ITEM_CODE, "Bench Shirt", "STI Special", "M", sessions, 100.00));
+        for (int i = 0; i < sessions; i++) {
+            system.getStudentRegistry().register(new Student("user" + i, "secret" + i, studentId(i), "BSIT", "User", "No" + i));
+        }
+
+        MerchServer server = new MerchServer(system, 0);
+        server.start();
+
+        long[] latencies = new long[sessions];
+        AtomicInteger failures = new AtomicInteger();
+        Semaphore slots = new Semaphore(concurrent);
+        long begin = System.nanoTime();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < sessions; i++) {
+                int n = i;
+                slots.acquire();
+                clients.submit(() -> {
+                    try {
+                        latencies[n] = runSession(server.getPort(), n);
+                    } catch (IOException | RuntimeException e) {
+                        failures.incrementAndGet();
+                        latencies[n] = -1;
+                    } finally {
+                        slots.release();
+                    }
+                });
+            }
+            clients.shutdown();
+            clients.awaitTermination(10, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - begin;
+        server.close();
+
+        long[] ok = Arrays.stream(latencies).filter(l -> l >= 0).sorted().toArray();
+        System.out.printf("%d sessions (%d concurrent) in %.1f ms: %.0f sessions/s, %d failed%n",
+            sessions, concurrent, elapsed / 1e6, sessions / (elapsed / 1e9), failures.get());
+        if (ok.length > 0) {
+            System.out.printf("reservation latency: p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                percentile(ok, 50) / 1e6, percentile(ok, 90) / 1e6, percentile(ok, 99) / 1e6, ok[ok.length - 1] / 1e6);
+        }
+        System.out.println("stock left: " + system.getInventoryManager().findItemByCode(ITEM_CODE).getQuantity());
+    }
+
+    private static String studentId(int n) {
+        return String.format("%08d", n);
+    }
+
+    private static long percentile(long[] sorted, int p) {
+        int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    // Returns the reservation latency in nanoseconds.
+    private static long runSession(int port, int n) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setTcpNoDelay(true);
+            Conversation c = new Conversation(socket);
+            c.expect("Enter your choice: ");
+            c.send("2");
+            c.expect("Username: ");
+            c.send("user" + n);
+            c.expect("Password: ");
+            c.send("secret" + n);
+            c.expect("Student ID: ");
+            c.send(studentId(n));
+            c.expect("STUDENT HOMEPAGE");
+            c.expect("Enter your choice: ");
+            c.send("2");
+            c.expect("Enter item code to reserve");
+            c.send(String.valueOf(ITEM_CODE));
+            c.expect("Select size: ");
+            c.send("M");
+            c.expect("Enter quantity");
+            c.send("1");
+            c.expect("Confirm reservation?");
+            long start = System.nanoTime();
+            c.send("y");
+            c.expect("Reservation ID: ");
+            long latency = System.nanoTime() - start;
+            c.expect("Reserve another item?");
+            c.send("n");
+            c.expect("Enter your choice: ");
+            c.send("0");
+            c.expect("Exiting system...");
+            return latency;
+        }
+    }
+
+    // Minimal expect-style client: reads until a marker shows up.
+    private static final class Conversation {
+        private final Reader in;
+        private final OutputStream out;
+        private final StringBuilder seen = new StringBuilder();
+        private final char[] buffer = new char[8192];
+
+        Conversation(Socket socket) throws IOException {
+            this.in = new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8);
+            this.out = socket.getOutputStream();
+        }
+
+        void send(String line) throws IOException {
+            out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        }
+
+        void expect(String marker) throws IOException {
+            while (true) {
+                int at = seen.indexOf(marker);
+                if (at >= 0) {
+                    seen.delete(0, at + marker.length());
+                    return;
+                }
+                int n = in.read(buffer);
+                if (n < 0) {
+                    throw new IOException("Session closed before \"" + marker + "\"");
+                }
+                seen.append(buffer, 0, n);
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package bench;
+
+import inventory.Reservation;
+import inventory.ReservationManager;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Reservation throughput while a report thread keeps walking the whole
+// reservation history. "Locked" walks it while holding the manager's lock,
+// which is what every whole-history read did before snapshots (a locked
+// copy of the store); "snapshot" walks getAllReservations(), the published
+// version, without the lock.
+// Run: ./gradlew bench -Pbenchmark=SnapshotReadBenchmark -PbenchArgs="[history] [seconds]"
+public class SnapshotReadBenchmark {
+    public static void main(String[] args) throws InterruptedException {
+        int history = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        System.out.printf("%d reservations of history, %d s per mode%n", history, seconds);
+        System.out.println("Mode     | Reservations/s | Reports/s");
+        run("locked", history, seconds, true);
+        run("snapshot", history, seconds, false);
+    }
+
+    private static void run(String mode, int history, int seconds, boolean locked) throws InterruptedException {
+        ReservationManager reservationManager = new ReservationManager();
+        for (int i = 0; i < history; i++) {
+            reservationManager.createReservation("Student " + i % 5000, "ID" + i % 5000, "BSIT", 1000 + i % 200, "Item", 1);
+        }
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicLong reports = new AtomicLong();
+        Thread reporter = new Thread(() -> {
+            while (!stop.get()) {
+                if (locked) {
+                    synchronized (reservationManager) {
+                        walk(reservationManager.getAllReservations());
+                    }
+                } else {
+                    walk(reservationManager.getAllReservations());
+                }
+                reports.incrementAndGet();
+            }
+        });
+        reporter.start();
+
+        long created = 0;
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        while (System.nanoTime() < end) {
+            reservationManager.createReservation("Walk-in", "W1", "BSIT", 1000, "Item", 1);
+            created++;
+        }
+        stop.set(true);
+        reporter.join();
+        System.out.printf("%-8s | %-14d | %.1f%n", mode, created / seconds, (double) reports.get() / seconds);
+    }
+
+    private static long walk(List<Reservation> reservations) {
+        long quantity = 0;
+        for (Reservation r : reservations) {
+            quantity += r.getQuantity();
+        }
+        return quantity;
+    }
+}
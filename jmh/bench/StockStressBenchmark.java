@@ -0,0 +1,93 @@
+package bench;
+
+import inventory.InventoryManager;
+import inventory.Item;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Hammers InventoryManager.reserveItem/releaseItem from many
+// threads and checks that stock is never oversold.
+// Run: ./gradlew bench -Pbenchmark=StockStressBenchmark -PbenchArgs="[threads] [opsPerThread]"
+public class StockStressBenchmark {
+    private static final int ITEMS = 8;
+    private static final int INITIAL_STOCK = 5_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+        int opsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+
+        InventoryManager manager = new InventoryManager();
+        for (int i = 0; i < ITEMS; i++) {
+            manager.addItem(new Item(1000 + i, "Item " + i, "BSIT", "M", INITIAL_STOCK, 100.00));
+        }
+
+        // Net units each thread took out of (or put back into) every item.
+        AtomicLong[] taken = new AtomicLong[ITEMS];
+        for (int i = 0; i < ITEMS; i++) {
+            taken[i] = new AtomicLong();
+        }
+        AtomicLong negativeSeen = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long[] local = new long[ITEMS];
+                try {
+                    start.await();
+                    for (int op = 0; op < opsPerThread; op++) {
+                        int index = random.nextInt(ITEMS);
+                        int qty = 1 + random.nextInt(3);
+                        if (random.nextInt(10) < 8) {
+                            if (manager.reserveItem(1000 + index, qty)) {
+                                local[index] += qty;
+                            }
+                        } else if (local[index] >= qty) {
+                            // Only give back what this thread actually holds.
+                            manager.releaseItem(1000 + index, qty);
+                            local[index] -= qty;
+                        }
+                        if (manager.findItemByCode(1000 + index).getQuantity() < 0) {
+                            negativeSeen.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    for (int i = 0; i < ITEMS; i++) {
+                        taken[i].addAndGet(local[i]);
+                    }
+                    done.countDown();
+                }
+            });
+            worker.start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+
+        boolean ok = negativeSeen.get() == 0;
+        System.out.println("Item | Remaining | Reserved | Initial | OK");
+        for (int i = 0; i < ITEMS; i++) {
+            int remaining = manager.findItemByCode(1000 + i).getQuantity();
+            long reserved = taken[i].get();
+            boolean itemOk = remaining >= 0 && remaining + reserved == INITIAL_STOCK;
+            ok &= itemOk;
+            System.out.printf("%-4d | %-9d | %-8d | %-7d | %s%n", 1000 + i, remaining, reserved, INITIAL_STOCK, itemOk);
+        }
+        long ops = (long) threads * opsPerThread;
+        System.out.printf("%d threads, %d ops in %.1f ms (%.0f ops/s)%n",
+            threads, ops, elapsed / 1e6, ops / (elapsed / 1e9));
+
+        if (!ok) {
+            System.out.println("FAILED: stock was oversold or went negative.");
+            System.exit(1);
+        }
+        System.out.println("PASSED: no overselling.");
+    }
+}
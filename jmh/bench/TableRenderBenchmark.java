@@ -0,0 +1,63 @@
+package bench;
+
+import inventory.Item;
+import inventory.Tables;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+// Time to print the item table, row by row with String.format and println
+// (how every list was printed before TableRenderer) against one
+// Tables.ITEMS screen. Output goes to a discarding stream so only
+// formatting and writing are measured, not the terminal.
+// Run: ./gradlew bench -Pbenchmark=TableRenderBenchmark -PbenchArgs="[rows] [rounds]"
+public class TableRenderBenchmark {
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+
+        List<Item> items = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            items.add(new Item(1000 + i % 9000, "Item " + i, "BSIT", "M", i % 100, 450.0 + i % 7));
+        }
+
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            // Warm-up.
+            formatted(items);
+            Tables.ITEMS.print("ALL ITEMS", items);
+
+            long start = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                formatted(items);
+            }
+            long formatNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                Tables.ITEMS.print("ALL ITEMS", items);
+            }
+            long renderNanos = System.nanoTime() - start;
+
+            console.printf("%d rows, %d rounds%n", rows, rounds);
+            console.println("Mode     | ns/row");
+            console.printf("%-8s | %.0f%n", "format", (double) formatNanos / rounds / rows);
+            console.printf("%-8s | %.0f%n", "renderer", (double) renderNanos / rounds / rows);
+        } finally {
+            System.setOut(console);
+        }
+    }
+
+    private static void formatted(List<Item> items) {
+        System.out.println("\n=== ALL ITEMS ===");
+        System.out.println("Code   | Name                           | Course                    | Size       | Quantity | Price");
+        System.out.println("-------|--------------------------------|---------------------------|------------|----------|----------");
+        for (Item item : items) {
+            System.out.println(String.format("%-6d | %-30s | %-25s | %-10s | %-8d | P%-8.2f",
+                item.getCode(), item.getName(), item.getCourse(), item.getSize(), item.getQuantity(), item.getPrice()));
+        }
+    }
+}
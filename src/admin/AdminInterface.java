@@ -1,25 +1,81 @@
 package admin;
 
+import audit.AuditAction;
+import audit.AuditLog;
+import audit.AuditRecord;
+import catalog.CatalogExporter;
+import catalog.CatalogImporter;
+import inventory.ColumnarCatalog;
 import inventory.InventoryManager;
+import inventory.ItemSearchIndex;
 import inventory.ReservationManager;
 import inventory.Reservation;
+import inventory.ReservationService;
+import inventory.ReservationStatus;
 import inventory.Item;
+import inventory.Tables;
+import metrics.Metrics;
+import metrics.OperationTimer;
 import utils.InputValidator;
+import utils.TableRenderer;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.Map;
 
 public class AdminInterface {
     private InventoryManager inventoryManager;
     private ReservationManager reservationManager;
+    private ReservationService reservationService;
+    private ColumnarCatalog catalog;
+    private ItemSearchIndex searchIndex;
     private InputValidator validator;
+    private String adminName;
+    // Null when the audit log is off.
+    private AuditLog auditLog;
+    private static final int SEARCH_LIMIT = 50;
+    private static final int AUDIT_LIMIT = 200;
+    // Latencies are shown in microseconds.
+    private static final TableRenderer<OperationTimer.Summary> METRICS = new TableRenderer<OperationTimer.Summary>()
+        .column("Operation", 30, (out, s) -> out.append(s.getName()))
+        .column("Count", 10, (out, s) -> out.append(s.isSampled() ? "~" : "").append(s.getCount()))
+        .column("Ops/s", 10, (out, s) -> TableRenderer.appendFixed(out, s.getThroughput(), 2))
+        .column("p50 (us)", 10, (out, s) -> TableRenderer.appendFixed(out, s.getP50() / 1000.0, 1))
+        .column("p99 (us)", 10, (out, s) -> TableRenderer.appendFixed(out, s.getP99() / 1000.0, 1))
+        .column("p99.9 (us)", 10, (out, s) -> TableRenderer.appendFixed(out, s.getP999() / 1000.0, 1))
+        .column("Max (us)", 10, (out, s) -> TableRenderer.appendFixed(out, s.getMax() / 1000.0, 1));
+    private static final TableRenderer<AuditRecord> AUDIT = new TableRenderer<AuditRecord>()
+        .column("Time", 19, (out, r) -> TableRenderer.appendDateTime(out, LocalDateTime.ofInstant(
+            Instant.ofEpochMilli(r.getTimeMillis()), ZoneId.systemDefault())))
+        .column("Admin", 10, (out, r) -> out.append(r.getActor()))
+        .column("Action", 21, (out, r) -> out.append(r.getAction().getLabel()))
+        .column("Item", 5, (out, r) -> out.append(r.getItemCode() == 0 ? "" : String.valueOf(r.getItemCode())))
+        .column("Res ID", 6, (out, r) -> out.append(r.getReservationId() == 0 ? "" : String.valueOf(r.getReservationId())))
+        .column("Change", 24, (out, r) -> out.append(r.getBefore().isEmpty() && r.getAfter().isEmpty()
+                                                         ? "" : r.getBefore() + " -> " + r.getAfter()))
+        .column("Detail", 40, (out, r) -> out.append(r.getDetail()));
 
-    public AdminInterface(InventoryManager inventoryManager, ReservationManager reservationManager, InputValidator validator) {
+    public AdminInterface(InventoryManager inventoryManager, ReservationManager reservationManager,
+                          ReservationService reservationService, ColumnarCatalog catalog,
+                          ItemSearchIndex searchIndex, InputValidator validator,
+                          String adminName, AuditLog auditLog) {
         this.inventoryManager = inventoryManager;
         this.reservationManager = reservationManager;
+        this.reservationService = reservationService;
+        this.catalog = catalog;
+        this.searchIndex = searchIndex;
         this.validator = validator;
+        this.adminName = adminName;
+        this.auditLog = auditLog;
     }
 
-    public void showMenu() {
+    // Returns true if the user chose to exit the system, false on logout.
+    public boolean showMenu() {
         while (true) {
             System.out.println("\n=== ADMIN HOMEPAGE ===");
             System.out.println("[1] Help");
@@ -27,15 +83,16 @@ public class AdminInterface {
             System.out.println("[3] Stock Page");
             System.out.println("[4] Add/Remove Item");
             System.out.println("[5] Logout");
+            System.out.println("[6] System Metrics");
+            System.out.println("[7] Audit Log");
             System.out.println("[0] Exit");
             
-            int choice = validator.getValidInteger("Enter choice: ", 0, 5);
+            int choice = validator.getValidInteger("Enter choice: ", 0, 7);
             
             switch (choice) {
                 case 0:
                     System.out.println("Exiting...");
-                    System.exit(0);
-                    break;
+                    return true;
                 case 1: showAdminHelp(); break;
                 case 2: showUserReservations(); break;
                 case 3: showStockPage(); break;
@@ -43,9 +100,82 @@ public class AdminInterface {
                 case 5:
                     if (validator.getValidYesNo("Are you sure you want to logout?")) {
                         System.out.println("👋 Logged out successfully!");
-                        return;
+                        return false;
                     }
                     break;
+                case 6: showSystemMetrics(); break;
+                case 7: showAuditLog(); break;
+            }
+        }
+    }
+
+    private void showSystemMetrics() {
+        if (!Metrics.ENABLED) {
+            System.out.println("\nMetrics are turned off (merch.metrics=off).");
+            return;
+        }
+        while (true) {
+            METRICS.print("SYSTEM METRICS", Metrics.summaries());
+            System.out.println("Latencies in microseconds; counted since startup or the last reset.");
+            System.out.println("~ Lookups and stock updates are timed 1 call in 16; their counts are estimates.");
+            System.out.println("[1] Refresh");
+            System.out.println("[2] Reset Counters");
+            System.out.println("[0] Back");
+            
+            int choice = validator.getValidInteger("Enter choice: ", 0, 2);
+            if (choice == 0) return;
+            if (choice == 2 && validator.getValidYesNo("Reset all counters?")) {
+                Metrics.resetAll();
+                System.out.println("Counters reset.");
+            }
+        }
+    }
+
+    private void showAuditLog() {
+        if (auditLog == null) {
+            System.out.println("\nThe audit log is turned off (merch.audit=off).");
+            return;
+        }
+        while (true) {
+            System.out.println("\n=== AUDIT LOG ===");
+            System.out.println("[1] Recent Actions");
+            System.out.println("[2] By Item Code");
+            System.out.println("[3] By Reservation ID");
+            System.out.println("[0] Back");
+            
+            int choice = validator.getValidInteger("Enter choice: ", 0, 3);
+            List<AuditRecord> records;
+            String title;
+            switch (choice) {
+                case 0: return;
+                case 1:
+                    records = auditLog.recent(AUDIT_LIMIT);
+                    title = "RECENT ADMIN ACTIONS";
+                    break;
+                case 2: {
+                    int code = validator.getValidInteger("Item code: ", 1000, 9999);
+                    records = auditLog.findByItemCode(code, AUDIT_LIMIT);
+                    title = "ACTIONS ON ITEM " + code;
+                    break;
+                }
+                default: {
+                    int id = validator.getValidInteger("Reservation ID: ", 1000, 9999);
+                    records = auditLog.findByReservationId(id, AUDIT_LIMIT);
+                    title = "ACTIONS ON RESERVATION " + id;
+                    break;
+                }
+            }
+            if (records.isEmpty()) {
+                System.out.println("No audit records.");
+                continue;
+            }
+            AUDIT.page(title, records, validator);
+            if (records.size() == AUDIT_LIMIT) {
+                System.out.println("Showing the newest " + AUDIT_LIMIT + " records.");
+            }
+            long dropped = auditLog.getDroppedCount();
+            if (dropped > 0) {
+                System.out.println("Warning: " + dropped + " record(s) were dropped since startup because the writer fell behind.");
             }
         }
     }
@@ -68,7 +198,8 @@ public class AdminInterface {
         System.out.println("       • PENDING - Initial status when student reserves");
         System.out.println("       • APPROVED - READY FOR PICKUP - Notify student to pickup");
         System.out.println("       • COMPLETED - Mark when student has picked up items");
-        System.out.println("       • CANCELLED - Cancel the reservation");
+        System.out.println("       • CANCELLED - Cancel the reservation (stock is returned)");
+        System.out.println("       • COMPLETED and CANCELLED are final and cannot be changed");
         System.out.println("   [4] Cancel Reservation - Remove a reservation from the system");
         System.out.println("   [0] Back - Return to main menu");
         
@@ -78,6 +209,11 @@ public class AdminInterface {
         System.out.println("       Available courses: BSIT, BSCS, STEM, ABM, HUMSS, etc.");
         System.out.println("   [3] Search by Code - Find specific item using item code (1000-9999)");
         System.out.println("       • Enter [0] to go back without searching");
+        System.out.println("   [4] Stock Report - Stock per course, total stock and inventory value");
+        System.out.println("       • Optionally lists every item below a stock threshold");
+        System.out.println("   [5] Search by Name - Find items by words in their name");
+        System.out.println("       • Partial words match (e.g., \"jog\" finds Jogging Pants)");
+        System.out.println("       • Small typos are forgiven (e.g., \"necktei\" finds Necktie)");
         System.out.println("   [0] Back - Return to main menu");
         
         System.out.println("\nADD/REMOVE ITEM:");
@@ -85,6 +221,8 @@ public class AdminInterface {
         System.out.println("       • Enter item code (1000-9999) or [0] to cancel");
         System.out.println("       • Provide item name, course, size, quantity, and price");
         System.out.println("       • System checks for duplicate codes");
+        System.out.println("       • Each size of an item gets its own code; the same name, course");
+        System.out.println("         and size cannot be added twice");
         System.out.println("   [2] Remove Item - Delete item from inventory:");
         System.out.println("       • Enter item code or [0] to cancel");
         System.out.println("       • Confirm before deletion");
@@ -92,8 +230,23 @@ public class AdminInterface {
         System.out.println("       • Enter item code or [0] to cancel");
         System.out.println("       • Set new quantity (0-1000)");
         System.out.println("       • Confirm before updating");
+        System.out.println("   [4] Import Catalog File - Add items from a .csv or .jsonl file:");
+        System.out.println("       • CSV needs a header: code,name,course,size,quantity,price");
+        System.out.println("       • Every row is checked first; bad rows are listed and skipped");
+        System.out.println("   [5] Export Catalog File - Save the whole catalog as .csv or .jsonl");
         System.out.println("   [0] Back - Return to main menu");
         
+        System.out.println("\nSYSTEM METRICS:");
+        System.out.println("   • Calls, calls per second and latency (p50/p99/p99.9/max) of each");
+        System.out.println("     inventory, reservation and login operation");
+        System.out.println("   • Counted since startup or the last reset");
+        System.out.println("   [1] Refresh  [2] Reset Counters  [0] Back");
+        
+        System.out.println("\nAUDIT LOG:");
+        System.out.println("   • Every add, remove, quantity change, status change and cancellation");
+        System.out.println("     is recorded with the admin, time, and value before and after");
+        System.out.println("   [1] Recent Actions  [2] By Item Code  [3] By Reservation ID  [0] Back");
+        
         System.out.println("\nTIPS & BEST PRACTICES:");
         System.out.println("   ✓ Regularly check pending reservations");
         System.out.println("   ✓ Update status to 'APPROVED - READY FOR PICKUP' when ready");
@@ -112,7 +265,7 @@ public class AdminInterface {
         
         System.out.println("\n" + "=".repeat(80));
         System.out.println("Press Enter to return to Admin Homepage...");
-        try { System.in.read(); } catch (Exception e) { }
+        validator.waitForEnter();
     }
 
     private void showUserReservations() {
@@ -128,7 +281,7 @@ public class AdminInterface {
             
             switch (choice) {
                 case 0: return;
-                case 1: reservationManager.displayAllReservations(); break;
+                case 1: reservationManager.displayAllReservations(validator); break;
                 case 2: displayPending(); break;
                 case 3: updateStatus(); break;
                 case 4: cancelRes(); break;
@@ -137,10 +290,12 @@ public class AdminInterface {
     }
 
     private void displayPending() {
-        System.out.println("\n=== PENDING RESERVATIONS ===");
-        for (Reservation r : reservationManager.getPendingReservations()) {
-            System.out.println(r);
+        List<Reservation> pending = reservationManager.getPendingReservations();
+        if (pending.isEmpty()) {
+            System.out.println("No pending reservations.");
+            return;
         }
+        Tables.RESERVATIONS.page("PENDING RESERVATIONS", pending, validator);
     }
 
     private void updateStatus() {
@@ -158,25 +313,48 @@ public class AdminInterface {
         System.out.println("[4] CANCELLED");
         
         int status = validator.getValidInteger("Select status: ", 1, 4);
-        String newStatus = switch (status) {
-            case 1 -> "PENDING";
-            case 2 -> "APPROVED - READY FOR PICKUP";
-            case 3 -> "COMPLETED";
-            case 4 -> "CANCELLED";
+        ReservationStatus newStatus = switch (status) {
+            case 1 -> ReservationStatus.PENDING;
+            case 2 -> ReservationStatus.APPROVED;
+            case 3 -> ReservationStatus.COMPLETED;
+            case 4 -> ReservationStatus.CANCELLED;
             default -> r.getStatus();
         };
         
+        if (!r.getStatus().canTransitionTo(newStatus)) {
+            System.out.println("Cannot change a " + r.getStatus() + " reservation to " + newStatus + ".");
+            return;
+        }
+        
         if (validator.getValidYesNo("Confirm status change?")) {
-            reservationManager.updateReservationStatus(id, newStatus);
-            System.out.println("Status updated to: " + newStatus);
+            // r is a copy from before the prompt; don't override a change
+            // someone else made while this admin was deciding.
+            ReservationStatus oldStatus = r.getStatus();
+            boolean updated = newStatus == ReservationStatus.CANCELLED
+                ? reservationService.cancelReservation(id, oldStatus)
+                : reservationManager.updateReservationStatus(id, newStatus, oldStatus);
+            if (updated) {
+                audit(newStatus == ReservationStatus.CANCELLED ? AuditAction.RESERVATION_CANCELLED : AuditAction.STATUS_UPDATED,
+                      r.getItemCode(), id, oldStatus.name(), newStatus.name(), describe(r));
+                System.out.println("Status updated to: " + newStatus);
+            } else {
+                Reservation current = reservationManager.findReservationById(id);
+                System.out.println("Status was not changed" + (current == null ? "." : "; it is now " + current.getStatus() + "."));
+            }
         }
     }
 
     private void cancelRes() {
         int id = validator.getValidInteger("Enter ID to cancel: ", 1000, 9999);
         if (validator.getValidYesNo("Confirm cancellation?")) {
-            if (reservationManager.cancelReservation(id)) {
+            Reservation r = reservationManager.findReservationById(id);
+            ReservationStatus oldStatus = r == null ? null : r.getStatus();
+            if (r != null && reservationService.cancelReservation(id, oldStatus)) {
+                audit(AuditAction.RESERVATION_CANCELLED, r.getItemCode(), id, oldStatus.name(),
+                      ReservationStatus.CANCELLED.name(), describe(r));
                 System.out.println("Cancelled.");
+            } else {
+                System.out.println("Not found or already completed/cancelled.");
             }
         }
     }
@@ -187,15 +365,19 @@ public class AdminInterface {
             System.out.println("[1] View All");
             System.out.println("[2] View by Course");
             System.out.println("[3] Search by Code");
+            System.out.println("[4] Stock Report");
+            System.out.println("[5] Search by Name");
             System.out.println("[0] Back");
             
-            int choice = validator.getValidInteger("Enter choice: ", 0, 3);
+            int choice = validator.getValidInteger("Enter choice: ", 0, 5);
             
             switch (choice) {
                 case 0: return;
-                case 1: inventoryManager.displayAllItems(); break;
+                case 1: inventoryManager.displayAllItems(validator); break;
                 case 2: viewByCourse(); break;
                 case 3: searchByCode(); break;
+                case 4: showStockReport(); break;
+                case 5: searchByName(); break;
             }
         }
     }
@@ -205,7 +387,7 @@ public class AdminInterface {
             System.out.println("- " + course);
         }
         String course = validator.getValidNonEmptyString("Enter course: ", "Course");
-        inventoryManager.displayItemsByCourse(course);
+        inventoryManager.displayItemsByCourse(course, validator);
     }
 
     private void searchByCode() {
@@ -219,30 +401,68 @@ public class AdminInterface {
         
         Item item = inventoryManager.findItemByCode(code);
         if (item != null) {
-            System.out.println("\n=== ITEM FOUND ===");
-            System.out.println("Code   | Name                      | Course               | Size     | Quantity | Price");
-            System.out.println("-------|---------------------------|----------------------|----------|----------|----------");
-            System.out.println(item);
+            Tables.ITEMS.print("ITEM FOUND", List.of(item));
         } else {
             System.out.println("Not found.");
         }
     }
 
+    private void searchByName() {
+        System.out.println("\n=== SEARCH BY NAME ===");
+        String query = validator.getValidNonEmptyString("Enter words from the item name: ", "Search");
+        List<Item> matches = searchIndex.search(query, SEARCH_LIMIT + 1);
+        if (matches.isEmpty()) {
+            System.out.println("No items match \"" + query + "\".");
+            return;
+        }
+        Tables.ITEMS.page("ITEMS MATCHING \"" + query + "\"", matches.subList(0, Math.min(SEARCH_LIMIT, matches.size())),
+                          validator);
+        if (matches.size() > SEARCH_LIMIT) {
+            System.out.println("Showing the best " + SEARCH_LIMIT + " matches. Add more words to narrow the search.");
+        }
+    }
+    
+    private void showStockReport() {
+        System.out.println("\n=== STOCK REPORT ===");
+        System.out.println("Course                    | Stock");
+        System.out.println("--------------------------|----------");
+        for (Map.Entry<String, Long> e : catalog.getStockByCourse().entrySet()) {
+            System.out.printf("%-25s | %d%n", e.getKey(), e.getValue());
+        }
+        System.out.println("\nTotal stock: " + catalog.getTotalStock() + " units across " + catalog.size() + " items");
+        System.out.printf("Inventory value: P%,.2f%n", catalog.getInventoryValue());
+        
+        int threshold = validator.getValidInteger("\nShow items with fewer than how many in stock? (0 to skip): ", 0, Integer.MAX_VALUE);
+        if (threshold == 0) {
+            return;
+        }
+        List<Item> low = catalog.getItemsBelow(threshold);
+        if (low.isEmpty()) {
+            System.out.println("No items below " + threshold + ".");
+            return;
+        }
+        Tables.ITEMS.page("ITEMS BELOW " + threshold, low, validator);
+    }
+
     private void showAddRemoveMenu() {
         while (true) {
             System.out.println("\n=== ADD/REMOVE/UPDATE ===");
             System.out.println("[1] Add Item");
             System.out.println("[2] Remove Item");
             System.out.println("[3] Update Quantity");
+            System.out.println("[4] Import Catalog File");
+            System.out.println("[5] Export Catalog File");
             System.out.println("[0] Back");
             
-            int choice = validator.getValidInteger("Enter choice: ", 0, 3);
+            int choice = validator.getValidInteger("Enter choice: ", 0, 5);
             
             switch (choice) {
                 case 0: return;
                 case 1: addItem(); break;
                 case 2: removeItem(); break;
                 case 3: updateQty(); break;
+                case 4: importCatalog(); break;
+                case 5: exportCatalog(); break;
             }
         }
     }
@@ -264,6 +484,11 @@ public class AdminInterface {
         String name = validator.getValidNonEmptyString("Item name: ", "Name");
         String course = validator.getValidCourse("Course code: ");
         String size = validator.getValidSize("Size: ");
+        Item existing = inventoryManager.findVariant(name, course, size);
+        if (existing != null) {
+            System.out.println("That item already exists in size " + size + " as code " + existing.getCode() + ".");
+            return;
+        }
         int qty = validator.getValidInteger("Quantity: ", 1, 1000);
         double price = validator.getValidPrice("Price: ");
         
@@ -271,6 +496,7 @@ public class AdminInterface {
         
         if (validator.getValidYesNo("Add this item?")) {
             inventoryManager.addItem(item);
+            audit(AuditAction.ITEM_ADDED, code, 0, null, String.valueOf(qty), describe(item));
             System.out.println("Item added!");
         }
     }
@@ -290,9 +516,12 @@ public class AdminInterface {
             return;
         }
         
-        System.out.println(item);
+        Tables.ITEMS.print(null, List.of(item));
         if (validator.getValidYesNo("Remove this item?")) {
-            inventoryManager.removeItem(code);
+            int stock = item.getQuantity();
+            if (inventoryManager.removeItem(code)) {
+                audit(AuditAction.ITEM_REMOVED, code, 0, String.valueOf(stock), null, describe(item));
+            }
             System.out.println("Removed!");
         }
     }
@@ -316,8 +545,69 @@ public class AdminInterface {
         int newQty = validator.getValidInteger("New quantity: ", 0, 1000);
         
         if (validator.getValidYesNo("Update quantity?")) {
-            inventoryManager.updateItemQuantity(code, newQty);
+            int oldQty = item.getQuantity();
+            if (inventoryManager.updateItemQuantity(code, newQty)) {
+                audit(AuditAction.QUANTITY_UPDATED, code, 0, String.valueOf(oldQty), String.valueOf(newQty), describe(item));
+            }
             System.out.println("Updated!");
         }
     }
+
+    private void importCatalog() {
+        System.out.println("\n=== IMPORT CATALOG ===");
+        System.out.println("CSV with a header row (code,name,course,size,quantity,price) or JSONL.");
+        String file = validator.readLine("File path (.csv or .jsonl, blank to go back): ");
+        if (file.isEmpty()) {
+            return;
+        }
+        Path path = Paths.get(file);
+        try {
+            CatalogImporter.Report check = CatalogImporter.validateFile(path, inventoryManager);
+            System.out.println("Checked: " + check);
+            for (String error : check.getErrors()) {
+                System.out.println("  " + error);
+            }
+            if (check.getImported() == 0 || !validator.getValidYesNo("Import the valid rows?")) {
+                return;
+            }
+            CatalogImporter.Report report = CatalogImporter.importFile(path, inventoryManager);
+            System.out.println("Imported: " + report);
+            for (String error : report.getErrors()) {
+                System.out.println("  " + error);
+            }
+            audit(AuditAction.CATALOG_IMPORTED, 0, 0, null, String.valueOf(report.getImported()),
+                  path.toAbsolutePath() + ", " + report.getRejected() + " rejected");
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Import failed: " + e.getMessage());
+        }
+    }
+
+    private void exportCatalog() {
+        System.out.println("\n=== EXPORT CATALOG ===");
+        String file = validator.readLine("File path (.csv or .jsonl, blank to go back): ");
+        if (file.isEmpty()) {
+            return;
+        }
+        try {
+            long count = CatalogExporter.exportFile(inventoryManager, Paths.get(file));
+            System.out.println("Exported " + count + " items to " + file + ".");
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Export failed: " + e.getMessage());
+        }
+    }
+
+    // Queued for the audit writer; never waits on disk (see AuditLog).
+    private void audit(AuditAction action, int itemCode, int reservationId, String before, String after, String detail) {
+        if (auditLog != null) {
+            auditLog.record(adminName, action, itemCode, reservationId, before, after, detail);
+        }
+    }
+
+    private static String describe(Item item) {
+        return item.getName() + " (" + item.getCourse() + ", " + item.getSize() + ")";
+    }
+
+    private static String describe(Reservation r) {
+        return r.getQuantity() + " x " + r.getItemName() + " for " + r.getStudentId();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package audit;
+
+// What an audit record says happened. The ordinal is the record type on
+// disk, so new actions go at the end.
+public enum AuditAction {
+    ITEM_ADDED("Item added"),
+    ITEM_REMOVED("Item removed"),
+    QUANTITY_UPDATED("Quantity updated"),
+    STATUS_UPDATED("Status updated"),
+    RESERVATION_CANCELLED("Reservation cancelled"),
+    // Written by the log itself when the ring was full and records were dropped.
+    GAP("Records dropped"),
+    // One record per import, not per item.
+    CATALOG_IMPORTED("Catalog imported");
+    
+    private static final AuditAction[] VALUES = values();
+    
+    private final String label;
+    
+    AuditAction(String label) {
+        this.label = label;
+    }
+    
+    public String getLabel() { return label; }
+    
+    static AuditAction fromType(byte type) {
+        return type >= 0 && type < VALUES.length ? VALUES[type] : null;
+    }
+}
@@ -0,0 +1,399 @@
+package audit;
+
+import metrics.Metrics;
+import metrics.OperationTimer;
+import persistence.Journal;
+import persistence.SyncPolicy;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+// Append-only trail of admin actions, written off the caller's thread.
+//
+// record() puts the entry in a bounded ring buffer and returns; the
+// "audit-writer" thread drains the ring in batches into numbered segment
+// files (audit-N.log) framed like the journal, so a torn tail is dropped
+// on open. Entries leave the ring only once they are on disk, so queries
+// see everything recorded so far. If a write fails the batch stays in the
+// ring and is retried with backoff after reopening the segment; meanwhile
+// the ring fills and the OverflowPolicy applies as usual. A segment that
+// grows past merch.audit.segment.bytes is closed and the next one started;
+// only the newest merch.audit.segments are kept.
+//
+// When the ring is full the OverflowPolicy decides: BLOCK makes the admin
+// action wait for room, DROP discards the entry and the writer then logs a
+// GAP record with how many were lost, so the trail shows the hole.
+//
+// Configured with system properties:
+//   merch.audit                "off" disables the log (default: on unless merch.persistence is off)
+//   merch.audit.dir            directory for segments (default "data/audit")
+//   merch.audit.capacity       ring buffer entries (default 1024)
+//   merch.audit.policy         BLOCK or DROP (default BLOCK)
+//   merch.audit.segment.bytes  size at which a segment is rotated (default 1048576)
+//   merch.audit.segments       segments kept (default 8)
+public class AuditLog implements AutoCloseable {
+    private static final String PREFIX = "audit-";
+    private static final String SUFFIX = ".log";
+    // Includes waits for room under BLOCK.
+    private static final OperationTimer RECORD_TIMER = Metrics.timer("audit.record");
+    private static final OperationTimer WRITE_TIMER = Metrics.timer("audit.writeBatch");
+    private static final long MIN_RETRY_MILLIS = 100;
+    private static final long MAX_RETRY_MILLIS = 10_000;
+    
+    private final Path dir;
+    private final OverflowPolicy policy;
+    private final long segmentBytes;
+    private final int maxSegments;
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final AuditRecord[] ring;
+    // Sequence of the next slot to fill and of the oldest entry not yet on disk.
+    private long head;
+    private long tail;
+    private long lastSeq;
+    // Dropped since the last GAP record, and in total.
+    private long dropped;
+    private long droppedTotal;
+    private boolean closed;
+    
+    // Only the writer thread touches these once it has started.
+    private Journal segment;
+    private long segmentNumber;
+    private long segmentSize;
+    private final Thread writer;
+    
+    public AuditLog(Path dir, int capacity, OverflowPolicy policy, long segmentBytes, int maxSegments) throws IOException {
+        if (capacity <= 0 || segmentBytes <= 0 || maxSegments <= 0) {
+            throw new IllegalArgumentException("capacity, segment size and segment count must be positive");
+        }
+        this.dir = dir;
+        this.ring = new AuditRecord[capacity];
+        this.policy = policy;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = maxSegments;
+        
+        Files.createDirectories(dir);
+        List<Long> segments = listSegments();
+        segmentNumber = segments.isEmpty() ? 1 : segments.get(segments.size() - 1);
+        segment = Journal.open(segmentFile(segmentNumber), SyncPolicy.BATCHED, 0);
+        segmentSize = Files.size(segmentFile(segmentNumber));
+        for (int i = segments.size() - 1; i >= 0 && lastSeq == 0; i--) {
+            long[] last = new long[1];
+            Journal.replay(segmentFile(segments.get(i)), (type, in) -> {
+                AuditRecord r = AuditRecord.decode(type, in);
+                if (r != null) {
+                    last[0] = r.getSeq();
+                }
+            });
+            lastSeq = last[0];
+        }
+        
+        writer = new Thread(this::run, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+    
+    // Returns null when the audit log is switched off.
+    public static AuditLog fromSystemProperties() throws IOException {
+        String enabled = System.getProperty("merch.audit", System.getProperty("merch.persistence", "on"));
+        if ("off".equalsIgnoreCase(enabled)) {
+            return null;
+        }
+        Path dir = Paths.get(System.getProperty("merch.audit.dir", "data/audit"));
+        int capacity = Integer.getInteger("merch.audit.capacity", 1024);
+        OverflowPolicy policy = OverflowPolicy.valueOf(System.getProperty("merch.audit.policy", "BLOCK").toUpperCase());
+        long segmentBytes = Long.getLong("merch.audit.segment.bytes", 1L << 20);
+        int segments = Integer.getInteger("merch.audit.segments", 8);
+        return new AuditLog(dir, capacity, policy, segmentBytes, segments);
+    }
+    
+    public Path getDir() { return dir; }
+    public OverflowPolicy getPolicy() { return policy; }
+    
+    public long getDroppedCount() {
+        lock.lock();
+        try {
+            return droppedTotal;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // Queues one entry. Returns false if it was dropped (DROP policy, ring
+    // full) or the log is closed. Never does I/O.
+    public boolean record(String actor, AuditAction action, int itemCode, int reservationId,
+                          String before, String after, String detail) {
+        long start = RECORD_TIMER.start();
+        lock.lock();
+        try {
+            while (head - tail == ring.length && !closed) {
+                if (policy == OverflowPolicy.DROP) {
+                    dropped++;
+                    droppedTotal++;
+                    return false;
+                }
+                notFull.awaitUninterruptibly();
+            }
+            if (closed) {
+                return false;
+            }
+            ring[(int) (head % ring.length)] = new AuditRecord(++lastSeq, System.currentTimeMillis(), actor, action,
+                                                               itemCode, reservationId, before, after, detail);
+            head++;
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+            RECORD_TIMER.stop(start);
+        }
+    }
+    
+    private void run() {
+        List<AuditRecord> batch = new ArrayList<>();
+        long end = 0;
+        long retryMillis = MIN_RETRY_MILLIS;
+        while (true) {
+            // A batch left over from a failed write is retried as it is.
+            if (batch.isEmpty()) {
+                lock.lock();
+                try {
+                    while (head == tail && dropped == 0 && !closed) {
+                        notEmpty.awaitUninterruptibly();
+                    }
+                    if (head == tail && dropped == 0) {
+                        return;
+                    }
+                    for (long i = tail; i < head; i++) {
+                        batch.add(ring[(int) (i % ring.length)]);
+                    }
+                    end = head;
+                    // Everything in the batch was queued before these were dropped.
+                    if (dropped > 0) {
+                        batch.add(new AuditRecord(++lastSeq, System.currentTimeMillis(), "", AuditAction.GAP, 0, 0,
+                                                  null, null, dropped + " record(s) dropped, ring buffer full"));
+                        dropped = 0;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+            
+            long start = WRITE_TIMER.start();
+            try {
+                write(batch);
+                retryMillis = MIN_RETRY_MILLIS;
+            } catch (IOException | RuntimeException e) {
+                WRITE_TIMER.stop(start);
+                System.err.println("Audit log write failed, retrying in " + retryMillis + " ms: " + e.getMessage());
+                if (!awaitRetry(retryMillis)) {
+                    lock.lock();
+                    try {
+                        System.err.println("Audit log closed with " + (head - tail) + " record(s) not written");
+                    } finally {
+                        lock.unlock();
+                    }
+                    return;
+                }
+                retryMillis = Math.min(retryMillis * 2, MAX_RETRY_MILLIS);
+                reopenSegment();
+                continue;
+            }
+            WRITE_TIMER.stop(start);
+            batch.clear();
+            
+            lock.lock();
+            try {
+                for (long i = tail; i < end; i++) {
+                    ring[(int) (i % ring.length)] = null;
+                }
+                tail = end;
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+    
+    // Waits before a retry. Returns false once the log is closed: with the
+    // disk failing there is no one left to hand the batch to.
+    private boolean awaitRetry(long millis) {
+        lock.lock();
+        try {
+            long nanos = millis * 1_000_000;
+            while (!closed && nanos > 0) {
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return !closed;
+        } catch (InterruptedException e) {
+            return !closed;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // After a failed write the segment may hold part of the batch, or be
+    // unusable; it is reopened, which drops any torn tail, and the whole
+    // batch is written again. Copies of records that did make it the first
+    // time are skipped by query().
+    private void reopenSegment() {
+        try {
+            segment.close();
+        } catch (IOException | RuntimeException e) {
+            // Already failing; reopening is what matters.
+        }
+        try {
+            segment = Journal.open(segmentFile(segmentNumber), SyncPolicy.BATCHED, 0);
+            segmentSize = Files.size(segmentFile(segmentNumber));
+        } catch (IOException | RuntimeException e) {
+            // The next write fails on the closed segment and we come back here.
+        }
+    }
+    
+    // One fsync per batch; rotates once the segment is past its size.
+    private void write(List<AuditRecord> batch) throws IOException {
+        for (AuditRecord r : batch) {
+            byte[] payload = r.encode();
+            segment.append((byte) r.getAction().ordinal(), payload);
+            segmentSize += 9 + payload.length;
+        }
+        segment.sync();
+        if (segmentSize >= segmentBytes) {
+            long next = segmentNumber + 1;
+            segment.rotate(segmentFile(next));
+            segmentNumber = next;
+            segmentSize = 0;
+            for (long n : listSegments()) {
+                if (n <= next - maxSegments) {
+                    Files.deleteIfExists(segmentFile(n));
+                }
+            }
+        }
+    }
+    
+    public List<AuditRecord> findByItemCode(int itemCode, int limit) {
+        return query(r -> r.getItemCode() == itemCode, limit);
+    }
+    
+    public List<AuditRecord> findByReservationId(int reservationId, int limit) {
+        return query(r -> r.getReservationId() == reservationId, limit);
+    }
+    
+    public List<AuditRecord> recent(int limit) {
+        return query(r -> true, limit);
+    }
+    
+    // The newest 'limit' matching records, oldest first. Reads the kept
+    // segments, then whatever is still in the ring. An entry being written
+    // can be in both; sequence numbers tell the copies apart.
+    public List<AuditRecord> query(Predicate<AuditRecord> filter, int limit) {
+        List<AuditRecord> queued = new ArrayList<>();
+        lock.lock();
+        try {
+            for (long i = tail; i < head; i++) {
+                queued.add(ring[(int) (i % ring.length)]);
+            }
+        } finally {
+            lock.unlock();
+        }
+        
+        ArrayDeque<AuditRecord> newest = new ArrayDeque<>(Math.min(limit, 1024));
+        long[] onDisk = new long[1];
+        Journal.RecordHandler handler = (type, in) -> {
+            AuditRecord r = AuditRecord.decode(type, in);
+            if (r == null) {
+                return;
+            }
+            // Segments are in sequence order; a record at or below the
+            // highest seen is a copy left by a retried write.
+            if (r.getSeq() <= onDisk[0]) {
+                return;
+            }
+            onDisk[0] = r.getSeq();
+            keep(newest, r, filter, limit);
+        };
+        try {
+            for (long n : listSegments()) {
+                try {
+                    Journal.replay(segmentFile(n), handler);
+                } catch (NoSuchFileException e) {
+                    // Rotated away while we were listing.
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read audit log " + dir, e);
+        }
+        for (AuditRecord r : queued) {
+            if (r.getSeq() > onDisk[0]) {
+                keep(newest, r, filter, limit);
+            }
+        }
+        return new ArrayList<>(newest);
+    }
+    
+    private static void keep(ArrayDeque<AuditRecord> newest, AuditRecord r, Predicate<AuditRecord> filter, int limit) {
+        if (!filter.test(r)) {
+            return;
+        }
+        if (newest.size() == limit) {
+            newest.pollFirst();
+        }
+        newest.addLast(r);
+    }
+    
+    private Path segmentFile(long n) {
+        return dir.resolve(String.format("%s%08d%s", PREFIX, n, SUFFIX));
+    }
+    
+    private List<Long> listSegments() throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    numbers.add(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    // Not one of ours.
+                }
+            }
+        }
+        Collections.sort(numbers);
+        return numbers;
+    }
+    
+    // Stops taking entries, lets the writer finish what is queued, then
+    // closes the segment.
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        segment.close();
+    }
+}
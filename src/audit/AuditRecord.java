@@ -0,0 +1,76 @@
+package audit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+// One admin action: who did it, when, to which item and/or reservation,
+// and the value before and after (quantity or status). itemCode and
+// reservationId are 0 when they don't apply; strings are never null.
+public class AuditRecord {
+    private final long seq;
+    private final long timeMillis;
+    private final String actor;
+    private final AuditAction action;
+    private final int itemCode;
+    private final int reservationId;
+    private final String before;
+    private final String after;
+    private final String detail;
+    
+    AuditRecord(long seq, long timeMillis, String actor, AuditAction action, int itemCode, int reservationId,
+                String before, String after, String detail) {
+        this.seq = seq;
+        this.timeMillis = timeMillis;
+        this.actor = actor == null ? "" : actor;
+        this.action = action;
+        this.itemCode = itemCode;
+        this.reservationId = reservationId;
+        this.before = before == null ? "" : before;
+        this.after = after == null ? "" : after;
+        this.detail = detail == null ? "" : detail;
+    }
+    
+    public long getSeq() { return seq; }
+    public long getTimeMillis() { return timeMillis; }
+    public String getActor() { return actor; }
+    public AuditAction getAction() { return action; }
+    public int getItemCode() { return itemCode; }
+    public int getReservationId() { return reservationId; }
+    public String getBefore() { return before; }
+    public String getAfter() { return after; }
+    public String getDetail() { return detail; }
+    
+    byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(seq);
+            out.writeLong(timeMillis);
+            out.writeUTF(actor);
+            out.writeInt(itemCode);
+            out.writeInt(reservationId);
+            out.writeUTF(before);
+            out.writeUTF(after);
+            out.writeUTF(detail);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+    
+    // Null for a record type this version doesn't know.
+    static AuditRecord decode(byte type, DataInputStream in) throws IOException {
+        AuditAction action = AuditAction.fromType(type);
+        if (action == null) {
+            return null;
+        }
+        long seq = in.readLong();
+        long time = in.readLong();
+        String actor = in.readUTF();
+        int itemCode = in.readInt();
+        int reservationId = in.readInt();
+        return new AuditRecord(seq, time, actor, action, itemCode, reservationId, in.readUTF(), in.readUTF(), in.readUTF());
+    }
+}
@@ -0,0 +1,10 @@
+package audit;
+
+// What AuditLog.record does when the ring buffer is full because the
+// writer has fallen behind (a slow or stalled disk).
+public enum OverflowPolicy {
+    // Wait for the writer to make room: nothing is lost, the admin action waits.
+    BLOCK,
+    // Discard the new record and count it; the writer logs a GAP record.
+    DROP
+}
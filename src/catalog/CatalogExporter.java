@@ -0,0 +1,89 @@
+package catalog;
+
+import inventory.InventoryManager;
+import inventory.Item;
+import server.Json;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Writes the catalog in a format CatalogImporter reads back. Items are
+// written as the catalog snapshot is walked, so nothing is collected
+// first; quantities are each item's stock at the moment it is written.
+public class CatalogExporter {
+    // Returns the number of items written.
+    public static long exportFile(InventoryManager inventoryManager, Path file) throws IOException {
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8),
+                                             1 << 16)) {
+            return export(inventoryManager, out, CatalogFormat.fromFileName(file));
+        }
+    }
+    
+    public static long export(InventoryManager inventoryManager, Writer out, CatalogFormat format) throws IOException {
+        long[] count = new long[1];
+        StringBuilder row = new StringBuilder(128);
+        if (format == CatalogFormat.CSV) {
+            out.write(String.join(",", CatalogImporter.COLUMNS));
+            out.write('\n');
+        }
+        try {
+            inventoryManager.forEachItem(item -> {
+                row.setLength(0);
+                try {
+                    if (format == CatalogFormat.CSV) {
+                        appendCsv(row, item);
+                    } else {
+                        Json.writeItem(row, item);
+                    }
+                    row.append('\n');
+                    out.append(row);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                count[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return count[0];
+    }
+    
+    private static void appendCsv(StringBuilder row, Item item) {
+        row.append(item.getCode()).append(',');
+        appendCsvField(row, item.getName());
+        row.append(',');
+        appendCsvField(row, item.getCourse());
+        row.append(',');
+        appendCsvField(row, item.getSize());
+        row.append(',').append(item.getQuantity())
+           .append(',').append(item.getPrice());
+    }
+    
+    // Quotes the field only when it holds a comma, quote or line break.
+    private static void appendCsvField(StringBuilder row, String value) {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            row.append(value);
+            return;
+        }
+        row.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                row.append('"');
+            }
+            row.append(c);
+        }
+        row.append('"');
+    }
+}
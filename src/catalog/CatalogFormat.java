@@ -0,0 +1,22 @@
+package catalog;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+public enum CatalogFormat {
+    // Header row naming the columns, then one item per row.
+    CSV,
+    // One flat JSON object per line, as GET /api/items writes them.
+    JSONL;
+    
+    public static CatalogFormat fromFileName(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".jsonl") || name.endsWith(".ndjson")) {
+            return JSONL;
+        }
+        throw new IllegalArgumentException("Unknown catalog format for " + file.getFileName() + " (use .csv or .jsonl)");
+    }
+}
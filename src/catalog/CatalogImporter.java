@@ -0,0 +1,327 @@
+package catalog;
+
+import inventory.InventoryManager;
+import inventory.Item;
+import server.Json;
+import utils.InputValidator;
+import utils.IntIntHashMap;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Streams a catalog file into InventoryManager in one pass. Rows are
+// parsed, checked with InputValidator's course, size and price rules and
+// handed to InventoryManager.addItems in batches, so besides the catalog
+// itself only one row and one batch are in memory however long the file.
+// Validating without loading keeps just the set of codes seen.
+//
+// CSV starts with a header naming the columns, in any order:
+//   code,name,course,size,quantity,price
+// Fields may be quoted, with "" for a quote inside; a quoted field may
+// span lines. JSONL is one flat object per line with the same keys, which
+// is what CatalogExporter and GET /api/items write.
+//
+// A bad row is reported with its line number and skipped; the rest still
+// load. So is a row whose code is taken or whose (name, course, size)
+// already has a code.
+public class CatalogImporter {
+    static final String[] COLUMNS = {"code", "name", "course", "size", "quantity", "price"};
+    private static final int BATCH_SIZE = 4096;
+    // Every rejected row is counted; only this many are kept to show.
+    private static final int MAX_ERRORS = 100;
+    
+    // Null when only validating.
+    private final InventoryManager inventoryManager;
+    // When only validating: the catalog codes are checked against (may be
+    // null), and the codes of the file's valid rows so far.
+    private final InventoryManager catalog;
+    private final IntIntHashMap seenCodes;
+    private final Report report = new Report();
+    private final List<Item> batch = new ArrayList<>(BATCH_SIZE);
+    private final long[] batchLines = new long[BATCH_SIZE];
+    private final boolean[] added = new boolean[BATCH_SIZE];
+    
+    private CatalogImporter(InventoryManager inventoryManager, InventoryManager catalog) {
+        this.inventoryManager = inventoryManager;
+        this.catalog = catalog;
+        this.seenCodes = inventoryManager == null ? new IntIntHashMap() : null;
+    }
+    
+    public static Report importFile(Path file, InventoryManager inventoryManager) throws IOException {
+        try (BufferedReader in = open(file)) {
+            return importFrom(in, CatalogFormat.fromFileName(file), inventoryManager);
+        }
+    }
+    
+    // Parses and checks every row without loading anything. A code used
+    // twice in the file is rejected the second time.
+    public static Report validateFile(Path file) throws IOException {
+        return validateFile(file, null);
+    }
+    
+    // Same, also rejecting codes the catalog already uses.
+    public static Report validateFile(Path file, InventoryManager catalog) throws IOException {
+        try (BufferedReader in = open(file)) {
+            return read(in, CatalogFormat.fromFileName(file), null, catalog);
+        }
+    }
+    
+    public static Report importFrom(BufferedReader in, CatalogFormat format, InventoryManager inventoryManager)
+            throws IOException {
+        return read(in, format, inventoryManager, null);
+    }
+    
+    private static Report read(BufferedReader in, CatalogFormat format, InventoryManager inventoryManager,
+                               InventoryManager catalog) throws IOException {
+        CatalogImporter importer = new CatalogImporter(inventoryManager, catalog);
+        importer.report.checkOnly = inventoryManager == null;
+        long start = System.nanoTime();
+        if (format == CatalogFormat.CSV) {
+            importer.readCsv(in);
+        } else {
+            importer.readJsonl(in);
+        }
+        importer.flush();
+        importer.report.elapsedNanos = System.nanoTime() - start;
+        return importer.report;
+    }
+    
+    private static BufferedReader open(Path file) throws IOException {
+        return new BufferedReader(new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8), 1 << 16);
+    }
+    
+    private void readCsv(BufferedReader in) throws IOException {
+        CsvReader csv = new CsvReader(in);
+        if (!csv.next()) {
+            return;
+        }
+        // position[c] is where COLUMNS[c] sits in each row.
+        int[] position = new int[COLUMNS.length];
+        for (int c = 0; c < COLUMNS.length; c++) {
+            position[c] = -1;
+            for (int i = 0; i < csv.fields.size(); i++) {
+                if (csv.fields.get(i).trim().equalsIgnoreCase(COLUMNS[c])) {
+                    position[c] = i;
+                }
+            }
+            if (position[c] < 0) {
+                throw new IllegalArgumentException("CSV header has no \"" + COLUMNS[c] + "\" column");
+            }
+        }
+        int last = max(position);
+        String[] values = new String[COLUMNS.length];
+        while (csv.next()) {
+            if (csv.fields.size() == 1 && csv.fields.get(0).isBlank()) {
+                continue;
+            }
+            report.rowsRead++;
+            if (csv.fields.size() <= last) {
+                reject(csv.startLine, "expected " + (last + 1) + " fields, found " + csv.fields.size());
+                continue;
+            }
+            for (int c = 0; c < COLUMNS.length; c++) {
+                values[c] = csv.fields.get(position[c]);
+            }
+            add(values, csv.startLine);
+        }
+    }
+    
+    private void readJsonl(BufferedReader in) throws IOException {
+        String[] values = new String[COLUMNS.length];
+        long line = 0;
+        String text;
+        while ((text = in.readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+            report.rowsRead++;
+            Map<String, String> object;
+            try {
+                object = Json.parseObject(text);
+            } catch (IllegalArgumentException e) {
+                reject(line, "bad JSON: " + e.getMessage());
+                continue;
+            }
+            for (int c = 0; c < COLUMNS.length; c++) {
+                values[c] = object.get(COLUMNS[c]);
+            }
+            add(values, line);
+        }
+    }
+    
+    // values are in COLUMNS order.
+    private void add(String[] values, long line) {
+        for (int c = 0; c < COLUMNS.length; c++) {
+            if (values[c] == null || values[c].isBlank()) {
+                reject(line, COLUMNS[c] + " is missing");
+                return;
+            }
+        }
+        int code;
+        int quantity;
+        double price;
+        try {
+            code = Integer.parseInt(values[0].trim());
+            quantity = Integer.parseInt(values[4].trim());
+            price = Double.parseDouble(values[5].trim());
+        } catch (NumberFormatException e) {
+            reject(line, "not a number: " + e.getMessage());
+            return;
+        }
+        String course = InputValidator.normalizeItemCourse(values[2]);
+        String size = InputValidator.normalizeSize(values[3]);
+        if (code <= 0) {
+            reject(line, "code must be positive");
+        } else if (course == null) {
+            reject(line, "invalid course \"" + values[2].trim() + "\"");
+        } else if (size == null) {
+            reject(line, "invalid size \"" + values[3].trim() + "\"");
+        } else if (quantity < 0) {
+            reject(line, "quantity must not be negative");
+        } else if (!InputValidator.isValidPrice(price)) {
+            reject(line, "price must be between 0 and 10000");
+        } else if (inventoryManager == null) {
+            if (seenCodes.get(code) >= 0 || (catalog != null && catalog.findItemByCode(code) != null)) {
+                reject(line, "code " + code + " is already used");
+            } else {
+                seenCodes.put(code, 0);
+                report.imported++;
+            }
+        } else {
+            batchLines[batch.size()] = line;
+            batch.add(new Item(code, values[1].trim(), course, size, quantity, price));
+            if (batch.size() == BATCH_SIZE) {
+                flush();
+            }
+        }
+    }
+    
+    private void flush() {
+        if (batch.isEmpty()) {
+            return;
+        }
+        report.imported += inventoryManager.addItems(batch, added);
+        for (int i = 0; i < batch.size(); i++) {
+            if (!added[i]) {
+                Item item = batch.get(i);
+                reject(batchLines[i], inventoryManager.findItemByCode(item.getCode()) != null
+                    ? "code " + item.getCode() + " is already used"
+                    : item.getName() + " (" + item.getCourse() + ", " + item.getSize() + ") already has a code");
+            }
+        }
+        batch.clear();
+    }
+    
+    private void reject(long line, String reason) {
+        report.rejected++;
+        if (report.errors.size() < MAX_ERRORS) {
+            report.errors.add("line " + line + ": " + reason);
+        }
+    }
+    
+    private static int max(int[] values) {
+        int max = values[0];
+        for (int v : values) {
+            max = Math.max(max, v);
+        }
+        return max;
+    }
+    
+    // Reads one CSV record at a time into a reused field list.
+    private static final class CsvReader {
+        private final BufferedReader in;
+        private final StringBuilder field = new StringBuilder();
+        final List<String> fields = new ArrayList<>();
+        long line;
+        // The line the current record started on.
+        long startLine;
+        
+        CsvReader(BufferedReader in) {
+            this.in = in;
+        }
+        
+        boolean next() throws IOException {
+            String text = in.readLine();
+            if (text == null) {
+                return false;
+            }
+            startLine = ++line;
+            fields.clear();
+            field.setLength(0);
+            boolean quoted = false;
+            int i = 0;
+            while (true) {
+                if (i == text.length()) {
+                    if (!quoted) {
+                        break;
+                    }
+                    // A quoted field runs on to the next line.
+                    text = in.readLine();
+                    if (text == null) {
+                        break;
+                    }
+                    line++;
+                    field.append('\n');
+                    i = 0;
+                    continue;
+                }
+                char c = text.charAt(i++);
+                if (quoted) {
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < text.length() && text.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            return true;
+        }
+    }
+    
+    public static class Report {
+        private long rowsRead;
+        private long imported;
+        private long rejected;
+        private long elapsedNanos;
+        private boolean checkOnly;
+        private final List<String> errors = new ArrayList<>();
+        
+        public long getRowsRead() { return rowsRead; }
+        // Rows that passed; when only validating, rows that would be loaded.
+        public long getImported() { return imported; }
+        public long getRejected() { return rejected; }
+        public long getElapsedNanos() { return elapsedNanos; }
+        // The first rejected rows, as "line N: reason".
+        public List<String> getErrors() { return errors; }
+        
+        public double getRowsPerSecond() {
+            return elapsedNanos <= 0 ? 0 : rowsRead * 1e9 / elapsedNanos;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("%,d rows read, %,d %s, %,d rejected in %.2f s (%,.0f rows/s)",
+                                 rowsRead, imported, checkOnly ? "valid" : "imported", rejected,
+                                 elapsedNanos / 1e9, getRowsPerSecond());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package inventory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class Cart {
+    private final Map<Integer, Line> lines = new TreeMap<>();
+    
+    public void addItem(Item item, int quantity) {
+        Line line = lines.get(item.getCode());
+        if (line == null) {
+            lines.put(item.getCode(), new Line(item.getCode(), item.getName() + " (" + item.getSize() + ")", quantity));
+        } else {
+            line.quantity += quantity;
+        }
+    }
+    
+    public boolean removeItem(int code) {
+        return lines.remove(code) != null;
+    }
+    
+    // Lines are kept sorted by item code, which is the order checkout claims stock in.
+    public List<Line> getLines() {
+        return Collections.unmodifiableList(new ArrayList<>(lines.values()));
+    }
+    
+    public int getQuantity(int code) {
+        Line line = lines.get(code);
+        return line == null ? 0 : line.quantity;
+    }
+    
+    public boolean isEmpty() {
+        return lines.isEmpty();
+    }
+    
+    public void clear() {
+        lines.clear();
+    }
+    
+    public static class Line {
+        private final int itemCode;
+        private final String itemName;
+        private int quantity;
+        
+        Line(int itemCode, String itemName, int quantity) {
+            this.itemCode = itemCode;
+            this.itemName = itemName;
+            this.quantity = quantity;
+        }
+        
+        public int getItemCode() { return itemCode; }
+        public String getItemName() { return itemName; }
+        public int getQuantity() { return quantity; }
+    }
+}
@@ -0,0 +1,123 @@
+package inventory;
+
+import utils.PersistentVector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// One published version of the catalog: every item in display order, the
+// items of each course and the course list. Immutable. InventoryManager
+// builds the next version on every add or remove and readers pick up the
+// latest with a single volatile read, so a long report or export works on
+// a fixed catalog without locking and without copying it. Versions share
+// structure (see PersistentVector): publishing one costs a few small arrays,
+// not a copy of the catalog.
+//
+// Item objects are shared between versions. Their stock keeps moving, as
+// stock is a per-item CAS that never goes through the catalog; read
+// getStock() once per item for a consistent (version, quantity) pair.
+public final class CatalogSnapshot {
+    static final CatalogSnapshot EMPTY =
+        new CatalogSnapshot(0, PersistentVector.empty(), Collections.emptyMap(), Collections.emptyList());
+    
+    private final long version;
+    private final PersistentVector<Item> items;
+    // Keyed by InventoryManager.courseKey(course).
+    private final Map<String, PersistentVector<Item>> itemsByCourse;
+    private final List<String> courses;
+    
+    private CatalogSnapshot(long version, PersistentVector<Item> items,
+                            Map<String, PersistentVector<Item>> itemsByCourse, List<String> courses) {
+        this.version = version;
+        this.items = items;
+        this.itemsByCourse = itemsByCourse;
+        this.courses = courses;
+    }
+    
+    CatalogSnapshot withItem(Item item) {
+        String key = InventoryManager.courseKey(item.getCourse());
+        Map<String, PersistentVector<Item>> byCourse = new HashMap<>(itemsByCourse);
+        PersistentVector<Item> courseItems = byCourse.get(key);
+        List<String> newCourses = courses;
+        if (courseItems == null) {
+            courseItems = PersistentVector.empty();
+            newCourses = new ArrayList<>(courses);
+            newCourses.add(item.getCourse());
+            newCourses = Collections.unmodifiableList(newCourses);
+        }
+        byCourse.put(key, courseItems.append(item));
+        return new CatalogSnapshot(version + 1, items.append(item), byCourse, newCourses);
+    }
+    
+    // One version for a whole batch: the course map is copied once rather
+    // than once per item.
+    CatalogSnapshot withItems(List<Item> added) {
+        if (added.isEmpty()) {
+            return this;
+        }
+        Map<String, PersistentVector<Item>> byCourse = new HashMap<>(itemsByCourse);
+        List<String> newCourses = null;
+        PersistentVector<Item> all = items;
+        for (Item item : added) {
+            String key = InventoryManager.courseKey(item.getCourse());
+            PersistentVector<Item> courseItems = byCourse.get(key);
+            if (courseItems == null) {
+                courseItems = PersistentVector.empty();
+                if (newCourses == null) {
+                    newCourses = new ArrayList<>(courses);
+                }
+                newCourses.add(item.getCourse());
+            }
+            byCourse.put(key, courseItems.append(item));
+            all = all.append(item);
+        }
+        return new CatalogSnapshot(version + added.size(), all, byCourse,
+                                   newCourses == null ? courses : Collections.unmodifiableList(newCourses));
+    }
+    
+    CatalogSnapshot withoutItem(Item item) {
+        int index = items.indexOf(item);
+        if (index < 0) {
+            return this;
+        }
+        String key = InventoryManager.courseKey(item.getCourse());
+        Map<String, PersistentVector<Item>> byCourse = new HashMap<>(itemsByCourse);
+        PersistentVector<Item> courseItems = byCourse.get(key);
+        courseItems = courseItems.remove(courseItems.indexOf(item));
+        List<String> newCourses = courses;
+        if (courseItems.isEmpty()) {
+            byCourse.remove(key);
+            newCourses = new ArrayList<>(courses);
+            newCourses.removeIf(c -> InventoryManager.courseKey(c).equals(key));
+            newCourses = Collections.unmodifiableList(newCourses);
+        } else {
+            byCourse.put(key, courseItems);
+        }
+        return new CatalogSnapshot(version + 1, items.remove(index), byCourse, newCourses);
+    }
+    
+    // Counts the adds and removals that led to this version.
+    public long getVersion() {
+        return version;
+    }
+    
+    public int size() {
+        return items.size();
+    }
+    
+    public List<Item> getItems() {
+        return items.asList();
+    }
+    
+    public List<Item> getItemsByCourse(String course) {
+        PersistentVector<Item> courseItems = itemsByCourse.get(InventoryManager.courseKey(course));
+        return courseItems == null ? Collections.emptyList() : courseItems.asList();
+    }
+    
+    public List<String> getCourses() {
+        return courses;
+    }
+}
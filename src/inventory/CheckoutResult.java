@@ -0,0 +1,29 @@
+package inventory;
+
+import java.util.Collections;
+import java.util.List;
+
+public class CheckoutResult {
+    private final List<Reservation> reservations;
+    private final int failedItemCode;
+    private final String message;
+    
+    private CheckoutResult(List<Reservation> reservations, int failedItemCode, String message) {
+        this.reservations = reservations;
+        this.failedItemCode = failedItemCode;
+        this.message = message;
+    }
+    
+    static CheckoutResult success(List<Reservation> reservations) {
+        return new CheckoutResult(Collections.unmodifiableList(reservations), 0, "Reserved " + reservations.size() + " item(s).");
+    }
+    
+    static CheckoutResult failure(int failedItemCode, String message) {
+        return new CheckoutResult(Collections.emptyList(), failedItemCode, message);
+    }
+    
+    public boolean isSuccess() { return failedItemCode == 0 && !reservations.isEmpty(); }
+    public List<Reservation> getReservations() { return reservations; }
+    public int getFailedItemCode() { return failedItemCode; }
+    public String getMessage() { return message; }
+}
@@ -0,0 +1,268 @@
+package inventory;
+
+import utils.IntIntHashMap;
+import utils.StringDictionary;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+
+// Struct-of-arrays copy of the catalog for aggregate queries. One row per
+// item, in parallel primitive arrays: code, course id, price in centavos and
+// the packed (version, quantity) stock word. Aggregates are counted loops
+// over those arrays instead of walks over Item objects, so a scan of a
+// million SKUs reads a few contiguous megabytes and never chases a pointer.
+//
+// Kept up to date as an InventoryListener. Stock events copy the item's
+// current stock word and keep whichever has the higher version, so the copy
+// converges on the live value however events from different threads
+// interleave. Aggregates are weakly consistent: they may miss changes made
+// while the scan runs.
+//
+// Rows are packed: removing an item moves the last row into its place.
+// Adds and removals take the write lock and scans the read lock. Stock
+// updates find their row under an optimistic read, so items updated on
+// different threads don't contend on the lock; only an update that raced
+// with an add or removal retries under the read lock.
+public final class ColumnarCatalog implements InventoryListener, AutoCloseable {
+    private static final VarHandle STOCK = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final int INITIAL_CAPACITY = 256;
+    
+    private final InventoryManager inventoryManager;
+    private final StampedLock lock = new StampedLock();
+    private final IntIntHashMap rowByCode = new IntIntHashMap();
+    private final StringDictionary courseKeys = new StringDictionary();
+    // Display name per course id: the spelling first seen.
+    private final List<String> courseNames = new ArrayList<>();
+    private int size;
+    
+    private int[] codes = new int[INITIAL_CAPACITY];
+    private int[] courseIds = new int[INITIAL_CAPACITY];
+    private long[] priceCents = new long[INITIAL_CAPACITY];
+    private long[] stock = new long[INITIAL_CAPACITY];
+    private Item[] items = new Item[INITIAL_CAPACITY];
+    
+    // Loads the current catalog and follows it from then on.
+    public ColumnarCatalog(InventoryManager inventoryManager) {
+        this.inventoryManager = inventoryManager;
+        inventoryManager.subscribe(this);
+    }
+    
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    // Total stock per course, in the order courses first appeared.
+    public Map<String, Long> getStockByCourse() {
+        long stamp = lock.readLock();
+        try {
+            int courseCount = courseNames.size();
+            long[] totals = new long[courseCount];
+            int[] itemCounts = new int[courseCount];
+            int[] ids = courseIds;
+            long[] words = stock;
+            for (int row = 0; row < size; row++) {
+                totals[ids[row]] += (int) words[row];
+                itemCounts[ids[row]]++;
+            }
+            Map<String, Long> result = new LinkedHashMap<>();
+            for (int id = 0; id < courseCount; id++) {
+                if (itemCounts[id] > 0) {
+                    result.put(courseNames.get(id), totals[id]);
+                }
+            }
+            return result;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    // Items whose quantity is below the threshold, e.g. to restock.
+    public List<Item> getItemsBelow(int threshold) {
+        List<Item> result = new ArrayList<>();
+        long stamp = lock.readLock();
+        try {
+            long[] words = stock;
+            for (int row = 0; row < size; row++) {
+                if ((int) words[row] < threshold) {
+                    result.add(items[row]);
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return result;
+    }
+    
+    public long getTotalStock() {
+        long stamp = lock.readLock();
+        try {
+            long total = 0;
+            long[] words = stock;
+            for (int row = 0; row < size; row++) {
+                total += (int) words[row];
+            }
+            return total;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    // Price times quantity over the whole catalog, summed exactly in centavos.
+    public double getInventoryValue() {
+        long stamp = lock.readLock();
+        try {
+            long cents = 0;
+            long[] prices = priceCents;
+            long[] words = stock;
+            for (int row = 0; row < size; row++) {
+                cents += prices[row] * (int) words[row];
+            }
+            return cents / 100.0;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    @Override
+    public void itemAdded(Item item) {
+        long stamp = lock.writeLock();
+        try {
+            if (size == codes.length) {
+                grow();
+            }
+            int row = size++;
+            String key = item.getCourse().trim().toUpperCase(Locale.ROOT);
+            int courseId = courseKeys.encode(key);
+            if (courseId == courseNames.size()) {
+                courseNames.add(item.getCourse());
+            }
+            codes[row] = item.getCode();
+            courseIds[row] = courseId;
+            priceCents[row] = Math.round(item.getPrice() * 100);
+            stock[row] = item.getStock();
+            items[row] = item;
+            rowByCode.put(item.getCode(), row);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    @Override
+    public void itemRemoved(Item item) {
+        long stamp = lock.writeLock();
+        try {
+            int row = rowByCode.remove(item.getCode());
+            if (row < 0) {
+                return;
+            }
+            int last = --size;
+            if (row != last) {
+                codes[row] = codes[last];
+                courseIds[row] = courseIds[last];
+                priceCents[row] = priceCents[last];
+                stock[row] = stock[last];
+                items[row] = items[last];
+                rowByCode.put(codes[row], row);
+            }
+            items[last] = null;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    @Override
+    public void stockAdjusted(Item item, int delta) {
+        refresh(item);
+    }
+    
+    @Override
+    public void quantitySet(Item item, int quantity) {
+        refresh(item);
+    }
+    
+    private void refresh(Item item) {
+        int touched = -1;
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            int row = rowByCode.get(item.getCode());
+            long[] words = stock;
+            Item[] rows = items;
+            boolean present = row >= 0 && row < rows.length && rows[row] == item;
+            if (lock.validate(stamp)) {
+                if (!present) {
+                    return;
+                }
+                copyIfNewer(words, row, item.getStock());
+                if (lock.validate(stamp)) {
+                    return;
+                }
+                // A removal may have moved another item into this row just
+                // before the copy landed.
+                touched = row;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            if (touched >= 0 && touched < size) {
+                resync(touched);
+            }
+            int row = rowByCode.get(item.getCode());
+            // The item may have been removed (or replaced under the same code).
+            if (row < 0 || items[row] != item) {
+                return;
+            }
+            copyIfNewer(stock, row, item.getStock());
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    private static void copyIfNewer(long[] words, int row, long latest) {
+        while (true) {
+            long current = (long) STOCK.getVolatile(words, row);
+            if (current == latest || Item.versionOf(latest) - Item.versionOf(current) < 0) {
+                return;
+            }
+            if (STOCK.compareAndSet(words, row, current, latest)) {
+                return;
+            }
+        }
+    }
+    
+    // Puts the row's own item's stock back, whatever version it holds now.
+    private void resync(int row) {
+        while (true) {
+            long current = (long) STOCK.getVolatile(stock, row);
+            long latest = items[row].getStock();
+            if (current == latest || STOCK.compareAndSet(stock, row, current, latest)) {
+                return;
+            }
+        }
+    }
+    
+    private void grow() {
+        int capacity = codes.length * 2;
+        codes = Arrays.copyOf(codes, capacity);
+        courseIds = Arrays.copyOf(courseIds, capacity);
+        priceCents = Arrays.copyOf(priceCents, capacity);
+        stock = Arrays.copyOf(stock, capacity);
+        items = Arrays.copyOf(items, capacity);
+    }
+    
+    @Override
+    public void close() {
+        inventoryManager.removeListener(this);
+    }
+}
@@ -0,0 +1,12 @@
+package inventory;
+
+// Observes catalog and stock changes made through InventoryManager.
+// Callbacks run on the caller's thread right after the change and must not block;
+// operationCompleted() runs once the whole operation is done and may block.
+public interface InventoryListener {
+    default void itemAdded(Item item) { }
+    default void itemRemoved(Item item) { }
+    default void stockAdjusted(Item item, int delta) { }
+    default void quantitySet(Item item, int quantity) { }
+    default void operationCompleted() { }
+}
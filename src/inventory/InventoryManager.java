@@ -1,95 +1,431 @@
 package inventory;
 
+import metrics.Metrics;
+import metrics.OperationTimer;
+import metrics.RestockEvent;
+import metrics.StockCheckFailedEvent;
+import utils.InputValidator;
+import utils.IntHashMap;
+
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
 
 public class InventoryManager {
-    private List<Item> inventory;
+    private static final OperationTimer ADD_TIMER = Metrics.timer("inventory.addItem");
+    private static final OperationTimer ADD_BATCH_TIMER = Metrics.timer("inventory.addItems");
+    private static final OperationTimer REMOVE_TIMER = Metrics.timer("inventory.removeItem");
+    // Lookups and stock CASes take nanoseconds; time a sample of them (see
+    // OperationTimer).
+    private static final OperationTimer LOOKUP_TIMER = Metrics.timer("inventory.findItemByCode", 16);
+    private static final OperationTimer VARIANT_TIMER = Metrics.timer("inventory.findVariant", 16);
+    private static final OperationTimer RESERVE_TIMER = Metrics.timer("inventory.reserveItem", 16);
+    private static final OperationTimer RELEASE_TIMER = Metrics.timer("inventory.releaseItem", 16);
+    private static final OperationTimer BATCH_TIMER = Metrics.timer("inventory.reserveBatch");
+    
+    // The item list, course lists and course names, as an immutable version
+    // replaced on every add or remove. Readers never lock or copy it.
+    private volatile CatalogSnapshot catalog = CatalogSnapshot.EMPTY;
+    private IntHashMap<Item> itemsByCode;
+    // A product is a (name, course) pair and each of its sizes is a separate
+    // Item with its own code. These index the sizes of each product and the
+    // item for each (name, course, size), so picking a product and then a
+    // size lands on the right code without scanning.
+    private Map<String, List<Item>> variantsByProduct;
+    private Map<String, Item> itemsByVariant;
+    // Serializes catalog writers and guards the lookup indexes, not stock levels.
+    // Stock is changed per item with CAS, so reservations never take this lock
+    // except for an optimistic, write-free read during lookup.
+    private final StampedLock catalogLock = new StampedLock();
+    private final List<InventoryListener> listeners = new CopyOnWriteArrayList<>();
+    private StockStore stockStore;
     
     public InventoryManager() {
-        inventory = new ArrayList<>();
+        itemsByCode = new IntHashMap<>();
+        variantsByProduct = new HashMap<>();
+        itemsByVariant = new HashMap<>();
+    }
+    
+    // Moves the stock of every current and future item into the given store.
+    // Meant to be installed at startup, before reservations start flowing.
+    public void setStockStore(StockStore store) {
+        long stamp = catalogLock.writeLock();
+        try {
+            stockStore = store;
+            for (Item item : catalog.getItems()) {
+                store.attach(item);
+            }
+        } finally {
+            catalogLock.unlockWrite(stamp);
+        }
+    }
+    
+    public void addListener(InventoryListener listener) {
+        listeners.add(listener);
+    }
+    
+    public void removeListener(InventoryListener listener) {
+        listeners.remove(listener);
+    }
+    
+    // Registers the listener and, under the same lock, reports every existing
+    // item to it through itemAdded, so it sees each item exactly once however
+    // the catalog changes meanwhile.
+    public void subscribe(InventoryListener listener) {
+        long stamp = catalogLock.writeLock();
+        try {
+            listeners.add(listener);
+            for (Item item : catalog.getItems()) {
+                listener.itemAdded(item);
+            }
+        } finally {
+            catalogLock.unlockWrite(stamp);
+        }
+    }
+    
+    private void operationCompleted() {
+        for (InventoryListener listener : listeners) {
+            listener.operationCompleted();
+        }
+    }
+    
+    static String courseKey(String course) {
+        return course.trim().toUpperCase(Locale.ROOT);
+    }
+    
+    private static String productKey(String name, String course) {
+        return courseKey(course) + '\n' + name.trim().toUpperCase(Locale.ROOT);
+    }
+    
+    private static String variantKey(String name, String course, String size) {
+        return productKey(name, course) + '\n' + size.trim().toUpperCase(Locale.ROOT);
     }
     
     public void addItem(Item item) {
-        inventory.add(item);
+        long start = ADD_TIMER.start();
+        long stamp = catalogLock.writeLock();
+        try {
+            if (itemsByCode.containsKey(item.getCode())) {
+                throw new IllegalArgumentException("Duplicate item code: " + item.getCode());
+            }
+            if (stockStore != null) {
+                stockStore.attach(item);
+            }
+            itemsByCode.put(item.getCode(), item);
+            catalog = catalog.withItem(item);
+            variantsByProduct.computeIfAbsent(productKey(item.getName(), item.getCourse()), k -> new ArrayList<>()).add(item);
+            // Older data may hold two codes for one variant; the first keeps it.
+            itemsByVariant.putIfAbsent(variantKey(item.getName(), item.getCourse(), item.getSize()), item);
+            for (InventoryListener listener : listeners) {
+                listener.itemAdded(item);
+            }
+        } finally {
+            catalogLock.unlockWrite(stamp);
+        }
+        operationCompleted();
+        ADD_TIMER.stop(start);
+    }
+    
+    // Adds a batch under one lock acquisition and publishes one catalog
+    // version for it. added[i] tells whether items[i] went in; an item is
+    // skipped if its code is taken or its (name, course, size) already has
+    // a code, in the catalog or earlier in the batch. Returns the number added.
+    public int addItems(List<Item> items, boolean[] added) {
+        long start = ADD_BATCH_TIMER.start();
+        List<Item> accepted = new ArrayList<>(items.size());
+        long stamp = catalogLock.writeLock();
+        try {
+            for (int i = 0; i < items.size(); i++) {
+                Item item = items.get(i);
+                String variant = variantKey(item.getName(), item.getCourse(), item.getSize());
+                added[i] = !itemsByCode.containsKey(item.getCode()) && !itemsByVariant.containsKey(variant);
+                if (!added[i]) {
+                    continue;
+                }
+                if (stockStore != null) {
+                    stockStore.attach(item);
+                }
+                itemsByCode.put(item.getCode(), item);
+                variantsByProduct.computeIfAbsent(productKey(item.getName(), item.getCourse()), k -> new ArrayList<>()).add(item);
+                itemsByVariant.put(variant, item);
+                accepted.add(item);
+            }
+            catalog = catalog.withItems(accepted);
+            for (Item item : accepted) {
+                for (InventoryListener listener : listeners) {
+                    listener.itemAdded(item);
+                }
+            }
+        } finally {
+            catalogLock.unlockWrite(stamp);
+        }
+        operationCompleted();
+        ADD_BATCH_TIMER.stop(start);
+        return accepted.size();
     }
     
     public boolean removeItem(int code) {
-        return inventory.removeIf(item -> item.getCode() == code);
+        long start = REMOVE_TIMER.start();
+        long stamp = catalogLock.writeLock();
+        Item item;
+        try {
+            item = itemsByCode.remove(code);
+            if (item == null) {
+                REMOVE_TIMER.stop(start);
+                return false;
+            }
+            catalog = catalog.withoutItem(item);
+            if (stockStore != null) {
+                stockStore.detach(item);
+            }
+            removeVariant(item);
+            for (InventoryListener listener : listeners) {
+                listener.itemRemoved(item);
+            }
+        } finally {
+            catalogLock.unlockWrite(stamp);
+        }
+        operationCompleted();
+        REMOVE_TIMER.stop(start);
+        return true;
+    }
+    
+    // Caller holds the write lock.
+    private void removeVariant(Item item) {
+        String product = productKey(item.getName(), item.getCourse());
+        List<Item> variants = variantsByProduct.get(product);
+        variants.remove(item);
+        if (variants.isEmpty()) {
+            variantsByProduct.remove(product);
+        }
+        String variant = variantKey(item.getName(), item.getCourse(), item.getSize());
+        if (itemsByVariant.get(variant) == item) {
+            itemsByVariant.remove(variant);
+            for (Item other : variants) {
+                if (variantKey(other.getName(), other.getCourse(), other.getSize()).equals(variant)) {
+                    itemsByVariant.put(variant, other);
+                    break;
+                }
+            }
+        }
     }
     
     public Item findItemByCode(int code) {
-        for (Item item : inventory) {
-            if (item.getCode() == code) {
+        long start = LOOKUP_TIMER.start();
+        Item item = lookup(code);
+        LOOKUP_TIMER.stop(start);
+        return item;
+    }
+    
+    // findItemByCode without the timing, for the operations here that are
+    // timed as a whole.
+    private Item lookup(int code) {
+        long stamp = catalogLock.tryOptimisticRead();
+        if (stamp != 0) {
+            Item item = itemsByCode.get(code);
+            if (catalogLock.validate(stamp)) {
                 return item;
             }
         }
-        return null;
+        stamp = catalogLock.readLock();
+        try {
+            return itemsByCode.get(code);
+        } finally {
+            catalogLock.unlockRead(stamp);
+        }
+    }
+    
+    // The current catalog version. Hold on to it to run several queries
+    // against the same catalog.
+    public CatalogSnapshot snapshot() {
+        return catalog;
     }
     
+    // Read-only views of the current version; later adds and removals don't
+    // show up in them.
     public List<Item> getAllItems() {
-        return new ArrayList<>(inventory);
+        return catalog.getItems();
     }
     
     public List<Item> getItemsByCourse(String course) {
-        List<Item> result = new ArrayList<>();
-        for (Item item : inventory) {
-            if (item.getCourse().equalsIgnoreCase(course)) {
-                result.add(item);
+        return catalog.getItemsByCourse(course);
+    }
+    
+    // The item for one size of a product, or null. Names, courses and sizes
+    // match ignoring case and surrounding spaces.
+    public Item findVariant(String name, String course, String size) {
+        long start = VARIANT_TIMER.start();
+        long stamp = catalogLock.readLock();
+        try {
+            return itemsByVariant.get(variantKey(name, course, size));
+        } finally {
+            catalogLock.unlockRead(stamp);
+            VARIANT_TIMER.stop(start);
+        }
+    }
+    
+    // Every size of the product the item belongs to, in the order added.
+    public List<Item> getVariants(Item item) {
+        long stamp = catalogLock.readLock();
+        try {
+            List<Item> variants = variantsByProduct.get(productKey(item.getName(), item.getCourse()));
+            if (variants == null) {
+                return Collections.emptyList();
             }
+            return List.copyOf(variants);
+        } finally {
+            catalogLock.unlockRead(stamp);
         }
-        return result;
     }
     
-    public void displayAllItems() {
+    // Visits every item of the current version in display order. Nothing is
+    // locked, so a slow visitor (e.g. a network write) never holds up
+    // addItem/removeItem.
+    public void forEachItem(Consumer<Item> visitor) {
+        catalog.getItems().forEach(visitor);
+    }
+    
+    public void forEachItemInCourse(String course, Consumer<Item> visitor) {
+        catalog.getItemsByCourse(course).forEach(visitor);
+    }
+    
+    // Pages through the list with the validator; pass null to print it all.
+    public void displayAllItems(InputValidator validator) {
+        List<Item> inventory = getAllItems();
         if (inventory.isEmpty()) {
             System.out.println("No items in inventory.");
             return;
         }
-        System.out.println("\n=== ALL ITEMS ===");
-        System.out.println("Code   | Name                           | Course                    | Size       | Quantity | Price");
-        System.out.println("-------|--------------------------------|---------------------------|------------|----------|----------");
-        for (Item item : inventory) {
-            System.out.println(item);
-        }
+        Tables.ITEMS.page("ALL ITEMS", inventory, validator);
     }
     
-    public void displayItemsByCourse(String course) {
+    public void displayItemsByCourse(String course, InputValidator validator) {
         List<Item> items = getItemsByCourse(course);
         if (items.isEmpty()) {
             System.out.println("No items found for course: " + course);
             return;
         }
-        System.out.println("\n=== ITEMS FOR " + course + " ===");
-        System.out.println("Code   | Name                           | Course                    | Size       | Quantity | Price");
-        System.out.println("-------|--------------------------------|---------------------------|------------|----------|----------");
-        for (Item item : items) {
-            System.out.println(item);
-        }
+        Tables.ITEMS.page("ITEMS FOR " + course, items, validator);
     }
     
     public boolean updateItemQuantity(int code, int newQuantity) {
-        Item item = findItemByCode(code);
+        RestockEvent event = new RestockEvent();
+        event.begin();
+        Item item = lookup(code);
         if (item != null) {
+            int oldQuantity = item.getQuantity();
             item.setQuantity(newQuantity);
+            for (InventoryListener listener : listeners) {
+                listener.quantitySet(item, newQuantity);
+            }
+            operationCompleted();
+            event.end(code, item.getCourse(), newQuantity - oldQuantity, "quantity set");
             return true;
         }
         return false;
     }
     
     public boolean reserveItem(int code, int quantity) {
-        Item item = findItemByCode(code);
-        if (item != null && item.getQuantity() >= quantity) {
-            item.setQuantity(item.getQuantity() - quantity);
-            return true;
+        long start = RESERVE_TIMER.start();
+        Item item = lookup(code);
+        boolean reserved = item != null && item.tryReserve(quantity);
+        if (reserved) {
+            stockAdjusted(item, -quantity);
+        } else {
+            stockCheckFailed(code, item, quantity);
         }
-        return false;
+        RESERVE_TIMER.stop(start);
+        return reserved;
     }
     
-    public List<String> getAvailableCourses() {
-        Set<String> courses = new HashSet<>();
-        for (Item item : inventory) {
-            courses.add(item.getCourse());
+    public boolean releaseItem(int code, int quantity) {
+        long start = RELEASE_TIMER.start();
+        RestockEvent event = new RestockEvent();
+        event.begin();
+        Item item = lookup(code);
+        boolean released = item != null && quantity > 0;
+        if (released) {
+            item.addQuantity(quantity);
+            stockAdjusted(item, quantity);
+            event.end(code, item.getCourse(), quantity, "returned");
+        }
+        RELEASE_TIMER.stop(start);
+        return released;
+    }
+    
+    // Reserves stock for a batch of requests (codes[i], quantities[i]) with
+    // one CAS and one stockAdjusted event per distinct item, and a single
+    // operationCompleted for the whole batch. Requests for the same item are
+    // served in order, skipping any that no longer fit. Sets granted[i] and
+    // returns how many were granted.
+    public int reserveBatch(int[] codes, int[] quantities, boolean[] granted) {
+        long startTime = BATCH_TIMER.start();
+        int n = codes.length;
+        // Indexes sorted by item code, via (code << 32 | index) keys so the
+        // sort stays primitive; the index breaks ties, so arrival order is
+        // kept within an item.
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = (long) codes[i] << 32 | i;
+        }
+        Arrays.sort(keys);
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = (int) keys[i];
+        }
+        int[] amounts = new int[n];
+        boolean[] taken = new boolean[n];
+        int grantedCount = 0;
+        boolean changed = false;
+        for (int start = 0; start < n; ) {
+            int code = codes[order[start]];
+            int end = start;
+            while (end < n && codes[order[end]] == code) {
+                amounts[end] = quantities[order[end]];
+                end++;
+            }
+            Item item = lookup(code);
+            int total = item == null ? 0 : item.tryReserveEach(amounts, start, end, taken);
+            for (int k = start; k < end; k++) {
+                granted[order[k]] = taken[k];
+                if (granted[order[k]]) {
+                    grantedCount++;
+                } else {
+                    stockCheckFailed(code, item, amounts[k]);
+                }
+            }
+            if (total > 0) {
+                for (InventoryListener listener : listeners) {
+                    listener.stockAdjusted(item, -total);
+                }
+                changed = true;
+            }
+            start = end;
+        }
+        if (changed) {
+            operationCompleted();
         }
-        return new ArrayList<>(courses);
+        BATCH_TIMER.stop(startTime);
+        return grantedCount;
+    }
+    
+    private static void stockCheckFailed(int code, Item item, int quantity) {
+        StockCheckFailedEvent event = new StockCheckFailedEvent();
+        event.end(code, item == null ? null : item.getCourse(), quantity, item == null ? 0 : item.getQuantity());
+    }
+    
+    private void stockAdjusted(Item item, int delta) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        for (InventoryListener listener : listeners) {
+            listener.stockAdjusted(item, delta);
+        }
+        operationCompleted();
+    }
+    
+    public List<String> getAvailableCourses() {
+        return catalog.getCourses();
     }
 }
\ No newline at end of file
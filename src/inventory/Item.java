@@ -1,38 +1,191 @@
 package inventory;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
 public class Item {
+    private static final VarHandle STOCK;
+    private static final VarHandle MAPPED_STOCK = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    // Left in a buffer slot by unbindStock. Quantity is never negative, so no
+    // CAS that started from a real stock word can match it.
+    private static final long UNBOUND = pack(-1, -1);
+    static {
+        try {
+            STOCK = MethodHandles.lookup().findVarHandle(Item.class, "stock", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+    
     private int code;
     private String name;
     private String course;
     private String size;
-    private int quantity;
+    // Quantity in the low 32 bits, a change counter in the high 32 bits.
+    // Both move together in one CAS, so any read of 'stock' is a consistent
+    // (version, quantity) pair that recovery can order by version.
+    private volatile long stock;
     private double price;
+    // When set (see StockStore), stock lives in this direct buffer at
+    // stockOffset instead of the field, and every update is an in-place CAS there.
+    // Big-endian, like ByteBuffer's own accessors, so the file reads the same
+    // everywhere.
+    private volatile ByteBuffer stockBuffer;
+    private int stockOffset;
     
     public Item(int code, String name, String course, String size, int quantity, double price) {
         this.code = code;
         this.name = name;
         this.course = course;
         this.size = size;
-        this.quantity = quantity;
+        this.stock = pack(0, quantity);
         this.price = price;
     }
     
+    public static long pack(int version, int quantity) {
+        return ((long) version << 32) | (quantity & 0xFFFFFFFFL);
+    }
+    
+    public static int quantityOf(long stock) {
+        return (int) stock;
+    }
+    
+    public static int versionOf(long stock) {
+        return (int) (stock >>> 32);
+    }
+    
     public int getCode() { return code; }
     public String getName() { return name; }
     public String getCourse() { return course; }
     public String getSize() { return size; }
-    public int getQuantity() { return quantity; }
+    public int getQuantity() { return quantityOf(getStock()); }
     public double getPrice() { return price; }
     
-    public void setQuantity(int quantity) { this.quantity = quantity; }
+    public long getStock() {
+        while (true) {
+            ByteBuffer buffer = stockBuffer;
+            if (buffer == null) {
+                return stock;
+            }
+            long current = (long) MAPPED_STOCK.getVolatile(buffer, stockOffset);
+            if (current != UNBOUND) {
+                return current;
+            }
+            // unbindStock is moving the stock back into the field.
+            Thread.onSpinWait();
+        }
+    }
+    
+    private boolean casStock(long expected, long next) {
+        ByteBuffer buffer = stockBuffer;
+        return buffer == null
+            ? STOCK.compareAndSet(this, expected, next)
+            : MAPPED_STOCK.compareAndSet(buffer, stockOffset, expected, next);
+    }
+    
+    // Moves stock into an 8-byte aligned slot of a direct (e.g. memory-mapped)
+    // buffer. Only call before the item is visible to other threads, or while
+    // nothing else can update it.
+    public void bindStock(ByteBuffer buffer, int offset) {
+        long current = getStock();
+        MAPPED_STOCK.setVolatile(buffer, offset, current);
+        stockOffset = offset;
+        stockBuffer = buffer;
+    }
+    
+    // Moves stock back into the field. The final value is read by the same
+    // CAS that tombstones the slot, so an update racing with this either
+    // lands first and is carried over, or fails and retries on the field.
+    public void unbindStock() {
+        ByteBuffer buffer = stockBuffer;
+        if (buffer == null) {
+            return;
+        }
+        while (true) {
+            long current = (long) MAPPED_STOCK.getVolatile(buffer, stockOffset);
+            if (MAPPED_STOCK.compareAndSet(buffer, stockOffset, current, UNBOUND)) {
+                stock = current;
+                stockBuffer = null;
+                return;
+            }
+        }
+    }
+    
+    public void setQuantity(int quantity) {
+        while (true) {
+            long current = getStock();
+            if (casStock(current, pack(versionOf(current) + 1, quantity))) {
+                return;
+            }
+        }
+    }
     
     public void addQuantity(int amount) {
-        this.quantity += amount;
+        while (true) {
+            long current = getStock();
+            long next = pack(versionOf(current) + 1, quantityOf(current) + amount);
+            if (casStock(current, next)) {
+                return;
+            }
+        }
+    }
+    
+    // Atomically takes amount out of stock; fails without side effects when
+    // there is not enough left. Lock-free, so items never contend with each other.
+    public boolean tryReserve(int amount) {
+        if (amount <= 0) {
+            return false;
+        }
+        while (true) {
+            long current = getStock();
+            int quantity = quantityOf(current);
+            if (quantity < amount) {
+                return false;
+            }
+            if (casStock(current, pack(versionOf(current) + 1, quantity - amount))) {
+                return true;
+            }
+        }
+    }
+    
+    // Takes each of the requested amounts that still fits, in order, in one
+    // atomic step: granted[i] is set for every amount taken. Returns the
+    // total taken (0 if nothing fit).
+    public int tryReserveEach(int[] amounts, int from, int to, boolean[] granted) {
+        while (true) {
+            long current = getStock();
+            int left = quantityOf(current);
+            for (int i = from; i < to; i++) {
+                granted[i] = amounts[i] > 0 && amounts[i] <= left;
+                if (granted[i]) {
+                    left -= amounts[i];
+                }
+            }
+            int taken = quantityOf(current) - left;
+            if (taken == 0 || casStock(current, pack(versionOf(current) + 1, left))) {
+                return taken;
+            }
+        }
+    }
+    
+    // Used by recovery: installs a recorded stock state unless this item
+    // already holds a newer one, so replaying a record twice is harmless.
+    public boolean restoreStock(long recorded) {
+        while (true) {
+            long current = getStock();
+            if (current == recorded || versionOf(recorded) - versionOf(current) < 0) {
+                return false;
+            }
+            if (casStock(current, recorded)) {
+                return true;
+            }
+        }
     }
     
     @Override
     public String toString() {
-        return String.format("%-6d | %-30s | %-25s | %-10s | %-8d | P%-8.2f",
-            code, name, course, size, quantity, price);
+        return Tables.ITEMS.row(this);
     }
-}
\ No newline at end of file
+}
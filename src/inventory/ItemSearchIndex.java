@@ -0,0 +1,362 @@
+package inventory;
+
+import utils.IntIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Predicate;
+
+// Inverted index over item names. Names are split into lower-case words
+// ("IT/Eng Gray 3/4 Polo (Male)" -> it, eng, gray, 3, 4, polo, male). Each
+// word of a query must match a word of the name, either as a prefix ("jog"
+// finds "jogging") or, when nothing starts with it, as a near miss by
+// trigram similarity ("necktei" finds "necktie"). Exact words rank above
+// prefixes and near misses; ties go to the lower item code.
+//
+// Words are kept in a sorted map for prefix ranges, and each word's
+// trigrams point back at it for the fuzzy fallback. Only the query word
+// with the fewest postings is expanded; every candidate is then checked
+// against the other words through its own word list, so a query costs
+// roughly the size of its rarest word's postings.
+//
+// Maintained as an InventoryListener, so addItem/removeItem keep it current.
+// Queries share a read lock; adds and removals take the write lock.
+public final class ItemSearchIndex implements InventoryListener, AutoCloseable {
+    private static final int MIN_FUZZY_LENGTH = 3;
+    // Dice coefficient over padded trigrams, e.g. necktei/necktie is 0.625.
+    private static final double MIN_SIMILARITY = 0.5;
+    private static final int EXACT = 2;
+    private static final int PARTIAL = 1;
+    
+    private static final class Term {
+        final String text;
+        final int id;
+        final String[] grams;
+        int[] docs = new int[4];
+        int docCount;
+        
+        Term(String text, int id) {
+            this.text = text;
+            this.id = id;
+            this.grams = grams(text);
+        }
+        
+        void add(int doc) {
+            if (docCount == docs.length) {
+                docs = Arrays.copyOf(docs, docCount * 2);
+            }
+            docs[docCount++] = doc;
+        }
+        
+        void remove(int doc) {
+            for (int i = 0; i < docCount; i++) {
+                if (docs[i] == doc) {
+                    docs[i] = docs[--docCount];
+                    return;
+                }
+            }
+        }
+    }
+    
+    private static final class Hit {
+        final Item item;
+        final int code;
+        final int score;
+        
+        Hit(Item item, int code, int score) {
+            this.item = item;
+            this.code = code;
+            this.score = score;
+        }
+        
+        boolean beats(int otherCode, int otherScore) {
+            return score != otherScore ? score > otherScore : code < otherCode;
+        }
+    }
+    
+    private static final Comparator<Hit> BEST_FIRST =
+        Comparator.comparingInt((Hit h) -> -h.score).thenComparingInt(h -> h.code);
+    
+    private final InventoryManager inventoryManager;
+    private final StampedLock lock = new StampedLock();
+    private final TreeMap<String, Term> terms = new TreeMap<>();
+    private final Map<String, List<Term>> termsByGram = new HashMap<>();
+    private Term[] termsById = new Term[256];
+    private int nextTermId;
+    
+    // Documents are dense ids reused after removal.
+    private final IntIntHashMap docByCode = new IntIntHashMap();
+    private Item[] docs = new Item[256];
+    private int[] docCodes = new int[256];
+    private int[][] docTerms = new int[256][];
+    private int docLimit;
+    private int[] freeDocs = new int[16];
+    private int freeCount;
+    
+    // Indexes the current catalog and follows it from then on.
+    public ItemSearchIndex(InventoryManager inventoryManager) {
+        this.inventoryManager = inventoryManager;
+        inventoryManager.subscribe(this);
+    }
+    
+    public List<Item> search(String query, int limit) {
+        return search(query, item -> true, limit);
+    }
+    
+    // Best matches first, at most limit of them, counting only items the
+    // filter accepts.
+    public List<Item> search(String query, Predicate<Item> filter, int limit) {
+        List<String> words = tokenize(query);
+        if (words.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        PriorityQueue<Hit> top = new PriorityQueue<>(BEST_FIRST.reversed());
+        long stamp = lock.readLock();
+        try {
+            int n = words.size();
+            BitSet[] exact = new BitSet[n];
+            BitSet[] partial = new BitSet[n];
+            List<List<Term>> matches = new ArrayList<>(n);
+            int driver = 0;
+            long driverCost = Long.MAX_VALUE;
+            for (int i = 0; i < n; i++) {
+                exact[i] = new BitSet(nextTermId);
+                partial[i] = new BitSet(nextTermId);
+                List<Term> matched = match(words.get(i), exact[i], partial[i]);
+                if (matched.isEmpty()) {
+                    return new ArrayList<>();
+                }
+                long cost = 0;
+                for (Term term : matched) {
+                    cost += term.docCount;
+                }
+                if (cost < driverCost) {
+                    driverCost = cost;
+                    driver = i;
+                }
+                matches.add(matched);
+            }
+            
+            // The driver's exact term goes first so that the list fills up
+            // with the best scores early. Once it is full, a candidate that
+            // could not beat its worst entry even with exact matches for the
+            // other words is skipped without looking at its words.
+            List<Term> driverTerms = matches.get(driver);
+            String driverWord = words.get(driver);
+            driverTerms.sort(Comparator.comparingInt(term -> term.text.equals(driverWord) ? 0 : 1));
+            BitSet seen = driverTerms.size() > 1 ? new BitSet(docLimit) : null;
+            for (Term term : driverTerms) {
+                int bound = (term.text.equals(driverWord) ? EXACT : PARTIAL) + EXACT * (n - 1);
+                for (int k = 0; k < term.docCount; k++) {
+                    int doc = term.docs[k];
+                    if (seen != null) {
+                        if (seen.get(doc)) {
+                            continue;
+                        }
+                        seen.set(doc);
+                    }
+                    if (top.size() == limit && top.peek().beats(docCodes[doc], bound)) {
+                        continue;
+                    }
+                    int score = score(docTerms[doc], exact, partial);
+                    if (score == 0 || top.size() == limit && top.peek().beats(docCodes[doc], score)) {
+                        continue;
+                    }
+                    if (filter.test(docs[doc])) {
+                        top.add(new Hit(docs[doc], docCodes[doc], score));
+                        if (top.size() > limit) {
+                            top.poll();
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort(BEST_FIRST);
+        List<Item> result = new ArrayList<>(hits.size());
+        for (Hit hit : hits) {
+            result.add(hit.item);
+        }
+        return result;
+    }
+    
+    // Terms a query word matches: every term it is a prefix of, or failing
+    // that, terms with enough trigrams in common. Marks the exact term and
+    // all matches in the given sets.
+    private List<Term> match(String word, BitSet exact, BitSet partial) {
+        List<Term> matched = new ArrayList<>(terms.subMap(word, true, word + Character.MAX_VALUE, false).values());
+        if (matched.isEmpty() && word.length() >= MIN_FUZZY_LENGTH) {
+            String[] grams = grams(word);
+            Map<Term, Integer> shared = new HashMap<>();
+            for (String gram : grams) {
+                List<Term> withGram = termsByGram.get(gram);
+                if (withGram != null) {
+                    for (Term term : withGram) {
+                        shared.merge(term, 1, Integer::sum);
+                    }
+                }
+            }
+            for (Map.Entry<Term, Integer> e : shared.entrySet()) {
+                double similarity = 2.0 * e.getValue() / (grams.length + e.getKey().grams.length);
+                if (similarity >= MIN_SIMILARITY) {
+                    matched.add(e.getKey());
+                }
+            }
+        }
+        for (Term term : matched) {
+            partial.set(term.id);
+            if (term.text.equals(word)) {
+                exact.set(term.id);
+            }
+        }
+        return matched;
+    }
+    
+    // Sum over query words of the best match among the item's words, or 0 if
+    // some query word matches none of them.
+    private static int score(int[] itemTerms, BitSet[] exact, BitSet[] partial) {
+        int score = 0;
+        for (int i = 0; i < exact.length; i++) {
+            int best = 0;
+            for (int id : itemTerms) {
+                if (exact[i].get(id)) {
+                    best = EXACT;
+                    break;
+                }
+                if (partial[i].get(id)) {
+                    best = PARTIAL;
+                }
+            }
+            if (best == 0) {
+                return 0;
+            }
+            score += best;
+        }
+        return score;
+    }
+    
+    @Override
+    public void itemAdded(Item item) {
+        long stamp = lock.writeLock();
+        try {
+            int doc = freeCount > 0 ? freeDocs[--freeCount] : newDoc();
+            List<String> words = tokenize(item.getName());
+            int[] ids = new int[words.size()];
+            for (int i = 0; i < ids.length; i++) {
+                Term term = terms.get(words.get(i));
+                if (term == null) {
+                    term = newTerm(words.get(i));
+                }
+                term.add(doc);
+                ids[i] = term.id;
+            }
+            docs[doc] = item;
+            docCodes[doc] = item.getCode();
+            docTerms[doc] = ids;
+            docByCode.put(item.getCode(), doc);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    @Override
+    public void itemRemoved(Item item) {
+        long stamp = lock.writeLock();
+        try {
+            int doc = docByCode.remove(item.getCode());
+            if (doc < 0) {
+                return;
+            }
+            for (int id : docTerms[doc]) {
+                Term term = termsById[id];
+                term.remove(doc);
+                if (term.docCount == 0) {
+                    dropTerm(term);
+                }
+            }
+            docs[doc] = null;
+            docTerms[doc] = null;
+            if (freeCount == freeDocs.length) {
+                freeDocs = Arrays.copyOf(freeDocs, freeCount * 2);
+            }
+            freeDocs[freeCount++] = doc;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    private int newDoc() {
+        if (docLimit == docs.length) {
+            docs = Arrays.copyOf(docs, docLimit * 2);
+            docCodes = Arrays.copyOf(docCodes, docLimit * 2);
+            docTerms = Arrays.copyOf(docTerms, docLimit * 2);
+        }
+        return docLimit++;
+    }
+    
+    private Term newTerm(String text) {
+        if (nextTermId == termsById.length) {
+            termsById = Arrays.copyOf(termsById, nextTermId * 2);
+        }
+        Term term = new Term(text, nextTermId++);
+        termsById[term.id] = term;
+        terms.put(text, term);
+        for (String gram : term.grams) {
+            termsByGram.computeIfAbsent(gram, g -> new ArrayList<>()).add(term);
+        }
+        return term;
+    }
+    
+    // Term ids are not reused, so bit sets over old ids stay harmless.
+    private void dropTerm(Term term) {
+        terms.remove(term.text);
+        termsById[term.id] = null;
+        for (String gram : term.grams) {
+            List<Term> withGram = termsByGram.get(gram);
+            withGram.remove(term);
+            if (withGram.isEmpty()) {
+                termsByGram.remove(gram);
+            }
+        }
+    }
+    
+    // Distinct lower-case words, in order.
+    static List<String> tokenize(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return new ArrayList<>(words);
+    }
+    
+    // Distinct trigrams of the word padded as "  word ", so the start of a
+    // word weighs more than its end.
+    private static String[] grams(String word) {
+        String padded = "  " + word + " ";
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams.toArray(new String[0]);
+    }
+    
+    @Override
+    public void close() {
+        inventoryManager.removeListener(this);
+    }
+}
@@ -4,6 +4,8 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 public class Reservation {
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    
     private int reservationId;
     private String studentName;
     private String studentId;
@@ -12,7 +14,7 @@ public class Reservation {
     private String itemName;
     private int quantity;
     private LocalDateTime reservationTime;
-    private String status;
+    private ReservationStatus status;
     
     public Reservation(int reservationId, String studentName, String studentId, String course,
                        int itemCode, String itemName, int quantity) {
@@ -24,7 +26,21 @@ public class Reservation {
         this.itemName = itemName;
         this.quantity = quantity;
         this.reservationTime = LocalDateTime.now();
-        this.status = "PENDING";
+        this.status = ReservationStatus.PENDING;
+    }
+    
+    public Reservation(int reservationId, String studentName, String studentId, String course,
+                       int itemCode, String itemName, int quantity,
+                       LocalDateTime reservationTime, ReservationStatus status) {
+        this.reservationId = reservationId;
+        this.studentName = studentName;
+        this.studentId = studentId;
+        this.course = course;
+        this.itemCode = itemCode;
+        this.itemName = itemName;
+        this.quantity = quantity;
+        this.reservationTime = reservationTime;
+        this.status = status;
     }
     
     public int getReservationId() { return reservationId; }
@@ -35,19 +51,16 @@ public class Reservation {
     public String getItemName() { return itemName; }
     public int getQuantity() { return quantity; }
     public LocalDateTime getReservationTime() { return reservationTime; }
-    public String getStatus() { return status; }
+    public ReservationStatus getStatus() { return status; }
     
-    public void setStatus(String status) { this.status = status; }
     public void setQuantity(int quantity) { this.quantity = quantity; }
     
     public String getFormattedTime() {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        return reservationTime.format(formatter);
+        return reservationTime.format(TIME_FORMAT);
     }
     
     @Override
     public String toString() {
-        return String.format("%-4d | %-15s | %-12s | %-20s | %-6d | %-25s | %-8d | %-19s | %-28s",
-            reservationId, studentName, studentId, course, itemCode, itemName, quantity, getFormattedTime(), status);
+        return Tables.RESERVATIONS.row(this);
     }
 }
\ No newline at end of file
@@ -0,0 +1,178 @@
+package inventory;
+
+import utils.IntHashMap;
+import utils.TimingWheel;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Cancels reservations that stay too long in one status and gives their
+// stock back. Each non-final status can have its own time-to-live, counted
+// from when the reservation entered that status; a status without one
+// never expires.
+//
+// Every live reservation has one entry in a hierarchical timing wheel,
+// replaced whenever its status changes, so tracking hundreds of thousands
+// of them costs O(1) per change and one background tick per tickMillis
+// rather than a timer or a scan each.
+//
+// Configured with system properties (see fromSystemProperties):
+//   merch.expiry.pending    minutes a reservation may stay PENDING (default 0 = forever)
+//   merch.expiry.approved   minutes it may stay APPROVED - READY FOR PICKUP (default 0 = forever)
+//   merch.expiry.tick       timer resolution in ms (default 1000)
+public final class ReservationExpiry implements ReservationListener, AutoCloseable {
+    // What a wheel entry stands for: the reservation and the status whose
+    // time ran out.
+    private static final class Deadline {
+        final int reservationId;
+        final ReservationStatus status;
+        
+        Deadline(int reservationId, ReservationStatus status) {
+            this.reservationId = reservationId;
+            this.status = status;
+        }
+    }
+    
+    private final ReservationService reservationService;
+    private final Map<ReservationStatus, Long> ttlMillis;
+    private final TimingWheel<Deadline> wheel;
+    private final IntHashMap<TimingWheel.Timer<Deadline>> timers = new IntHashMap<>();
+    private final ScheduledExecutorService ticker;
+    private long expiredCount;
+    
+    // ttlMillis maps each status that expires to its time-to-live.
+    public ReservationExpiry(ReservationService reservationService, Map<ReservationStatus, Long> ttlMillis,
+                             long tickMillis) {
+        for (Map.Entry<ReservationStatus, Long> e : ttlMillis.entrySet()) {
+            if (e.getKey().isFinal() || e.getValue() <= 0) {
+                throw new IllegalArgumentException("Invalid time-to-live for " + e.getKey() + ": " + e.getValue());
+            }
+        }
+        this.reservationService = reservationService;
+        this.ttlMillis = new EnumMap<>(ReservationStatus.class);
+        this.ttlMillis.putAll(ttlMillis);
+        this.wheel = new TimingWheel<>(tickMillis, System.currentTimeMillis());
+        
+        // Holding the manager's lock while subscribing means no reservation
+        // is created or changed between the scan and the first callback.
+        ReservationManager reservationManager = reservationService.getReservationManager();
+        long now = System.currentTimeMillis();
+        synchronized (reservationManager) {
+            reservationManager.addListener(this);
+            for (ReservationStatus status : this.ttlMillis.keySet()) {
+                for (Reservation r : reservationManager.getReservationsByStatus(status)) {
+                    // Only the creation time is stored, so a reservation that
+                    // has since moved on gets a full period from now.
+                    long since = status == ReservationStatus.PENDING
+                        ? r.getReservationTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                        : now;
+                    schedule(r, status, since);
+                }
+            }
+        }
+        
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "reservation-expiry");
+            t.setDaemon(true);
+            return t;
+        });
+        ticker.scheduleAtFixedRate(this::expireDue, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    // Returns null when no status has a time-to-live configured.
+    public static ReservationExpiry fromSystemProperties(ReservationService reservationService) {
+        Map<ReservationStatus, Long> ttl = new EnumMap<>(ReservationStatus.class);
+        long pending = Long.getLong("merch.expiry.pending", 0L);
+        long approved = Long.getLong("merch.expiry.approved", 0L);
+        if (pending > 0) {
+            ttl.put(ReservationStatus.PENDING, TimeUnit.MINUTES.toMillis(pending));
+        }
+        if (approved > 0) {
+            ttl.put(ReservationStatus.APPROVED, TimeUnit.MINUTES.toMillis(approved));
+        }
+        if (ttl.isEmpty()) {
+            return null;
+        }
+        return new ReservationExpiry(reservationService, ttl, Long.getLong("merch.expiry.tick", 1000L));
+    }
+    
+    public synchronized int getTrackedCount() {
+        return wheel.size();
+    }
+    
+    public synchronized long getExpiredCount() {
+        return expiredCount;
+    }
+    
+    public long getTimeToLive(ReservationStatus status) {
+        Long ttl = ttlMillis.get(status);
+        return ttl == null ? 0 : ttl;
+    }
+    
+    @Override
+    public void reservationCreated(Reservation reservation) {
+        statusEntered(reservation);
+    }
+    
+    @Override
+    public void statusChanged(Reservation reservation, ReservationStatus oldStatus) {
+        statusEntered(reservation);
+    }
+    
+    private synchronized void statusEntered(Reservation reservation) {
+        TimingWheel.Timer<Deadline> old = timers.remove(reservation.getReservationId());
+        if (old != null) {
+            wheel.cancel(old);
+        }
+        schedule(reservation, reservation.getStatus(), System.currentTimeMillis());
+    }
+    
+    private synchronized void schedule(Reservation reservation, ReservationStatus status, long sinceMillis) {
+        Long ttl = ttlMillis.get(status);
+        if (ttl != null) {
+            timers.put(reservation.getReservationId(),
+                       wheel.schedule(sinceMillis + ttl, new Deadline(reservation.getReservationId(), status)));
+        }
+    }
+    
+    // Collects what is due under our lock, then cancels it without the lock:
+    // cancelling takes the ReservationManager lock, whose listeners (us
+    // included) are called with it held.
+    private void expireDue() {
+        List<Deadline> due = new ArrayList<>();
+        synchronized (this) {
+            wheel.advance(System.currentTimeMillis(), due::add);
+            for (Deadline d : due) {
+                timers.remove(d.reservationId);
+            }
+        }
+        int expired = 0;
+        for (Deadline d : due) {
+            try {
+                // Skipped if the reservation moved on since it was collected.
+                if (reservationService.cancelReservation(d.reservationId, d.status)) {
+                    expired++;
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Failed to expire reservation " + d.reservationId + ": " + e);
+            }
+        }
+        if (expired > 0) {
+            synchronized (this) {
+                expiredCount += expired;
+            }
+        }
+    }
+    
+    @Override
+    public void close() {
+        ticker.shutdownNow();
+        reservationService.getReservationManager().removeListener(this);
+    }
+}
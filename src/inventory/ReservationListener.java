@@ -0,0 +1,11 @@
+package inventory;
+
+// Observes reservation changes made through ReservationManager.
+// Callbacks run while the manager's lock is held, in the order the changes
+// happened, and must not block; operationCompleted() runs after the lock
+// is released and may block.
+public interface ReservationListener {
+    default void reservationCreated(Reservation reservation) { }
+    default void statusChanged(Reservation reservation, ReservationStatus oldStatus) { }
+    default void operationCompleted() { }
+}
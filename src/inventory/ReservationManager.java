@@ -1,95 +1,344 @@
 package inventory;
 
+import metrics.Metrics;
+import metrics.OperationTimer;
+import metrics.ReservationCreatedEvent;
+import metrics.ReservationStatusEvent;
+import utils.InputValidator;
+
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+// Reservations live in a compact column store (see ReservationStore). The
+// Reservation objects handed out are copies made on demand, so they show
+// the reservation as it was when they were fetched.
+//
+// After every change a ReservationSnapshot of the store is published, and
+// whole-history readers (getAllReservations, displayAllReservations,
+// snapshot()) read that instead of taking the lock.
 public class ReservationManager {
-    private List<Reservation> reservations = new ArrayList<>();
+    private static final OperationTimer CREATE_TIMER = Metrics.timer("reservation.createReservation");
+    private static final OperationTimer CREATE_BATCH_TIMER = Metrics.timer("reservation.createReservations");
+    private static final OperationTimer UPDATE_TIMER = Metrics.timer("reservation.updateStatus");
+    private static final OperationTimer CANCEL_TIMER = Metrics.timer("reservation.cancel");
+    private static final OperationTimer FIND_TIMER = Metrics.timer("reservation.findById");
+    private static final OperationTimer BY_STUDENT_TIMER = Metrics.timer("reservation.byStudent");
+    private static final OperationTimer BY_STATUS_TIMER = Metrics.timer("reservation.byStatus");
+    
+    private final ReservationStore store = new ReservationStore();
+    private volatile ReservationSnapshot published = store.view();
     private int nextReservationId = 1001;
+    private final List<ReservationListener> listeners = new CopyOnWriteArrayList<>();
+    
+    public void addListener(ReservationListener listener) {
+        listeners.add(listener);
+    }
+    
+    public void removeListener(ReservationListener listener) {
+        listeners.remove(listener);
+    }
+    
+    private void operationCompleted() {
+        for (ReservationListener listener : listeners) {
+            listener.operationCompleted();
+        }
+    }
     
     public Reservation createReservation(String studentName, String studentId, String course,
                                          int itemCode, String itemName, int quantity) {
-        Reservation reservation = new Reservation(nextReservationId++, studentName, studentId, 
-                                                   course, itemCode, itemName, quantity);
-        reservations.add(reservation);
+        long start = CREATE_TIMER.start();
+        ReservationCreatedEvent event = new ReservationCreatedEvent();
+        event.begin();
+        Reservation reservation;
+        synchronized (this) {
+            reservation = insert(studentName, studentId, course, itemCode, itemName, quantity, now());
+            for (ReservationListener listener : listeners) {
+                listener.reservationCreated(reservation);
+            }
+            publish();
+        }
+        operationCompleted();
+        CREATE_TIMER.stop(start);
+        event.end(reservation.getReservationId(), studentId, itemCode, course, quantity);
         return reservation;
     }
     
+    // Creates one reservation per cart line under a single lock acquisition,
+    // so a checkout gets consecutive IDs.
+    public List<Reservation> createReservations(String studentName, String studentId, String course,
+                                                List<Cart.Line> lines) {
+        long start = CREATE_BATCH_TIMER.start();
+        ReservationCreatedEvent[] events = beginCreatedEvents(lines.size());
+        List<Reservation> created = new ArrayList<>(lines.size());
+        synchronized (this) {
+            long time = now();
+            for (Cart.Line line : lines) {
+                Reservation reservation = insert(studentName, studentId, course, line.getItemCode(),
+                                                 line.getItemName(), line.getQuantity(), time);
+                created.add(reservation);
+                for (ReservationListener listener : listeners) {
+                    listener.reservationCreated(reservation);
+                }
+            }
+            publish();
+        }
+        operationCompleted();
+        CREATE_BATCH_TIMER.stop(start);
+        endCreatedEvents(events, created);
+        return created;
+    }
+    
+    // Creates reservations for many students at once (see ReservationPipeline),
+    // under a single lock acquisition and with a single operationCompleted.
+    public List<Reservation> createReservations(List<Request> requests) {
+        long start = CREATE_BATCH_TIMER.start();
+        ReservationCreatedEvent[] events = beginCreatedEvents(requests.size());
+        List<Reservation> created = new ArrayList<>(requests.size());
+        synchronized (this) {
+            long time = now();
+            for (Request request : requests) {
+                Reservation reservation = insert(request.studentName, request.studentId, request.course,
+                                                 request.itemCode, request.itemName, request.quantity, time);
+                created.add(reservation);
+                for (ReservationListener listener : listeners) {
+                    listener.reservationCreated(reservation);
+                }
+            }
+            publish();
+        }
+        operationCompleted();
+        CREATE_BATCH_TIMER.stop(start);
+        endCreatedEvents(events, created);
+        return created;
+    }
+    
+    // One event per reservation of a batch, all begun now, so each covers
+    // the whole batch; null when no recording wants them.
+    private static ReservationCreatedEvent[] beginCreatedEvents(int count) {
+        if (!ReservationCreatedEvent.isTypeEnabled()) {
+            return null;
+        }
+        ReservationCreatedEvent[] events = new ReservationCreatedEvent[count];
+        for (int i = 0; i < count; i++) {
+            events[i] = new ReservationCreatedEvent();
+            events[i].begin();
+        }
+        return events;
+    }
+    
+    private static void endCreatedEvents(ReservationCreatedEvent[] events, List<Reservation> created) {
+        if (events == null) {
+            return;
+        }
+        for (int i = 0; i < created.size(); i++) {
+            Reservation r = created.get(i);
+            events[i].end(r.getReservationId(), r.getStudentId(), r.getItemCode(), r.getCourse(), r.getQuantity());
+        }
+    }
+    
+    public static class Request {
+        private final String studentName;
+        private final String studentId;
+        private final String course;
+        private final int itemCode;
+        private final String itemName;
+        private final int quantity;
+        
+        public Request(String studentName, String studentId, String course, int itemCode, String itemName, int quantity) {
+            this.studentName = studentName;
+            this.studentId = studentId;
+            this.course = course;
+            this.itemCode = itemCode;
+            this.itemName = itemName;
+            this.quantity = quantity;
+        }
+    }
+    
+    // Re-inserts a reservation recovered from storage, keeping its ID, time and status.
+    public synchronized void restoreReservation(Reservation reservation) {
+        store.add(reservation.getReservationId(), reservation.getStudentName(), reservation.getStudentId(),
+                  reservation.getCourse(), reservation.getItemCode(), reservation.getItemName(),
+                  reservation.getQuantity(), ReservationStore.toMillis(reservation.getReservationTime()),
+                  reservation.getStatus());
+        nextReservationId = Math.max(nextReservationId, reservation.getReservationId() + 1);
+        publish();
+    }
+    
+    public synchronized int getNextReservationId() {
+        return nextReservationId;
+    }
+    
+    public synchronized void setNextReservationId(int nextReservationId) {
+        this.nextReservationId = Math.max(this.nextReservationId, nextReservationId);
+    }
+    
+    // Local time at millisecond precision, the same as the journal keeps.
+    private static long now() {
+        return ReservationStore.toMillis(LocalDateTime.now());
+    }
+    
+    private Reservation insert(String studentName, String studentId, String course,
+                               int itemCode, String itemName, int quantity, long time) {
+        int row = store.add(nextReservationId++, studentName, studentId, course, itemCode, itemName,
+                            quantity, time, ReservationStatus.PENDING);
+        return store.materialize(row);
+    }
+    
+    // Caller holds the lock, and calls this once the change is complete.
+    private void publish() {
+        published = store.view();
+    }
+    
+    // The latest published version of every reservation.
+    public ReservationSnapshot snapshot() {
+        return published;
+    }
+    
+    public int getReservationCount() {
+        return published.size();
+    }
+    
+    // A read-only view of the latest version; later changes don't show up
+    // in it.
     public List<Reservation> getAllReservations() {
-        return new ArrayList<>(reservations);
+        return published.getReservations();
     }
     
     public List<Reservation> getReservationsByStudent(String studentId) {
-        List<Reservation> result = new ArrayList<>();
-        for (Reservation r : reservations) {
-            if (r.getStudentId().equals(studentId)) {
-                result.add(r);
+        long start = BY_STUDENT_TIMER.start();
+        try {
+            synchronized (this) {
+                return store.byStudent(studentId);
+            }
+        } finally {
+            BY_STUDENT_TIMER.stop(start);
+        }
+    }
+    
+    public List<Reservation> getReservationsByStatus(ReservationStatus status) {
+        long start = BY_STATUS_TIMER.start();
+        try {
+            synchronized (this) {
+                return store.byStatus(status);
             }
+        } finally {
+            BY_STATUS_TIMER.stop(start);
         }
-        return result;
     }
     
     public Reservation findReservationById(int reservationId) {
-        for (Reservation r : reservations) {
-            if (r.getReservationId() == reservationId) {
-                return r;
+        long start = FIND_TIMER.start();
+        try {
+            synchronized (this) {
+                int row = store.rowOf(reservationId);
+                return row < 0 ? null : store.materialize(row);
             }
+        } finally {
+            FIND_TIMER.stop(start);
         }
-        return null;
     }
     
     public boolean cancelReservation(int reservationId) {
-        Reservation r = findReservationById(reservationId);
-        if (r != null && !r.getStatus().equals("COMPLETED")) {
-            r.setStatus("CANCELLED");
-            return true;
+        return cancelReservation(reservationId, null);
+    }
+    
+    // With an expected status, cancels only if the reservation is still in
+    // it, so a change made since the caller looked is never overridden.
+    public boolean cancelReservation(int reservationId, ReservationStatus expectedStatus) {
+        long start = CANCEL_TIMER.start();
+        ReservationStatusEvent event = new ReservationStatusEvent();
+        event.begin();
+        ReservationStatus oldStatus;
+        Reservation r;
+        synchronized (this) {
+            int row = store.rowOf(reservationId);
+            if (row < 0 || store.status(row).isFinal()
+                    || (expectedStatus != null && store.status(row) != expectedStatus)) {
+                CANCEL_TIMER.stop(start);
+                return false;
+            }
+            oldStatus = store.status(row);
+            r = moveToStatus(row, ReservationStatus.CANCELLED);
+            publish();
+        }
+        operationCompleted();
+        CANCEL_TIMER.stop(start);
+        statusChanged(event, r, oldStatus);
+        return true;
+    }
+    
+    public boolean updateReservationStatus(int reservationId, ReservationStatus status) {
+        return updateReservationStatus(reservationId, status, null);
+    }
+    
+    // Like cancelReservation, an expected status makes this a no-op once
+    // someone else has changed the reservation.
+    public boolean updateReservationStatus(int reservationId, ReservationStatus status, ReservationStatus expectedStatus) {
+        long start = UPDATE_TIMER.start();
+        ReservationStatusEvent event = new ReservationStatusEvent();
+        event.begin();
+        ReservationStatus oldStatus;
+        Reservation r;
+        synchronized (this) {
+            int row = store.rowOf(reservationId);
+            if (row < 0 || !store.status(row).canTransitionTo(status)
+                    || (expectedStatus != null && store.status(row) != expectedStatus)) {
+                UPDATE_TIMER.stop(start);
+                return false;
+            }
+            oldStatus = store.status(row);
+            r = moveToStatus(row, status);
+            publish();
         }
-        return false;
+        operationCompleted();
+        UPDATE_TIMER.stop(start);
+        statusChanged(event, r, oldStatus);
+        return true;
     }
     
-    public boolean updateReservationStatus(int reservationId, String status) {
-        Reservation r = findReservationById(reservationId);
+    // Returns the reservation as it is now, or null if it already had the status.
+    private Reservation moveToStatus(int row, ReservationStatus status) {
+        ReservationStatus oldStatus = store.status(row);
+        if (oldStatus == status) {
+            return null;
+        }
+        store.setStatus(row, status);
+        Reservation r = store.materialize(row);
+        for (ReservationListener listener : listeners) {
+            listener.statusChanged(r, oldStatus);
+        }
+        return r;
+    }
+    
+    private static void statusChanged(ReservationStatusEvent event, Reservation r, ReservationStatus oldStatus) {
         if (r != null) {
-            r.setStatus(status);
-            return true;
+            event.end(r.getReservationId(), r.getItemCode(), r.getCourse(), r.getQuantity(),
+                      oldStatus.name(), r.getStatus().name());
         }
-        return false;
     }
     
-    public void displayAllReservations() {
-        if (reservations.isEmpty()) {
+    // Pages through the published version; only the rows shown are built.
+    public void displayAllReservations(InputValidator validator) {
+        ReservationSnapshot snapshot = published;
+        if (snapshot.size() == 0) {
             System.out.println("No reservations found.");
             return;
         }
-        System.out.println("\n=== ALL RESERVATIONS ===");
-        System.out.println("ID   | Student Name    | Student ID   | Course               | Item   | Item Name                 | Quantity | Reservation Time    | Status");
-        System.out.println("-----|-----------------|--------------|----------------------|--------|---------------------------|----------|---------------------|------------------------------");
-        for (Reservation r : reservations) {
-            System.out.println(r);
-        }
+        Tables.RESERVATIONS.page("ALL RESERVATIONS", snapshot.getReservations(), validator);
     }
     
-    public void displayReservationsByStudent(String studentId) {
+    public void displayReservationsByStudent(String studentId, InputValidator validator) {
         List<Reservation> studentReservations = getReservationsByStudent(studentId);
         if (studentReservations.isEmpty()) {
             System.out.println("No reservations found for student ID: " + studentId);
             return;
         }
-        System.out.println("\n=== YOUR RESERVATIONS ===");
-        System.out.println("ID   | Student Name    | Student ID   | Course               | Item   | Item Name                 | Quantity | Reservation Time    | Status");
-        System.out.println("-----|-----------------|--------------|----------------------|--------|---------------------------|----------|---------------------|------------------------------");
-        for (Reservation r : studentReservations) {
-            System.out.println(r);
-        }
+        Tables.RESERVATIONS.page("YOUR RESERVATIONS", studentReservations, validator);
     }
     
     public List<Reservation> getPendingReservations() {
-        List<Reservation> pending = new ArrayList<>();
-        for (Reservation r : reservations) {
-            if ("PENDING".equals(r.getStatus())) {
-                pending.add(r);
-            }
-        }
-        return pending;
+        return getReservationsByStatus(ReservationStatus.PENDING);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,169 @@
+package inventory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// Optional front end for single-item reservations. Callers put requests on
+// a bounded queue and get a future back; one writer thread drains the
+// queue in batches of up to maxBatch and handles each batch at once: one
+// stock CAS and event per distinct item (InventoryManager.reserveBatch),
+// one ReservationManager lock acquisition for all the new reservations,
+// and one durability wait each instead of one per request.
+//
+// A full queue blocks submit(), which pushes back on callers rather than
+// letting the backlog grow without bound.
+public class ReservationPipeline implements AutoCloseable {
+    private final InventoryManager inventoryManager;
+    private final ReservationManager reservationManager;
+    private final BlockingQueue<Pending> queue;
+    private final int maxBatch;
+    private final Thread writer;
+    private volatile boolean closed;
+    
+    private static final class Pending {
+        final String studentName;
+        final String studentId;
+        final String course;
+        final int itemCode;
+        final int quantity;
+        final CompletableFuture<CheckoutResult> result = new CompletableFuture<>();
+        
+        Pending(String studentName, String studentId, String course, int itemCode, int quantity) {
+            this.studentName = studentName;
+            this.studentId = studentId;
+            this.course = course;
+            this.itemCode = itemCode;
+            this.quantity = quantity;
+        }
+    }
+    
+    public ReservationPipeline(InventoryManager inventoryManager, ReservationManager reservationManager,
+                               int capacity, int maxBatch) {
+        if (capacity <= 0 || maxBatch <= 0) {
+            throw new IllegalArgumentException("capacity and maxBatch must be positive");
+        }
+        this.inventoryManager = inventoryManager;
+        this.reservationManager = reservationManager;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatch = maxBatch;
+        this.writer = new Thread(this::run, "reservation-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+    
+    // Queues a reservation; the future completes with the same kind of result
+    // as ReservationService.checkout for a one-line cart.
+    public CompletableFuture<CheckoutResult> submit(String studentName, String studentId, String course,
+                                                    int itemCode, int quantity) throws InterruptedException {
+        Pending pending = new Pending(studentName, studentId, course, itemCode, quantity);
+        if (quantity <= 0) {
+            pending.result.complete(CheckoutResult.failure(itemCode, "Quantity must be positive."));
+            return pending.result;
+        }
+        if (closed) {
+            pending.result.complete(CheckoutResult.failure(itemCode, "Reservations are closed."));
+            return pending.result;
+        }
+        queue.put(pending);
+        // close() may have drained the queue just before this request went in.
+        if (closed && queue.remove(pending)) {
+            pending.result.complete(CheckoutResult.failure(itemCode, "Reservations are closed."));
+        }
+        return pending.result;
+    }
+    
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (!closed || !queue.isEmpty()) {
+            Pending first;
+            try {
+                first = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                continue;
+            }
+            if (first == null) {
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, maxBatch - 1);
+            try {
+                process(batch);
+            } catch (RuntimeException e) {
+                for (Pending p : batch) {
+                    p.result.completeExceptionally(e);
+                }
+            }
+            batch.clear();
+        }
+    }
+    
+    private void process(List<Pending> batch) {
+        int n = batch.size();
+        int[] codes = new int[n];
+        int[] quantities = new int[n];
+        boolean[] granted = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            codes[i] = batch.get(i).itemCode;
+            quantities[i] = batch.get(i).quantity;
+        }
+        inventoryManager.reserveBatch(codes, quantities, granted);
+        
+        // The units granted above go back to stock unless their reservations
+        // get created, whatever fails in between.
+        List<Pending> accepted = new ArrayList<>(n);
+        List<Reservation> created = null;
+        try {
+            List<ReservationManager.Request> requests = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                Pending p = batch.get(i);
+                Item item = inventoryManager.findItemByCode(p.itemCode);
+                if (!granted[i]) {
+                    String reason = item == null
+                        ? "Item " + p.itemCode + " no longer exists."
+                        : "Not enough stock for item " + p.itemCode + " (available: " + item.getQuantity() + ").";
+                    p.result.complete(CheckoutResult.failure(p.itemCode, reason));
+                    continue;
+                }
+                String itemName = item == null ? "Item " + p.itemCode : item.getName() + " (" + item.getSize() + ")";
+                requests.add(new ReservationManager.Request(p.studentName, p.studentId, p.course, p.itemCode, itemName, p.quantity));
+                accepted.add(p);
+            }
+            if (accepted.isEmpty()) {
+                return;
+            }
+            created = reservationManager.createReservations(requests);
+        } finally {
+            if (created == null) {
+                for (int i = 0; i < n; i++) {
+                    if (granted[i]) {
+                        inventoryManager.releaseItem(codes[i], quantities[i]);
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < accepted.size(); i++) {
+            accepted.get(i).result.complete(CheckoutResult.success(List.of(created.get(i))));
+        }
+    }
+    
+    // Stops taking requests, lets the writer finish everything already
+    // queued, then waits for it. If the wait is interrupted, whatever the
+    // writer has not taken yet is failed here instead.
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Pending p;
+        while ((p = queue.poll()) != null) {
+            p.result.complete(CheckoutResult.failure(p.itemCode, "Reservations are closed."));
+        }
+    }
+}
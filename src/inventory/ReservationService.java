@@ -0,0 +1,84 @@
+package inventory;
+
+import java.util.List;
+
+// Coordinates stock in InventoryManager with the records in ReservationManager.
+public class ReservationService {
+    private final InventoryManager inventoryManager;
+    private final ReservationManager reservationManager;
+    private volatile ReservationPipeline pipeline;
+    
+    public ReservationService(InventoryManager inventoryManager, ReservationManager reservationManager) {
+        this.inventoryManager = inventoryManager;
+        this.reservationManager = reservationManager;
+    }
+    
+    public InventoryManager getInventoryManager() { return inventoryManager; }
+    public ReservationManager getReservationManager() { return reservationManager; }
+    
+    // Routes reserve() through a batching pipeline; null goes back to direct calls.
+    public void setPipeline(ReservationPipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+    
+    // Reserves a single item for a student.
+    public CheckoutResult reserve(String studentName, String studentId, String course, Item item, int quantity) {
+        ReservationPipeline current = pipeline;
+        if (current != null) {
+            try {
+                return current.submit(studentName, studentId, course, item.getCode(), quantity).join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return CheckoutResult.failure(item.getCode(), "Interrupted.");
+            }
+        }
+        Cart cart = new Cart();
+        cart.addItem(item, quantity);
+        return checkout(cart, studentName, studentId, course);
+    }
+    
+    // All-or-nothing checkout. Stock is claimed one item at a time in ascending
+    // code order (the cart's order), and on the first shortage every claim made
+    // so far is given back, so a cart is never left half-reserved. Claims are
+    // lock-free CAS operations, so there is nothing to deadlock on; the fixed
+    // order just keeps competing carts from starving each other.
+    public CheckoutResult checkout(Cart cart, String studentName, String studentId, String course) {
+        List<Cart.Line> lines = cart.getLines();
+        if (lines.isEmpty()) {
+            return CheckoutResult.failure(0, "Cart is empty.");
+        }
+        
+        for (int claimed = 0; claimed < lines.size(); claimed++) {
+            Cart.Line line = lines.get(claimed);
+            if (!inventoryManager.reserveItem(line.getItemCode(), line.getQuantity())) {
+                for (int i = claimed - 1; i >= 0; i--) {
+                    inventoryManager.releaseItem(lines.get(i).getItemCode(), lines.get(i).getQuantity());
+                }
+                Item item = inventoryManager.findItemByCode(line.getItemCode());
+                String reason = item == null
+                    ? "Item " + line.getItemCode() + " no longer exists."
+                    : "Not enough stock for item " + line.getItemCode() + " (available: " + item.getQuantity() + ").";
+                return CheckoutResult.failure(line.getItemCode(), reason);
+            }
+        }
+        
+        List<Reservation> reservations = reservationManager.createReservations(studentName, studentId, course, lines);
+        cart.clear();
+        return CheckoutResult.success(reservations);
+    }
+    
+    // Cancels a reservation and returns its quantity to stock.
+    public boolean cancelReservation(int reservationId) {
+        return cancelReservation(reservationId, null);
+    }
+    
+    // Same, but only while the reservation is still in expectedStatus.
+    public boolean cancelReservation(int reservationId, ReservationStatus expectedStatus) {
+        Reservation r = reservationManager.findReservationById(reservationId);
+        if (r != null && reservationManager.cancelReservation(reservationId, expectedStatus)) {
+            inventoryManager.releaseItem(r.getItemCode(), r.getQuantity());
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,99 @@
+package inventory;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.IntFunction;
+
+// A read-only version of every reservation, in creation order, as
+// ReservationManager published it after a change. It keeps the store's
+// column arrays as they were (see ReservationStore.view()) instead of
+// copying them, and needs no lock to read, so a long report or export never
+// holds up reservations. Reservation objects are built when asked for.
+public final class ReservationSnapshot {
+    private static final ReservationStatus[] STATUSES = ReservationStatus.values();
+    
+    private final long version;
+    private final int size;
+    private final int[] ids;
+    private final int[] studentNames;
+    private final int[] studentIds;
+    private final int[] courses;
+    private final int[] itemCodes;
+    private final int[] itemNames;
+    private final int[] quantities;
+    private final long[] times;
+    private final byte[][] statusChunks;
+    private final IntFunction<String> strings;
+    
+    ReservationSnapshot(long version, int size, int[] ids, int[] studentNames, int[] studentIds, int[] courses,
+                        int[] itemCodes, int[] itemNames, int[] quantities, long[] times, byte[][] statusChunks,
+                        IntFunction<String> strings) {
+        this.version = version;
+        this.size = size;
+        this.ids = ids;
+        this.studentNames = studentNames;
+        this.studentIds = studentIds;
+        this.courses = courses;
+        this.itemCodes = itemCodes;
+        this.itemNames = itemNames;
+        this.quantities = quantities;
+        this.times = times;
+        this.statusChunks = statusChunks;
+        this.strings = strings;
+    }
+    
+    // Increases with every published change.
+    public long getVersion() {
+        return version;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public ReservationStatus getStatus(int index) {
+        return STATUSES[statusChunks[index >>> ReservationStore.CHUNK_BITS][index & ReservationStore.CHUNK_MASK]];
+    }
+    
+    public Reservation get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for " + size + " reservations");
+        }
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(times[index]), ZoneOffset.UTC);
+        return new Reservation(ids[index], strings.apply(studentNames[index]), strings.apply(studentIds[index]),
+                               strings.apply(courses[index]), itemCodes[index], strings.apply(itemNames[index]),
+                               quantities[index], time, getStatus(index));
+    }
+    
+    // All reservations as a read-only list that builds each one on access.
+    public List<Reservation> getReservations() {
+        return new Rows();
+    }
+    
+    public List<Reservation> getReservationsByStatus(ReservationStatus status) {
+        List<Reservation> result = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (getStatus(i) == status) {
+                result.add(get(i));
+            }
+        }
+        return result;
+    }
+    
+    private final class Rows extends AbstractList<Reservation> implements RandomAccess {
+        @Override
+        public Reservation get(int index) {
+            return ReservationSnapshot.this.get(index);
+        }
+        
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package inventory;
+
+public enum ReservationStatus {
+    PENDING("PENDING"),
+    APPROVED("APPROVED - READY FOR PICKUP"),
+    COMPLETED("COMPLETED"),
+    CANCELLED("CANCELLED");
+    
+    private final String label;
+    
+    ReservationStatus(String label) {
+        this.label = label;
+    }
+    
+    public String getLabel() { return label; }
+    
+    public boolean isFinal() {
+        return this == COMPLETED || this == CANCELLED;
+    }
+    
+    // PENDING <-> APPROVED while waiting for pickup; either can be completed
+    // or cancelled, and COMPLETED/CANCELLED are final.
+    public boolean canTransitionTo(ReservationStatus next) {
+        if (next == this) {
+            return true;
+        }
+        switch (this) {
+            case PENDING:
+            case APPROVED:
+                return true;
+            default:
+                return false;
+        }
+    }
+    
+    public static ReservationStatus fromLabel(String label) {
+        for (ReservationStatus status : values()) {
+            if (status.label.equalsIgnoreCase(label) || status.name().equalsIgnoreCase(label)) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown reservation status: " + label);
+    }
+    
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,247 @@
+package inventory;
+
+import utils.StringDictionary;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Column-oriented storage behind ReservationManager. A reservation is a row
+// number into parallel primitive arrays rather than an object: the four
+// strings are ids into one shared dictionary (so a course, item name or
+// student is stored once however many reservations mention it), the time
+// is local epoch millis in a long[] (the journal's precision) and the status
+// is a byte. Reservation objects are built on demand and are snapshots;
+// they don't follow later status changes.
+//
+// Rows are reached by ID through a dense int[] (IDs are handed out
+// sequentially), per student through a chain of next-row links, and per
+// status through a doubly-linked list kept in insertion order, so a status
+// change is O(1). Not thread-safe; ReservationManager guards it.
+//
+// view() hands out a read-only ReservationSnapshot of the rows so far for
+// other threads to read without the lock. Every column but the status is
+// written once per row and only ever grows by copying, so the snapshot just
+// keeps the arrays it saw. Statuses do change, so they are kept in chunks
+// that are copied on their first write after a view.
+class ReservationStore {
+    private static final ReservationStatus[] STATUSES = ReservationStatus.values();
+    private static final int NONE = -1;
+    private static final int INITIAL_CAPACITY = 64;
+    // Statuses are stored in chunks of 4096 rows.
+    static final int CHUNK_BITS = 12;
+    static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+    
+    private final StringDictionary strings = new StringDictionary();
+    private int size;
+    
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private int[] studentNames = new int[INITIAL_CAPACITY];
+    private int[] studentIds = new int[INITIAL_CAPACITY];
+    private int[] courses = new int[INITIAL_CAPACITY];
+    private int[] itemCodes = new int[INITIAL_CAPACITY];
+    private int[] itemNames = new int[INITIAL_CAPACITY];
+    private int[] quantities = new int[INITIAL_CAPACITY];
+    private long[] times = new long[INITIAL_CAPACITY];
+    private byte[][] statusChunks = new byte[0][];
+    // The view generation in which each chunk (and the chunk table) was last
+    // copied. Anything from an earlier generation may be shared with a view.
+    private int[] chunkGeneration = new int[0];
+    private int tableGeneration;
+    private int generation;
+    private int[] statusPrev = new int[INITIAL_CAPACITY];
+    private int[] statusNext = new int[INITIAL_CAPACITY];
+    private int[] studentNext = new int[INITIAL_CAPACITY];
+    
+    private int[] rowById = new int[0];
+    // Indexed by the dictionary id of a student ID.
+    private int[] studentHead = new int[0];
+    private int[] studentTail = new int[0];
+    private final int[] statusHead = new int[STATUSES.length];
+    private final int[] statusTail = new int[STATUSES.length];
+    
+    ReservationStore() {
+        Arrays.fill(statusHead, NONE);
+        Arrays.fill(statusTail, NONE);
+    }
+    
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        studentNames = Arrays.copyOf(studentNames, capacity);
+        studentIds = Arrays.copyOf(studentIds, capacity);
+        courses = Arrays.copyOf(courses, capacity);
+        itemCodes = Arrays.copyOf(itemCodes, capacity);
+        itemNames = Arrays.copyOf(itemNames, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        times = Arrays.copyOf(times, capacity);
+        statusPrev = Arrays.copyOf(statusPrev, capacity);
+        statusNext = Arrays.copyOf(statusNext, capacity);
+        studentNext = Arrays.copyOf(studentNext, capacity);
+    }
+    
+    static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+    
+    // Appends a row and returns it. Throws if the ID is already stored.
+    int add(int reservationId, String studentName, String studentId, String course,
+            int itemCode, String itemName, int quantity, long timeMillis, ReservationStatus status) {
+        if (reservationId < 0) {
+            throw new IllegalArgumentException("Invalid reservation ID: " + reservationId);
+        }
+        if (rowOf(reservationId) != NONE) {
+            throw new IllegalArgumentException("Duplicate reservation ID: " + reservationId);
+        }
+        if (size == ids.length) {
+            grow();
+        }
+        int row = size++;
+        ids[row] = reservationId;
+        studentNames[row] = strings.encode(studentName);
+        studentIds[row] = strings.encode(studentId);
+        courses[row] = strings.encode(course);
+        itemCodes[row] = itemCode;
+        itemNames[row] = strings.encode(itemName);
+        quantities[row] = quantity;
+        times[row] = timeMillis;
+        if ((row & CHUNK_MASK) == 0) {
+            addChunk();
+        }
+        // New rows are past every view, so the chunk is written in place.
+        statusChunks[row >>> CHUNK_BITS][row & CHUNK_MASK] = (byte) status.ordinal();
+        
+        if (reservationId >= rowById.length) {
+            int oldLength = rowById.length;
+            rowById = Arrays.copyOf(rowById, Math.max(reservationId + 1, oldLength * 2));
+            Arrays.fill(rowById, oldLength, rowById.length, NONE);
+        }
+        rowById[reservationId] = row;
+        linkStudent(row);
+        linkStatus(row, status.ordinal());
+        return row;
+    }
+    
+    int rowOf(int reservationId) {
+        return reservationId >= 0 && reservationId < rowById.length ? rowById[reservationId] : NONE;
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    private byte statusOrdinal(int row) {
+        return statusChunks[row >>> CHUNK_BITS][row & CHUNK_MASK];
+    }
+    
+    ReservationStatus status(int row) {
+        return STATUSES[statusOrdinal(row)];
+    }
+    
+    void setStatus(int row, ReservationStatus status) {
+        unlinkStatus(row, statusOrdinal(row));
+        int chunk = row >>> CHUNK_BITS;
+        if (chunkGeneration[chunk] != generation) {
+            if (tableGeneration != generation) {
+                statusChunks = statusChunks.clone();
+                tableGeneration = generation;
+            }
+            statusChunks[chunk] = statusChunks[chunk].clone();
+            chunkGeneration[chunk] = generation;
+        }
+        statusChunks[chunk][row & CHUNK_MASK] = (byte) status.ordinal();
+        linkStatus(row, status.ordinal());
+    }
+    
+    private void addChunk() {
+        int chunks = statusChunks.length;
+        statusChunks = Arrays.copyOf(statusChunks, chunks + 1);
+        statusChunks[chunks] = new byte[1 << CHUNK_BITS];
+        chunkGeneration = Arrays.copyOf(chunkGeneration, chunks + 1);
+        chunkGeneration[chunks] = generation;
+        tableGeneration = generation;
+    }
+    
+    // The rows as they are now. Later writes never show through it.
+    ReservationSnapshot view() {
+        ReservationSnapshot view = new ReservationSnapshot(generation, size, ids, studentNames, studentIds, courses,
+                                                           itemCodes, itemNames, quantities, times, statusChunks,
+                                                           strings.decoder());
+        generation++;
+        return view;
+    }
+    
+    Reservation materialize(int row) {
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(times[row]), ZoneOffset.UTC);
+        return new Reservation(ids[row], strings.decode(studentNames[row]), strings.decode(studentIds[row]),
+                               strings.decode(courses[row]), itemCodes[row], strings.decode(itemNames[row]),
+                               quantities[row], time, status(row));
+    }
+    
+    List<Reservation> byStudent(String studentId) {
+        List<Reservation> result = new ArrayList<>();
+        int key = strings.lookup(studentId);
+        if (key != NONE && key < studentHead.length) {
+            for (int row = studentHead[key]; row != NONE; row = studentNext[row]) {
+                result.add(materialize(row));
+            }
+        }
+        return result;
+    }
+    
+    List<Reservation> byStatus(ReservationStatus status) {
+        List<Reservation> result = new ArrayList<>();
+        for (int row = statusHead[status.ordinal()]; row != NONE; row = statusNext[row]) {
+            result.add(materialize(row));
+        }
+        return result;
+    }
+    
+    private void linkStudent(int row) {
+        int key = studentIds[row];
+        if (key >= studentHead.length) {
+            int oldLength = studentHead.length;
+            int newLength = Math.max(key + 1, Math.max(16, oldLength * 2));
+            studentHead = Arrays.copyOf(studentHead, newLength);
+            studentTail = Arrays.copyOf(studentTail, newLength);
+            Arrays.fill(studentHead, oldLength, newLength, NONE);
+            Arrays.fill(studentTail, oldLength, newLength, NONE);
+        }
+        studentNext[row] = NONE;
+        if (studentTail[key] == NONE) {
+            studentHead[key] = row;
+        } else {
+            studentNext[studentTail[key]] = row;
+        }
+        studentTail[key] = row;
+    }
+    
+    private void linkStatus(int row, int status) {
+        statusNext[row] = NONE;
+        statusPrev[row] = statusTail[status];
+        if (statusTail[status] == NONE) {
+            statusHead[status] = row;
+        } else {
+            statusNext[statusTail[status]] = row;
+        }
+        statusTail[status] = row;
+    }
+    
+    private void unlinkStatus(int row, int status) {
+        int prev = statusPrev[row];
+        int next = statusNext[row];
+        if (prev == NONE) {
+            statusHead[status] = next;
+        } else {
+            statusNext[prev] = next;
+        }
+        if (next == NONE) {
+            statusTail[status] = prev;
+        } else {
+            statusPrev[next] = prev;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package inventory;
+
+// Alternative home for item stock levels. InventoryManager attaches every
+// item as it is added (and the existing ones when the store is installed)
+// and detaches it when the item is removed.
+public interface StockStore {
+    void attach(Item item);
+    void detach(Item item);
+}
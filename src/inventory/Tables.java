@@ -0,0 +1,29 @@
+package inventory;
+
+import utils.TableRenderer;
+
+// The console's item and reservation tables, defined once and shared by
+// every screen that lists them.
+public final class Tables {
+    public static final TableRenderer<Item> ITEMS = new TableRenderer<Item>()
+        .column("Code", 6, (out, item) -> out.append(item.getCode()))
+        .column("Name", 30, (out, item) -> out.append(item.getName()))
+        .column("Course", 25, (out, item) -> out.append(item.getCourse()))
+        .column("Size", 10, (out, item) -> out.append(item.getSize()))
+        .column("Quantity", 8, (out, item) -> out.append(item.getQuantity()))
+        .column("Price", 9, (out, item) -> TableRenderer.appendMoney(out.append('P'), item.getPrice()));
+    
+    public static final TableRenderer<Reservation> RESERVATIONS = new TableRenderer<Reservation>()
+        .column("ID", 4, (out, r) -> out.append(r.getReservationId()))
+        .column("Student Name", 15, (out, r) -> out.append(r.getStudentName()))
+        .column("Student ID", 12, (out, r) -> out.append(r.getStudentId()))
+        .column("Course", 20, (out, r) -> out.append(r.getCourse()))
+        .column("Item", 6, (out, r) -> out.append(r.getItemCode()))
+        .column("Item Name", 25, (out, r) -> out.append(r.getItemName()))
+        .column("Quantity", 8, (out, r) -> out.append(r.getQuantity()))
+        .column("Reservation Time", 19, (out, r) -> TableRenderer.appendDateTime(out, r.getReservationTime()))
+        .column("Status", 28, (out, r) -> out.append(r.getStatus().getLabel()));
+    
+    private Tables() {
+    }
+}
@@ -0,0 +1,206 @@
+package inventory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// FIFO waitlist per item code. Listens to InventoryManager, and whenever an
+// item's stock goes up (admin update, cancellation restock, delivery) it
+// turns waiting entries into PENDING reservations, oldest first, for as
+// long as the head of the line fits in stock. A large request at the head
+// holds back smaller ones behind it, so nobody gets overtaken.
+//
+// Fulfilment runs on one background thread, so the change that freed stock
+// never waits for it and entries for the same item are served in order.
+public final class WaitlistManager implements InventoryListener {
+    public static class Entry {
+        private final String studentName;
+        private final String studentId;
+        private final String course;
+        private final int itemCode;
+        private final int quantity;
+        private final LocalDateTime joinedAt;
+        
+        Entry(String studentName, String studentId, String course, int itemCode, int quantity) {
+            this.studentName = studentName;
+            this.studentId = studentId;
+            this.course = course;
+            this.itemCode = itemCode;
+            this.quantity = quantity;
+            this.joinedAt = LocalDateTime.now();
+        }
+        
+        public String getStudentName() { return studentName; }
+        public String getStudentId() { return studentId; }
+        public String getCourse() { return course; }
+        public int getItemCode() { return itemCode; }
+        public int getQuantity() { return quantity; }
+        public LocalDateTime getJoinedAt() { return joinedAt; }
+    }
+    
+    private final InventoryManager inventoryManager;
+    private final ReservationManager reservationManager;
+    private final Map<Integer, Deque<Entry>> waitlists = new HashMap<>();
+    // Item codes with a fulfilment run already queued.
+    private final Set<Integer> scheduled = new HashSet<>();
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "waitlist");
+        t.setDaemon(true);
+        return t;
+    });
+    
+    public WaitlistManager(InventoryManager inventoryManager, ReservationManager reservationManager) {
+        this.inventoryManager = inventoryManager;
+        this.reservationManager = reservationManager;
+        inventoryManager.addListener(this);
+    }
+    
+    // Adds a student to the back of the item's line and returns their
+    // position (1 = next). Returns 0 if they are already waiting for it.
+    public int join(String studentName, String studentId, String course, int itemCode, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        int position;
+        synchronized (this) {
+            Deque<Entry> line = waitlists.computeIfAbsent(itemCode, code -> new ArrayDeque<>());
+            for (Entry e : line) {
+                if (e.studentId.equals(studentId)) {
+                    return 0;
+                }
+            }
+            line.addLast(new Entry(studentName, studentId, course, itemCode, quantity));
+            position = line.size();
+        }
+        // Stock may have come back while the student was deciding.
+        schedule(itemCode);
+        return position;
+    }
+    
+    public synchronized boolean leave(String studentId, int itemCode) {
+        Deque<Entry> line = waitlists.get(itemCode);
+        if (line == null || !line.removeIf(e -> e.studentId.equals(studentId))) {
+            return false;
+        }
+        if (line.isEmpty()) {
+            waitlists.remove(itemCode);
+        }
+        return true;
+    }
+    
+    public synchronized List<Entry> getEntriesForStudent(String studentId) {
+        List<Entry> result = new ArrayList<>();
+        for (Deque<Entry> line : waitlists.values()) {
+            for (Entry e : line) {
+                if (e.studentId.equals(studentId)) {
+                    result.add(e);
+                }
+            }
+        }
+        return result;
+    }
+    
+    // 1-based position of the student in the item's line, or 0 if not waiting.
+    public synchronized int getPosition(String studentId, int itemCode) {
+        Deque<Entry> line = waitlists.get(itemCode);
+        if (line != null) {
+            int position = 1;
+            for (Entry e : line) {
+                if (e.studentId.equals(studentId)) {
+                    return position;
+                }
+                position++;
+            }
+        }
+        return 0;
+    }
+    
+    public synchronized int getWaitingCount(int itemCode) {
+        Deque<Entry> line = waitlists.get(itemCode);
+        return line == null ? 0 : line.size();
+    }
+    
+    @Override
+    public void itemAdded(Item item) {
+        schedule(item.getCode());
+    }
+    
+    @Override
+    public synchronized void itemRemoved(Item item) {
+        // Nothing can fulfil these any more.
+        waitlists.remove(item.getCode());
+    }
+    
+    @Override
+    public void stockAdjusted(Item item, int delta) {
+        if (delta > 0) {
+            schedule(item.getCode());
+        }
+    }
+    
+    @Override
+    public void quantitySet(Item item, int quantity) {
+        if (quantity > 0) {
+            schedule(item.getCode());
+        }
+    }
+    
+    private void schedule(int itemCode) {
+        synchronized (this) {
+            if (!waitlists.containsKey(itemCode) || !scheduled.add(itemCode)) {
+                return;
+            }
+        }
+        dispatcher.execute(() -> fulfil(itemCode));
+    }
+    
+    // Serves the line from the front until the head no longer fits. Stock is
+    // claimed before the entry is taken off the line, and our lock is never
+    // held while calling into the managers.
+    private void fulfil(int itemCode) {
+        synchronized (this) {
+            scheduled.remove(itemCode);
+        }
+        while (true) {
+            Entry head;
+            synchronized (this) {
+                Deque<Entry> line = waitlists.get(itemCode);
+                if (line == null) {
+                    return;
+                }
+                head = line.peekFirst();
+            }
+            if (!inventoryManager.reserveItem(itemCode, head.quantity)) {
+                return;
+            }
+            boolean stillWaiting;
+            synchronized (this) {
+                Deque<Entry> line = waitlists.get(itemCode);
+                stillWaiting = line != null && line.peekFirst() == head;
+                if (stillWaiting) {
+                    line.pollFirst();
+                    if (line.isEmpty()) {
+                        waitlists.remove(itemCode);
+                    }
+                }
+            }
+            if (!stillWaiting) {
+                // The student left the line while we were claiming stock.
+                inventoryManager.releaseItem(itemCode, head.quantity);
+                continue;
+            }
+            Item item = inventoryManager.findItemByCode(itemCode);
+            String itemName = item == null ? "Item " + itemCode : item.getName() + " (" + item.getSize() + ")";
+            reservationManager.createReservation(head.studentName, head.studentId, head.course,
+                                                 itemCode, itemName, head.quantity);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package main;
+
+import student.Student;
+import student.StudentInterface;
+import student.StudentRegistry;
+import admin.Admin;
+import admin.AdminInterface;
+import audit.AuditLog;
+import inventory.ColumnarCatalog;
+import inventory.ItemSearchIndex;
+import inventory.InventoryManager;
+import inventory.ReservationManager;
+import inventory.ReservationService;
+import inventory.WaitlistManager;
+import metrics.LoginEvent;
+import metrics.Metrics;
+import metrics.OperationTimer;
+import persistence.Storage;
+import utils.InputValidator;
+import utils.TermsAndConditions;
+
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+
+// One user's walk through the menus. Each console or network connection
+// gets its own session (and so its own input and login), while every
+// session shares the managers of one MerchSystem.
+public class MerchSession {
+    // Only the credential checks and account creation are timed, not the
+    // prompts around them.
+    private static final OperationTimer ADMIN_LOGIN_TIMER = Metrics.timer("session.adminLogin");
+    private static final OperationTimer STUDENT_LOGIN_TIMER = Metrics.timer("session.studentLogin");
+    private static final OperationTimer SIGNUP_TIMER = Metrics.timer("session.signup");
+    
+    private final InventoryManager inventoryManager;
+    private final ReservationManager reservationManager;
+    private final ReservationService reservationService;
+    private final WaitlistManager waitlistManager;
+    private final ColumnarCatalog catalog;
+    private final ItemSearchIndex searchIndex;
+    private final StudentRegistry studentRegistry;
+    private final Storage storage;
+    private final AuditLog auditLog;
+    private final InputValidator validator;
+    
+    public MerchSession(MerchSystem system, Scanner scanner) {
+        this.inventoryManager = system.getInventoryManager();
+        this.reservationManager = system.getReservationManager();
+        this.reservationService = system.getReservationService();
+        this.waitlistManager = system.getWaitlistManager();
+        this.catalog = system.getColumnarCatalog();
+        this.searchIndex = system.getItemSearchIndex();
+        this.studentRegistry = system.getStudentRegistry();
+        this.storage = system.getStorage();
+        this.auditLog = system.getAuditLog();
+        this.validator = new InputValidator(scanner);
+    }
+    
+    // Runs the main menu until the user exits or the input ends.
+    public void run() {
+        System.out.println("=================================");
+        System.out.println("     STI MERCH SYSTEM");
+        System.out.println("=================================");
+        
+        try {
+            while (true) {
+                showMainLogin();
+                int choice = validator.getValidInteger("Enter your choice: ", 0, 3);
+                
+                switch (choice) {
+                    case 0:
+                        System.out.println("Thank you for using STI Merch System!");
+                        return;
+                    case 1:
+                        if (handleAdminLogin()) {
+                            return;
+                        }
+                        break;
+                    case 2:
+                        if (handleStudentLogin()) {
+                            return;
+                        }
+                        break;
+                    case 3:
+                        handleStudentSignup();
+                        break;
+                }
+            }
+        } catch (NoSuchElementException e) {
+            // Input closed (end of file or the client disconnected).
+        }
+    }
+    
+    private void showMainLogin() {
+        System.out.println("\n=================================");
+        System.out.println("           MAIN MENU");
+        System.out.println("=================================");
+        System.out.println("[1] Admin Login");
+        System.out.println("[2] Student Login");
+        System.out.println("[3] Student Sign Up");
+        System.out.println("[0] Exit");
+    }
+    
+    // Returns true if the admin chose to exit the system.
+    private boolean handleAdminLogin() {
+        System.out.println("\n--- Admin Login ---");
+        String username = validator.getValidNonEmptyString("Username: ", "Username");
+        String password = validator.getValidNonEmptyString("Password: ", "Password");
+        
+        long start = ADMIN_LOGIN_TIMER.start();
+        LoginEvent event = new LoginEvent();
+        event.begin();
+        Admin admin = new Admin(username, password);
+        boolean authenticated = admin.authenticate();
+        ADMIN_LOGIN_TIMER.stop(start);
+        event.end("admin", username, null, authenticated);
+        if (authenticated) {
+            System.out.println("Login successful!");
+            AdminInterface adminInterface = new AdminInterface(inventoryManager, reservationManager, reservationService,
+                                                             catalog, searchIndex, validator, username, auditLog);
+            return adminInterface.showMenu();
+        }
+        System.out.println("Invalid credentials.");
+        System.out.println("Hint: username='admin', password='admin123'");
+        return false;
+    }
+    
+    // Returns true if the student chose to exit the system.
+    private boolean handleStudentLogin() {
+        System.out.println("\n--- Student Login ---");
+        String username = validator.getValidNonEmptyString("Username: ", "Username");
+        String password = validator.getValidNonEmptyString("Password: ", "Password");
+        String studentId = validator.getValidStudentId("Student ID: ");
+        
+        long start = STUDENT_LOGIN_TIMER.start();
+        LoginEvent event = new LoginEvent();
+        event.begin();
+        Student student = studentRegistry.authenticate(username, password, studentId);
+        STUDENT_LOGIN_TIMER.stop(start);
+        event.end("student", username, student == null ? null : student.getCourse(), student != null);
+        if (student != null) {
+            System.out.println("Login successful! Welcome " + student.getFullName());
+            StudentInterface studentInterface = new StudentInterface(inventoryManager, reservationManager, reservationService,
+                                                                     waitlistManager, searchIndex, validator, student);
+            return studentInterface.showMenu();
+        }
+        System.out.println("Invalid credentials or student ID. Please check your information.");
+        System.out.println("If you don't have an account, please sign up first.");
+        return false;
+    }
+    
+    private void handleStudentSignup() {
+        System.out.println("\n--- Student Sign Up ---");
+        
+        if (!TermsAndConditions.acceptTerms(validator)) {
+            System.out.println("You must accept terms and conditions to sign up.");
+            return;
+        }
+        
+        String lastName = validator.getValidNonEmptyString("Enter last name: ", "Last name");
+        String firstName = validator.getValidNonEmptyString("Enter first name: ", "First name");
+        String username = validator.getValidNonEmptyString("Enter username: ", "Username");
+        
+        if (studentRegistry.isUsernameTaken(username)) {
+            System.out.println("Username already exists!");
+            return;
+        }
+        
+        String studentId = validator.getValidStudentId("Enter student ID (6-12 digits): ");
+        
+        if (studentRegistry.isStudentIdTaken(studentId)) {
+            System.out.println("Student ID already registered!");
+            return;
+        }
+        
+        String password = validator.getValidNonEmptyString("Enter password (6-20 chars): ", "Password");
+        String course = validator.getValidCourse("Enter course code: ");
+        
+        long start = SIGNUP_TIMER.start();
+        LoginEvent event = new LoginEvent();
+        event.begin();
+        Student newStudent = new Student(username, password, studentId, course, firstName, lastName);
+        // The checks above are for early feedback; this is the one that counts
+        // when someone else signed up with the same details in the meantime.
+        StudentRegistry.Result result = studentRegistry.register(newStudent);
+        if (result == StudentRegistry.Result.USERNAME_TAKEN) {
+            SIGNUP_TIMER.stop(start);
+            event.end("signup", username, course, false);
+            System.out.println("Username already exists!");
+            return;
+        }
+        if (result == StudentRegistry.Result.STUDENT_ID_TAKEN) {
+            SIGNUP_TIMER.stop(start);
+            event.end("signup", username, course, false);
+            System.out.println("Student ID already registered!");
+            return;
+        }
+        if (storage != null) {
+            storage.recordStudent(newStudent);
+        }
+        SIGNUP_TIMER.stop(start);
+        event.end("signup", username, course, true);
+        
+        System.out.println("Account created successfully!");
+        System.out.println("Welcome, " + newStudent.getFullName() + "!");
+        System.out.println("Student ID: " + studentId);
+        System.out.println("Course: " + course);
+        System.out.println("\nPlease remember your credentials:");
+        System.out.println("   - Username: " + username);
+        System.out.println("   - Student ID: " + studentId);
+        System.out.println("You can now login with your credentials.");
+    }
+}
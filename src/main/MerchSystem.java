@@ -1,34 +1,148 @@
 package main;
 
-import student.Student;
-import student.StudentInterface;
-import admin.Admin;
-import admin.AdminInterface;
+import student.StudentRegistry;
+import audit.AuditLog;
+import catalog.CatalogExporter;
+import catalog.CatalogImporter;
+import inventory.ColumnarCatalog;
+import inventory.ItemSearchIndex;
 import inventory.InventoryManager;
 import inventory.ReservationManager;
+import inventory.ReservationExpiry;
+import inventory.ReservationPipeline;
+import inventory.ReservationService;
+import inventory.WaitlistManager;
 import inventory.Item;
-import inventory.Reservation;
-import utils.InputValidator;
-import utils.TermsAndConditions;
+import metrics.FlightRecording;
+import metrics.Metrics;
+import persistence.Storage;
+import server.MerchHttpApi;
+import server.MerchServer;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Scanner;
 
 public class MerchSystem {
-    private Scanner scanner;
     private InventoryManager inventoryManager;
     private ReservationManager reservationManager;
-    private InputValidator validator;
-    private List<Student> registeredStudents;
+    private ReservationService reservationService;
+    // Null unless merch.pipeline.batch is set.
+    private ReservationPipeline reservationPipeline;
+    private WaitlistManager waitlistManager;
+    private ReservationExpiry reservationExpiry;
+    private ColumnarCatalog columnarCatalog;
+    private ItemSearchIndex itemSearchIndex;
+    private StudentRegistry studentRegistry;
+    private Storage storage;
+    // Null when the audit log is off.
+    private AuditLog auditLog;
     
     public MerchSystem() {
-        this.scanner = new Scanner(System.in);
         this.inventoryManager = new InventoryManager();
         this.reservationManager = new ReservationManager();
-        this.validator = new InputValidator(this.scanner);
-        this.registeredStudents = new ArrayList<>();
-        initializeDefaultInventory();
+        this.reservationService = new ReservationService(inventoryManager, reservationManager);
+        // merch.pipeline.batch > 0 sends single-item reservations through a
+        // batching single-writer pipeline (see ReservationPipeline).
+        int pipelineBatch = Integer.getInteger("merch.pipeline.batch", 0);
+        if (pipelineBatch > 0) {
+            reservationPipeline = new ReservationPipeline(inventoryManager, reservationManager, 4096, pipelineBatch);
+            reservationService.setPipeline(reservationPipeline);
+        }
+        this.waitlistManager = new WaitlistManager(inventoryManager, reservationManager);
+        this.studentRegistry = new StudentRegistry();
+        this.storage = Storage.fromSystemProperties();
+        
+        if (storage == null) {
+            seedCatalog();
+            if (reservationPipeline != null) {
+                Runtime.getRuntime().addShutdownHook(new Thread(reservationPipeline::close));
+            }
+        } else {
+            openStorage();
+        }
+        openAuditLog();
+        // Started after recovery so replayed history isn't timed again.
+        this.reservationExpiry = ReservationExpiry.fromSystemProperties(reservationService);
+        // Recovery restores stock without events, so this loads afterwards.
+        this.columnarCatalog = new ColumnarCatalog(inventoryManager);
+        this.itemSearchIndex = new ItemSearchIndex(inventoryManager);
+        // Seeding and recovery aren't traffic; count from here on.
+        Metrics.resetAll();
+        Metrics.registerMBeans();
+        try {
+            FlightRecording.startFromSystemProperties();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to start flight recording", e);
+        }
+    }
+    
+    private void openStorage() {
+        try {
+            // Replay may see a student twice; register() ignores the repeat.
+            boolean recovered = storage.recover(inventoryManager, reservationManager, studentRegistry::register);
+            storage.attach(inventoryManager, reservationManager, studentRegistry::getAllStudents);
+            if (!recovered) {
+                seedCatalog();
+                storage.checkpoint();
+                storage.getStartupReport().phase("Seed catalog", inventoryManager.getAllItems().size() + " items");
+            }
+            System.out.println(storage.getStartupReport());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open data directory " + storage.getDataDir(), e);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            // Hooks run concurrently, so the pipeline is drained here: what
+            // it still has queued must reach the journal before it closes.
+            if (reservationPipeline != null) {
+                reservationPipeline.close();
+            }
+            try {
+                storage.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close journal: " + e.getMessage());
+            }
+        }));
+    }
+    
+    private void openAuditLog() {
+        try {
+            auditLog = AuditLog.fromSystemProperties();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open audit log", e);
+        }
+        if (auditLog == null) {
+            return;
+        }
+        // Lets the writer finish what is queued before the JVM exits.
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                auditLog.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close audit log: " + e.getMessage());
+            }
+        }));
+    }
+    
+    // A first start loads merch.catalog (a .csv or .jsonl file, see
+    // CatalogImporter) when it is set, else the built-in catalog below.
+    private void seedCatalog() {
+        String file = System.getProperty("merch.catalog");
+        if (file == null) {
+            initializeDefaultInventory();
+            return;
+        }
+        try {
+            CatalogImporter.Report report = CatalogImporter.importFile(Paths.get(file), inventoryManager);
+            System.out.println("Catalog " + file + ": " + report);
+            for (String error : report.getErrors()) {
+                System.out.println("  " + error);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read catalog " + file, e);
+        }
     }
     
     private void initializeDefaultInventory() {
@@ -238,147 +352,67 @@ public class MerchSystem {
         inventoryManager.addItem(new Item(itemCode++, "STI Pin", "STI Special", "One Size", 150, 80.00));
     }
     
-    public void start() {
-        System.out.println("=================================");
-        System.out.println("     STI MERCH SYSTEM");
-        System.out.println("=================================");
-        
-        while (true) {
-            showMainLogin();
-            int choice = validator.getValidInteger("Enter your choice: ", 0, 3);
-            
-            switch (choice) {
-                case 0:
-                    System.out.println("Thank you for using STI Merch System!");
-                    System.exit(0);
-                    break;
-                case 1:
-                    handleAdminLogin();
-                    break;
-                case 2:
-                    handleStudentLogin();
-                    break;
-                case 3:
-                    handleStudentSignup();
-                    break;
-            }
-        }
-    }
-    
-    private void showMainLogin() {
-        System.out.println("\n=================================");
-        System.out.println("           MAIN MENU");
-        System.out.println("=================================");
-        System.out.println("[1] Admin Login");
-        System.out.println("[2] Student Login");
-        System.out.println("[3] Student Sign Up");
-        System.out.println("[0] Exit");
-    }
-    
-    private void handleAdminLogin() {
-        System.out.println("\n--- Admin Login ---");
-        String username = validator.getValidNonEmptyString("Username: ", "Username");
-        String password = validator.getValidNonEmptyString("Password: ", "Password");
-        
-        Admin admin = new Admin(username, password);
-        if (admin.authenticate()) {
-            System.out.println("Login successful!");
-            AdminInterface adminInterface = new AdminInterface(inventoryManager, reservationManager, validator);
-            adminInterface.showMenu();
-        } else {
-            System.out.println("Invalid credentials.");
-            System.out.println("Hint: username='admin', password='admin123'");
-        }
-    }
-    
-    private void handleStudentLogin() {
-        System.out.println("\n--- Student Login ---");
-        String username = validator.getValidNonEmptyString("Username: ", "Username");
-        String password = validator.getValidNonEmptyString("Password: ", "Password");
-        String studentId = validator.getValidStudentId("Student ID: ");
-        
-        Student student = findStudentByCredentials(username, password, studentId);
-        if (student != null) {
-            System.out.println("Login successful! Welcome " + student.getFullName());
-            StudentInterface studentInterface = new StudentInterface(inventoryManager, reservationManager, validator, student);
-            studentInterface.showMenu();
-        } else {
-            System.out.println("Invalid credentials or student ID. Please check your information.");
-            System.out.println("If you don't have an account, please sign up first.");
-        }
-    }
+    public InventoryManager getInventoryManager() { return inventoryManager; }
+    public ReservationManager getReservationManager() { return reservationManager; }
+    public ReservationService getReservationService() { return reservationService; }
+    public WaitlistManager getWaitlistManager() { return waitlistManager; }
+    // Null unless a reservation time-to-live is configured.
+    public ReservationExpiry getReservationExpiry() { return reservationExpiry; }
+    public ColumnarCatalog getColumnarCatalog() { return columnarCatalog; }
+    public ItemSearchIndex getItemSearchIndex() { return itemSearchIndex; }
+    public StudentRegistry getStudentRegistry() { return studentRegistry; }
+    public Storage getStorage() { return storage; }
+    public AuditLog getAuditLog() { return auditLog; }
     
-    private void handleStudentSignup() {
-        System.out.println("\n--- Student Sign Up ---");
-        
-        if (!TermsAndConditions.acceptTerms(validator)) {
-            System.out.println("You must accept terms and conditions to sign up.");
-            return;
-        }
-        
-        String lastName = validator.getValidNonEmptyString("Enter last name: ", "Last name");
-        String firstName = validator.getValidNonEmptyString("Enter first name: ", "First name");
-        String username = validator.getValidNonEmptyString("Enter username: ", "Username");
-        
-        if (isUsernameExists(username)) {
-            System.out.println("Username already exists!");
-            return;
-        }
-        
-        String studentId = validator.getValidStudentId("Enter student ID (6-12 digits): ");
-        
-        if (isStudentIdExists(studentId)) {
-            System.out.println("Student ID already registered!");
-            return;
-        }
-        
-        String password = validator.getValidNonEmptyString("Enter password (6-20 chars): ", "Password");
-        String course = validator.getValidCourse("Enter course code: ");
-        
-        Student newStudent = new Student(username, password, studentId, course, firstName, lastName);
-        registeredStudents.add(newStudent);
-        
-        System.out.println("Account created successfully!");
-        System.out.println("Welcome, " + newStudent.getFullName() + "!");
-        System.out.println("Student ID: " + studentId);
-        System.out.println("Course: " + course);
-        System.out.println("\nPlease remember your credentials:");
-        System.out.println("   - Username: " + username);
-        System.out.println("   - Student ID: " + studentId);
-        System.out.println("You can now login with your credentials.");
+    // Runs one session on the local console.
+    public void start() {
+        new MerchSession(this, new Scanner(System.in)).run();
     }
     
-    private Student findStudentByCredentials(String username, String password, String studentId) {
-        for (Student s : registeredStudents) {
-            if (s.getUsername().equals(username) && 
-                s.getPassword().equals(password) && 
-                s.getStudentId().equals(studentId)) {
-                return s;
+    // With --server [port], serves concurrent terminal sessions over local
+    // TCP instead of the console; with --http [port], serves the JSON API.
+    // Both can be given together. --import <file> adds the items in a
+    // .csv/.jsonl catalog file and --export <file> writes the catalog out;
+    // given alone, they run and exit.
+    public static void main(String[] args) throws IOException {
+        MerchSystem system = new MerchSystem();
+        MerchServer server = null;
+        boolean http = false;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--import") && i + 1 < args.length) {
+                CatalogImporter.Report report = CatalogImporter.importFile(Paths.get(args[++i]), system.getInventoryManager());
+                System.out.println("Imported " + args[i] + ": " + report);
+                for (String error : report.getErrors()) {
+                    System.out.println("  " + error);
+                }
+                continue;
             }
-        }
-        return null;
-    }
-    
-    private boolean isUsernameExists(String username) {
-        for (Student s : registeredStudents) {
-            if (s.getUsername().equals(username)) {
-                return true;
+            if (args[i].equals("--export") && i + 1 < args.length) {
+                Path file = Paths.get(args[++i]);
+                long start = System.nanoTime();
+                long count = CatalogExporter.exportFile(system.getInventoryManager(), file);
+                System.out.printf("Exported %,d items to %s in %.2f s%n", count, file, (System.nanoTime() - start) / 1e9);
+                continue;
             }
-        }
-        return false;
-    }
-    
-    private boolean isStudentIdExists(String studentId) {
-        for (Student s : registeredStudents) {
-            if (s.getStudentId().equals(studentId)) {
-                return true;
+            boolean hasPort = i + 1 < args.length && !args[i + 1].startsWith("--");
+            if (args[i].equals("--server")) {
+                server = new MerchServer(system, hasPort ? Integer.parseInt(args[++i]) : MerchServer.DEFAULT_PORT);
+                System.out.println("Serving sessions on localhost:" + server.getPort());
+            } else if (args[i].equals("--http")) {
+                MerchHttpApi api = new MerchHttpApi(system, hasPort ? Integer.parseInt(args[++i]) : MerchHttpApi.DEFAULT_PORT);
+                api.start();
+                http = true;
+                System.out.println("Serving HTTP API on port " + api.getPort());
             }
         }
-        return false;
-    }
-    
-    public static void main(String[] args) {
-        MerchSystem system = new MerchSystem();
-        system.start();
+        if (server != null) {
+            server.serve();
+        } else if (args.length == 0) {
+            system.start();
+        } else if (http) {
+            // HTTP only: its threads keep running until the process is stopped.
+            return;
+        }
+        System.exit(0);
     }
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package metrics;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.ParseException;
+
+// Records the merch.* events with the merch.jfc settings, which ship in the
+// jar next to this class. Setting merch.jfr to a file starts a recording at
+// startup and writes it there when the JVM exits:
+//   java -Dmerch.jfr=rush.jfr -jar merch-system.jar
+public final class FlightRecording {
+    private FlightRecording() { }
+    
+    // Null when merch.jfr is not set.
+    public static Recording startFromSystemProperties() throws IOException {
+        String file = System.getProperty("merch.jfr");
+        if (file == null) {
+            return null;
+        }
+        Recording recording = new Recording(settings());
+        recording.setName("merch");
+        recording.setToDisk(true);
+        recording.setDestination(Path.of(file));
+        recording.setDumpOnExit(true);
+        recording.start();
+        return recording;
+    }
+    
+    // The bundled merch.jfc, read from the classpath.
+    public static Configuration settings() throws IOException {
+        InputStream in = FlightRecording.class.getResourceAsStream("merch.jfc");
+        if (in == null) {
+            throw new IOException("metrics/merch.jfc is not on the classpath");
+        }
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return Configuration.create(reader);
+        } catch (ParseException e) {
+            throw new IOException("Invalid metrics/merch.jfc", e);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// A latency histogram laid out like HdrHistogram's: values below 128 ns
+// each get a bucket, and every power of two above that is split into 64
+// buckets, so any recorded value is known to within 1/64 (~1.6%) up to
+// about 2.4 hours, in 2432 counters.
+//
+// record() is lock-free and allocation-free: it adds to one counter in an
+// AtomicLongArray and raises the max with a CAS only when a new max is
+// seen. There is no running sum; the mean comes from the buckets, to the
+// same precision. Readers take a Snapshot; it is not atomic with
+// concurrent records, which is fine for monitoring.
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF = SUB_BUCKETS / 2;
+    private static final int MAGNITUDES = 36;
+    // Larger values are recorded as this.
+    public static final long HIGHEST_TRACKABLE = (1L << (SUB_BUCKET_BITS + MAGNITUDES)) - 1;
+    
+    private final AtomicLongArray counts = new AtomicLongArray(SUB_BUCKETS + MAGNITUDES * HALF);
+    private final AtomicLong max = new AtomicLong();
+    
+    public void record(long nanos) {
+        record(nanos, 1);
+    }
+    
+    // Records the value count times, e.g. a sample standing for that many
+    // calls.
+    public void record(long nanos, long count) {
+        long value = nanos < 0 ? 0 : Math.min(nanos, HIGHEST_TRACKABLE);
+        counts.addAndGet(indexOf(value), count);
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+    
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        // Values in [2^(shift+6), 2^(shift+7)) share magnitude shift; the
+        // 64 buckets of a magnitude are value >>> shift, in [64, 128).
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return SUB_BUCKETS + (shift - 1) * HALF + (int) (value >>> shift) - HALF;
+    }
+    
+    // The largest value that lands in the bucket.
+    static long highestValueAt(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int offset = index - SUB_BUCKETS;
+        int shift = offset / HALF + 1;
+        long subBucket = offset % HALF + HALF;
+        return ((subBucket + 1) << shift) - 1;
+    }
+    
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        max.set(0);
+    }
+    
+    public Snapshot snapshot() {
+        long[] copy = new long[counts.length()];
+        long total = 0;
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        return new Snapshot(copy, total, max.get());
+    }
+    
+    public static class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long max;
+        
+        private Snapshot(long[] counts, long count, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.max = max;
+        }
+        
+        public long getCount() {
+            return count;
+        }
+        
+        public long getMax() {
+            return max;
+        }
+        
+        // Taken at the middle of each bucket.
+        public double getMean() {
+            if (count == 0) {
+                return 0;
+            }
+            double total = 0;
+            long low = 0;
+            for (int i = 0; i < counts.length; i++) {
+                long high = highestValueAt(i);
+                if (counts[i] != 0) {
+                    total += counts[i] * ((low + high) / 2.0);
+                }
+                low = high + 1;
+            }
+            return total / count;
+        }
+        
+        // The value at or below which the given percentage (0-100) of
+        // recorded values fall, rounded up to its bucket's upper end as
+        // HdrHistogram does. 0 when nothing was recorded.
+        public long getValueAtPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValueAt(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// An admin or student login attempt, or a student signup. The duration is
+// the credential check or account creation, not the typing.
+@Name("merch.Login")
+@Label("Login")
+@Category({"Merch", "Sessions"})
+@Description("A login or signup attempt")
+@Enabled(false)
+@StackTrace(false)
+public class LoginEvent extends Event {
+    @Label("Kind")
+    @Description("admin, student or signup")
+    String kind;
+    
+    @Label("Username")
+    String username;
+    
+    @Label("Course")
+    String course;
+    
+    @Label("Success")
+    boolean success;
+    
+    public void end(String kind, String username, String course, boolean success) {
+        if (shouldCommit()) {
+            this.kind = kind;
+            this.username = username;
+            this.course = course;
+            this.success = success;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// The process-wide operation timers, by name ("inventory.findItemByCode").
+// Classes keep the timers they use in static fields, so recording never
+// looks anything up. merch.metrics=off turns timing off; the JIT then drops
+// it, as ENABLED is a constant.
+public final class Metrics {
+    public static final boolean ENABLED = !"off".equalsIgnoreCase(System.getProperty("merch.metrics"));
+    private static final String DOMAIN = "merch";
+    
+    private static final Map<String, OperationTimer> timers = new ConcurrentSkipListMap<>();
+    private static volatile MBeanServer mbeanServer;
+    
+    private Metrics() {
+    }
+    
+    // The timer with this name, created on first use.
+    public static OperationTimer timer(String name) {
+        return timer(name, 1);
+    }
+    
+    // A timer that times one call in sampleEvery (rounded up to a power of
+    // two), for operations fast enough that timing each call would cost
+    // more than the call. The first call for a name decides its rate.
+    public static OperationTimer timer(String name, int sampleEvery) {
+        OperationTimer timer = timers.get(name);
+        if (timer != null) {
+            return timer;
+        }
+        int rate = sampleEvery <= 1 ? 1 : Integer.highestOneBit(sampleEvery - 1) << 1;
+        OperationTimer created = new OperationTimer(name, rate);
+        timer = timers.putIfAbsent(name, created);
+        if (timer != null) {
+            return timer;
+        }
+        MBeanServer server = mbeanServer;
+        if (server != null) {
+            register(server, created);
+        }
+        return created;
+    }
+    
+    // Summaries of every timer, sorted by name.
+    public static List<OperationTimer.Summary> summaries() {
+        List<OperationTimer.Summary> summaries = new ArrayList<>(timers.size());
+        for (OperationTimer timer : timers.values()) {
+            summaries.add(timer.summary());
+        }
+        return summaries;
+    }
+    
+    public static void resetAll() {
+        for (OperationTimer timer : timers.values()) {
+            timer.reset();
+        }
+    }
+    
+    // Publishes every timer, and any created later, as an MXBean on the
+    // platform MBean server (merch:type=Operation,name=...), for jconsole
+    // and other JMX clients. Calling it again does nothing.
+    public static synchronized void registerMBeans() {
+        if (mbeanServer != null || !ENABLED) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        mbeanServer = server;
+        for (OperationTimer timer : timers.values()) {
+            register(server, timer);
+        }
+    }
+    
+    private static void register(MBeanServer server, OperationTimer timer) {
+        try {
+            ObjectName name = new ObjectName(DOMAIN + ":type=Operation,name=" + timer.getName());
+            server.registerMBean(timer, name);
+        } catch (InstanceAlreadyExistsException e) {
+            // Registered by a concurrent timer() / registerMBeans().
+        } catch (JMException e) {
+            System.err.println("Failed to register metrics for " + timer.getName() + ": " + e.getMessage());
+        }
+    }
+}
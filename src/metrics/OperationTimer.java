@@ -0,0 +1,132 @@
+package metrics;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// Counts and times one operation:
+//
+//     long start = TIMER.start();
+//     try { ... } finally { TIMER.stop(start); }
+//
+// Both calls are a System.nanoTime() and stop() one LatencyHistogram
+// record, so timing is lock-free and allocation-free. With metrics off
+// (merch.metrics=off) both do nothing.
+//
+// Operations that take only nanoseconds would be slowed several times over
+// by two clock reads per call, so their timers are sampled: one call in
+// sampleEvery, picked at random, is timed and recorded as sampleEvery
+// calls. Counts and percentiles stay unbiased; the count is an estimate.
+public class OperationTimer implements OperationTimerMXBean {
+    private final String name;
+    // A power of two; 1 times every call.
+    private final int sampleEvery;
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private volatile long since = System.nanoTime();
+    
+    OperationTimer(String name, int sampleEvery) {
+        this.name = name;
+        this.sampleEvery = sampleEvery;
+    }
+    
+    // 0 means "not timed"; stop() then does nothing.
+    public long start() {
+        if (!Metrics.ENABLED) {
+            return 0;
+        }
+        if (sampleEvery > 1 && (ThreadLocalRandom.current().nextInt() & (sampleEvery - 1)) != 0) {
+            return 0;
+        }
+        return System.nanoTime();
+    }
+    
+    public void stop(long start) {
+        if (start != 0) {
+            histogram.record(System.nanoTime() - start, sampleEvery);
+        }
+    }
+    
+    @Override
+    public String getName() {
+        return name;
+    }
+    
+    // Everything the admin screen shows, read from one histogram snapshot.
+    public Summary summary() {
+        long elapsed = System.nanoTime() - since;
+        return new Summary(name, histogram.snapshot(), elapsed, sampleEvery > 1);
+    }
+    
+    @Override
+    public long getCount() {
+        return histogram.snapshot().getCount();
+    }
+    
+    @Override
+    public double getThroughput() {
+        return summary().getThroughput();
+    }
+    
+    @Override
+    public double getMeanMicros() {
+        return histogram.snapshot().getMean() / 1000.0;
+    }
+    
+    @Override
+    public double getP50Micros() {
+        return histogram.snapshot().getValueAtPercentile(50) / 1000.0;
+    }
+    
+    @Override
+    public double getP99Micros() {
+        return histogram.snapshot().getValueAtPercentile(99) / 1000.0;
+    }
+    
+    @Override
+    public double getP999Micros() {
+        return histogram.snapshot().getValueAtPercentile(99.9) / 1000.0;
+    }
+    
+    @Override
+    public double getMaxMicros() {
+        return histogram.snapshot().getMax() / 1000.0;
+    }
+    
+    // Starts counting afresh. Calls finishing during the reset may be lost.
+    @Override
+    public void reset() {
+        histogram.reset();
+        since = System.nanoTime();
+    }
+    
+    public static class Summary {
+        private final String name;
+        private final long count;
+        private final double throughput;
+        private final long p50;
+        private final long p99;
+        private final long p999;
+        private final long max;
+        private final boolean sampled;
+        
+        private Summary(String name, LatencyHistogram.Snapshot snapshot, long elapsedNanos, boolean sampled) {
+            this.name = name;
+            this.sampled = sampled;
+            this.count = snapshot.getCount();
+            this.throughput = elapsedNanos <= 0 ? 0 : count * 1e9 / elapsedNanos;
+            this.p50 = snapshot.getValueAtPercentile(50);
+            this.p99 = snapshot.getValueAtPercentile(99);
+            this.p999 = snapshot.getValueAtPercentile(99.9);
+            this.max = snapshot.getMax();
+        }
+        
+        public String getName() { return name; }
+        public long getCount() { return count; }
+        public double getThroughput() { return throughput; }
+        // Latencies in nanoseconds.
+        public long getP50() { return p50; }
+        public long getP99() { return p99; }
+        public long getP999() { return p999; }
+        public long getMax() { return max; }
+        // Whether the count is estimated from a sample of the calls.
+        public boolean isSampled() { return sampled; }
+    }
+}
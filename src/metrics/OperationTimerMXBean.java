@@ -0,0 +1,24 @@
+package metrics;
+
+// What JMX shows for one OperationTimer, registered as
+// merch:type=Operation,name=<operation>. Latencies are in microseconds.
+public interface OperationTimerMXBean {
+    String getName();
+    
+    long getCount();
+    
+    // Calls per second since the timer started or was last reset.
+    double getThroughput();
+    
+    double getMeanMicros();
+    
+    double getP50Micros();
+    
+    double getP99Micros();
+    
+    double getP999Micros();
+    
+    double getMaxMicros();
+    
+    void reset();
+}
@@ -0,0 +1,239 @@
+package metrics;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+import utils.TableRenderer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Reads a Flight Recorder file offline and prints what a reservation rush
+// looked like: how many merch.* events of each kind and how long they took,
+// reservations and failed stock checks per course, status changes, the
+// items most often out of stock, logins, and the JDK context recorded
+// alongside (lock waits, parking, GC, fsyncs, hottest methods).
+// Run: java -cp out metrics.RecordingSummary recording.jfr
+public class RecordingSummary {
+    private static final int TOP = 10;
+    
+    private final Map<String, List<Long>> durations = new TreeMap<>();
+    private final Map<String, long[]> courses = new TreeMap<>();
+    private final Map<String, Long> transitions = new TreeMap<>();
+    private final Map<Integer, long[]> shortages = new HashMap<>();
+    private final Map<Integer, String> itemCourses = new HashMap<>();
+    private final Map<String, long[]> logins = new TreeMap<>();
+    private final Map<Long, Long> createdPerSecond = new HashMap<>();
+    private final Map<String, long[]> context = new TreeMap<>();
+    private final Map<String, Long> monitors = new HashMap<>();
+    private final Map<String, Long> hotMethods = new HashMap<>();
+    private long samples;
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.out.println("Usage: java -cp out metrics.RecordingSummary <recording.jfr>");
+            return;
+        }
+        RecordingSummary summary = new RecordingSummary();
+        try (RecordingFile file = new RecordingFile(Path.of(args[0]))) {
+            while (file.hasMoreEvents()) {
+                summary.add(file.readEvent());
+            }
+        }
+        summary.print();
+    }
+    
+    private void add(RecordedEvent event) {
+        String type = event.getEventType().getName();
+        long nanos = event.getDuration().toNanos();
+        if (type.startsWith("merch.")) {
+            durations.computeIfAbsent(type, k -> new ArrayList<>()).add(nanos);
+        }
+        switch (type) {
+            case "merch.ReservationCreated": {
+                long[] course = course(event.getString("course"));
+                course[0]++;
+                course[1] += event.getInt("quantity");
+                createdPerSecond.merge(event.getStartTime().getEpochSecond(), 1L, Long::sum);
+                break;
+            }
+            case "merch.ReservationStatusChanged":
+                transitions.merge(event.getString("fromStatus") + " -> " + event.getString("toStatus"), 1L, Long::sum);
+                break;
+            case "merch.StockCheckFailed": {
+                int code = event.getInt("itemCode");
+                String name = event.getString("course");
+                course(name)[2]++;
+                long[] shortage = shortages.computeIfAbsent(code, k -> new long[2]);
+                shortage[0]++;
+                shortage[1] += event.getInt("quantity");
+                if (name != null) {
+                    itemCourses.put(code, name);
+                }
+                break;
+            }
+            case "merch.Login": {
+                long[] login = logins.computeIfAbsent(event.getString("kind"), k -> new long[3]);
+                login[0]++;
+                if (!event.getBoolean("success")) {
+                    login[1]++;
+                }
+                login[2] = Math.max(login[2], nanos);
+                break;
+            }
+            case "jdk.JavaMonitorEnter":
+                addContext("Monitor waits", nanos);
+                if (event.hasField("monitorClass") && event.getClass("monitorClass") != null) {
+                    monitors.merge(event.getClass("monitorClass").getName(), nanos, Long::sum);
+                }
+                break;
+            case "jdk.ThreadPark":
+                addContext("Thread parks", nanos);
+                break;
+            case "jdk.GarbageCollection":
+                addContext("GC (" + event.getString("name") + ")", event.getDuration("sumOfPauses").toNanos());
+                break;
+            case "jdk.FileForce":
+                addContext("File fsyncs", nanos);
+                break;
+            case "jdk.ExecutionSample":
+                samples++;
+                RecordedStackTrace stack = event.getStackTrace();
+                if (stack != null && !stack.getFrames().isEmpty()) {
+                    RecordedFrame top = stack.getFrames().get(0);
+                    hotMethods.merge(top.getMethod().getType().getName() + "." + top.getMethod().getName(), 1L, Long::sum);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+    
+    // {created, units, failed checks} for the course; null means the item was gone.
+    private long[] course(String name) {
+        return courses.computeIfAbsent(name == null ? "(removed item)" : name, k -> new long[3]);
+    }
+    
+    private void addContext(String name, long nanos) {
+        long[] totals = context.computeIfAbsent(name, k -> new long[2]);
+        totals[0]++;
+        totals[1] += nanos;
+    }
+    
+    private void print() {
+        if (durations.isEmpty()) {
+            System.out.println("No merch.* events in the recording. Was it made with merch.jfc (see FlightRecording)?");
+        } else {
+            List<String[]> rows = new ArrayList<>();
+            for (Map.Entry<String, List<Long>> entry : durations.entrySet()) {
+                long[] sorted = entry.getValue().stream().mapToLong(Long::longValue).toArray();
+                Arrays.sort(sorted);
+                long total = Arrays.stream(sorted).sum();
+                rows.add(new String[] {entry.getKey(), String.valueOf(sorted.length), millis(total),
+                                       micros(percentile(sorted, 50)), micros(percentile(sorted, 99)),
+                                       micros(sorted[sorted.length - 1])});
+            }
+            table("MERCH EVENTS", new String[] {"Event", "Count", "Total (ms)", "p50 (us)", "p99 (us)", "Max (us)"},
+                  new int[] {30, 8, 10, 10, 10, 10}, rows);
+        }
+        
+        if (!courses.isEmpty()) {
+            List<String[]> rows = new ArrayList<>();
+            for (Map.Entry<String, long[]> entry : courses.entrySet()) {
+                long[] c = entry.getValue();
+                rows.add(new String[] {entry.getKey(), String.valueOf(c[0]), String.valueOf(c[1]), String.valueOf(c[2])});
+            }
+            table("BY COURSE", new String[] {"Course", "Reserved", "Units", "Failed Checks"},
+                  new int[] {20, 8, 8, 13}, rows);
+        }
+        
+        if (!createdPerSecond.isEmpty()) {
+            Map.Entry<Long, Long> busiest = createdPerSecond.entrySet().stream()
+                .max(Map.Entry.comparingByValue()).get();
+            System.out.println("Busiest second: " + busiest.getValue() + " reservations at "
+                               + Instant.ofEpochSecond(busiest.getKey()));
+        }
+        
+        if (!transitions.isEmpty()) {
+            List<String[]> rows = new ArrayList<>();
+            transitions.forEach((transition, count) -> rows.add(new String[] {transition, String.valueOf(count)}));
+            table("STATUS CHANGES", new String[] {"Change", "Count"}, new int[] {30, 8}, rows);
+        }
+        
+        if (!shortages.isEmpty()) {
+            List<String[]> rows = new ArrayList<>();
+            shortages.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]))
+                .limit(TOP)
+                .forEach(e -> rows.add(new String[] {String.valueOf(e.getKey()),
+                                                     itemCourses.getOrDefault(e.getKey(), "(removed item)"),
+                                                     String.valueOf(e.getValue()[0]),
+                                                     String.valueOf(e.getValue()[1])}));
+            table("MOST TURNED-DOWN ITEMS", new String[] {"Item", "Course", "Failed Checks", "Units Asked"},
+                  new int[] {6, 20, 13, 11}, rows);
+        }
+        
+        if (!logins.isEmpty()) {
+            List<String[]> rows = new ArrayList<>();
+            logins.forEach((kind, l) -> rows.add(new String[] {kind, String.valueOf(l[0]), String.valueOf(l[1]),
+                                                               micros(l[2])}));
+            table("LOGINS", new String[] {"Kind", "Attempts", "Failed", "Max (us)"}, new int[] {10, 8, 8, 10}, rows);
+        }
+        
+        if (!context.isEmpty()) {
+            List<String[]> rows = new ArrayList<>();
+            context.forEach((name, c) -> rows.add(new String[] {name, String.valueOf(c[0]), millis(c[1])}));
+            table("JDK CONTEXT", new String[] {"What", "Count", "Total (ms)"}, new int[] {30, 8, 10}, rows);
+        }
+        top("MOST CONTENDED LOCKS (wait ms)", monitors, true);
+        if (samples > 0) {
+            top("HOTTEST METHODS (of " + samples + " samples)", hotMethods, false);
+        }
+    }
+    
+    private static void top(String title, Map<String, Long> values, boolean nanos) {
+        if (values.isEmpty()) {
+            return;
+        }
+        List<String[]> rows = new ArrayList<>();
+        values.entrySet().stream()
+            .sorted((a, b) -> Long.compare(b.getValue(), a.getValue()))
+            .limit(TOP)
+            .forEach(e -> rows.add(new String[] {e.getKey(), nanos ? millis(e.getValue()) : String.valueOf(e.getValue())}));
+        table(title, new String[] {"Name", nanos ? "ms" : "Samples"}, new int[] {60, 10}, rows);
+    }
+    
+    private static void table(String title, String[] headers, int[] widths, List<String[]> rows) {
+        TableRenderer<String[]> table = new TableRenderer<>();
+        for (int i = 0; i < headers.length; i++) {
+            int column = i;
+            table.column(headers[i], widths[i], (out, row) -> out.append(row[column]));
+        }
+        table.print(title, rows);
+    }
+    
+    private static long percentile(long[] sorted, double percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+    
+    private static String micros(long nanos) {
+        StringBuilder out = new StringBuilder();
+        TableRenderer.appendFixed(out, nanos / 1000.0, 1);
+        return out.toString();
+    }
+    
+    private static String millis(long nanos) {
+        StringBuilder out = new StringBuilder();
+        TableRenderer.appendFixed(out, nanos / 1_000_000.0, 2);
+        return out.toString();
+    }
+}
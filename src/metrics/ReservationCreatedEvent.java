@@ -0,0 +1,61 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// JDK Flight Recorder event for one new reservation. Like every merch.*
+// event it is off unless a recording enables it (see merch.jfc); while off,
+// begin()/commit() cost next to nothing and the JIT can drop the event
+// object altogether.
+//
+//     ReservationCreatedEvent event = new ReservationCreatedEvent();
+//     event.begin();
+//     ... create it ...
+//     event.end(id, studentId, itemCode, course, quantity);
+@Name("merch.ReservationCreated")
+@Label("Reservation Created")
+@Category({"Merch", "Reservations"})
+@Description("A reservation was recorded; the duration covers the lock, the insert and the listeners (journal)")
+@Enabled(false)
+@StackTrace(false)
+public class ReservationCreatedEvent extends Event {
+    private static final EventType TYPE = EventType.getEventType(ReservationCreatedEvent.class);
+    
+    @Label("Reservation ID")
+    int reservationId;
+    
+    @Label("Student ID")
+    String studentId;
+    
+    @Label("Item Code")
+    int itemCode;
+    
+    @Label("Course")
+    String course;
+    
+    @Label("Quantity")
+    int quantity;
+    
+    // Whether a recording wants these events; lets batch paths skip
+    // creating one event per line when nobody listens.
+    public static boolean isTypeEnabled() {
+        return TYPE.isEnabled();
+    }
+    
+    public void end(int reservationId, String studentId, int itemCode, String course, int quantity) {
+        if (shouldCommit()) {
+            this.reservationId = reservationId;
+            this.studentId = studentId;
+            this.itemCode = itemCode;
+            this.course = course;
+            this.quantity = quantity;
+            commit();
+        }
+    }
+}
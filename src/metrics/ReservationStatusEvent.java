@@ -0,0 +1,48 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// A reservation moved to another status, cancellations included.
+@Name("merch.ReservationStatusChanged")
+@Label("Reservation Status Changed")
+@Category({"Merch", "Reservations"})
+@Description("A reservation changed status (approve, complete, cancel, expire)")
+@Enabled(false)
+@StackTrace(false)
+public class ReservationStatusEvent extends Event {
+    @Label("Reservation ID")
+    int reservationId;
+    
+    @Label("Item Code")
+    int itemCode;
+    
+    @Label("Course")
+    String course;
+    
+    @Label("Quantity")
+    int quantity;
+    
+    @Label("From Status")
+    String fromStatus;
+    
+    @Label("To Status")
+    String toStatus;
+    
+    public void end(int reservationId, int itemCode, String course, int quantity, String fromStatus, String toStatus) {
+        if (shouldCommit()) {
+            this.reservationId = reservationId;
+            this.itemCode = itemCode;
+            this.course = course;
+            this.quantity = quantity;
+            this.fromStatus = fromStatus;
+            this.toStatus = toStatus;
+            commit();
+        }
+    }
+}
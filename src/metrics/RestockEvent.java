@@ -0,0 +1,42 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Stock came back to an item: a cancelled reservation or rolled-back
+// checkout returned it, or an admin set a new quantity.
+@Name("merch.Restock")
+@Label("Restock")
+@Category({"Merch", "Stock"})
+@Description("Stock was returned to an item or its quantity was set")
+@Enabled(false)
+@StackTrace(false)
+public class RestockEvent extends Event {
+    @Label("Item Code")
+    int itemCode;
+    
+    @Label("Course")
+    String course;
+    
+    @Label("Quantity")
+    @Description("Units added; negative when an admin lowered the stock")
+    int quantity;
+    
+    @Label("Reason")
+    String reason;
+    
+    public void end(int itemCode, String course, int quantity, String reason) {
+        if (shouldCommit()) {
+            this.itemCode = itemCode;
+            this.course = course;
+            this.quantity = quantity;
+            this.reason = reason;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// A reservation asked for more than an item had, or for an item that no
+// longer exists (course is then null).
+@Name("merch.StockCheckFailed")
+@Label("Stock Check Failed")
+@Category({"Merch", "Stock"})
+@Description("A request for stock was turned down")
+@Enabled(false)
+@StackTrace(false)
+public class StockCheckFailedEvent extends Event {
+    @Label("Item Code")
+    int itemCode;
+    
+    @Label("Course")
+    String course;
+    
+    @Label("Quantity")
+    @Description("Units requested")
+    int quantity;
+    
+    @Label("Available")
+    int available;
+    
+    public void end(int itemCode, String course, int quantity, int available) {
+        if (shouldCommit()) {
+            this.itemCode = itemCode;
+            this.course = course;
+            this.quantity = quantity;
+            this.available = available;
+            commit();
+        }
+    }
+}
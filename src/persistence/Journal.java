@@ -0,0 +1,354 @@
+package persistence;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+// Append-only binary write-ahead log.
+// Each record is framed as [int length][int crc32][byte type][payload], where
+// length covers type + payload. A torn or corrupt tail is dropped on open.
+public class Journal implements AutoCloseable {
+    private static final int HEADER_SIZE = 8;
+    // No record comes close; a larger length read back is a corrupt header.
+    static final int MAX_RECORD_SIZE = 1 << 20;
+    
+    public interface RecordHandler {
+        void handle(byte type, DataInputStream payload) throws IOException;
+    }
+    
+    private Path file;
+    private FileChannel channel;
+    private final SyncPolicy policy;
+    private final ScheduledExecutorService syncTimer;
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition synced = lock.newCondition();
+    // Records are appended to 'pending'; a sync swaps it with 'writing' and
+    // writes that one out, so appends never wait for disk I/O.
+    private Buffer pending = new Buffer();
+    private Buffer writing = new Buffer();
+    private long appendedSeq;
+    private long durableSeq;
+    private boolean syncing;
+    private boolean closed;
+    // Set when a failed write could not be rolled back; the file may end in
+    // a torn frame, so nothing more is accepted.
+    private volatile IOException failure;
+    
+    private Journal(Path file, FileChannel channel, SyncPolicy policy, long syncIntervalMillis) {
+        this.file = file;
+        this.channel = channel;
+        this.policy = policy;
+        if (policy == SyncPolicy.INTERVAL) {
+            syncTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "journal-sync");
+                t.setDaemon(true);
+                return t;
+            });
+            syncTimer.scheduleWithFixedDelay(this::syncQuietly, syncIntervalMillis, syncIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            syncTimer = null;
+        }
+    }
+    
+    // Opens a journal for appending. Anything after the last valid record is truncated.
+    public static Journal open(Path file, SyncPolicy policy, long syncIntervalMillis) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        long validLength = Files.exists(file) ? replay(file, (type, payload) -> { }) : 0;
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.truncate(validLength);
+        channel.position(validLength);
+        return new Journal(file, channel, policy, syncIntervalMillis);
+    }
+    
+    // Reads every intact record in order and returns the length of the valid prefix.
+    public static long replay(Path file, RecordHandler handler) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        long valid = 0;
+        long size = Files.size(file);
+        try (InputStream raw = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(raw, 1 << 16))) {
+            CRC32 crc = new CRC32();
+            while (true) {
+                int length;
+                int checksum;
+                byte[] body;
+                try {
+                    length = in.readInt();
+                    checksum = in.readInt();
+                    // Checked before allocating, so a garbage length is a bad
+                    // tail rather than an OutOfMemoryError.
+                    if (length <= 0 || length > MAX_RECORD_SIZE || length > size - valid - HEADER_SIZE) {
+                        break;
+                    }
+                    body = new byte[length];
+                    in.readFully(body);
+                } catch (EOFException e) {
+                    break;
+                }
+                crc.reset();
+                crc.update(body, 0, body.length);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                handler.handle(body[0], new DataInputStream(new ByteArrayInputStream(body, 1, body.length - 1)));
+                valid += HEADER_SIZE + length;
+            }
+        }
+        return valid;
+    }
+    
+    public Path getFile() {
+        lock.lock();
+        try {
+            return file;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public long getAppendedCount() {
+        lock.lock();
+        try {
+            return appendedSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // Ends the current file and continues in 'next'. Every record appended
+    // before this call is durable in the old file, every later one goes to
+    // the new file, which makes the switch a clean cut for checkpoints.
+    public void rotate(Path next) throws IOException {
+        lock.lock();
+        try {
+            while (syncing) {
+                synced.awaitUninterruptibly();
+            }
+            writeAndForce(pending);
+            durableSeq = appendedSeq;
+            FileChannel nextChannel = FileChannel.open(next, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            channel.close();
+            channel = nextChannel;
+            file = next;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public SyncPolicy getPolicy() {
+        return policy;
+    }
+    
+    // Buffers a record and returns its sequence number. Only PER_OP writes
+    // and syncs here; the other policies never block on I/O, so it is safe to
+    // call while holding other locks.
+    public long append(byte type, byte[] payload) {
+        if (payload.length + 1 > MAX_RECORD_SIZE) {
+            throw new IllegalArgumentException("Journal record too large: " + payload.length + " bytes");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload, 0, payload.length);
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Journal is closed");
+            }
+            checkNotFailed();
+            pending.writeInt(payload.length + 1);
+            pending.writeInt((int) crc.getValue());
+            pending.write(type);
+            pending.write(payload, 0, payload.length);
+            long seq = ++appendedSeq;
+            if (policy == SyncPolicy.PER_OP) {
+                writeAndForce(pending);
+                durableSeq = seq;
+            }
+            return seq;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // Blocks until the record with the given sequence number is on disk, as
+    // far as the sync policy requires. Under BATCHED, one caller becomes the
+    // leader and syncs everything appended so far; the others wait for it.
+    public void awaitDurable(long seq) {
+        if (policy == SyncPolicy.INTERVAL) {
+            return;
+        }
+        lock.lock();
+        try {
+            while (durableSeq < seq) {
+                checkNotFailed();
+                if (syncing) {
+                    synced.awaitUninterruptibly();
+                } else {
+                    syncLocked();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public void sync() {
+        lock.lock();
+        try {
+            long target = appendedSeq;
+            while (durableSeq < target) {
+                checkNotFailed();
+                if (syncing) {
+                    synced.awaitUninterruptibly();
+                } else {
+                    syncLocked();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (RuntimeException e) {
+            System.err.println("Journal sync failed: " + e.getMessage());
+        }
+    }
+    
+    // Called with the lock held; releases it while writing.
+    private void syncLocked() {
+        syncing = true;
+        long target = appendedSeq;
+        Buffer batch = pending;
+        pending = writing;
+        writing = batch;
+        boolean written = false;
+        lock.unlock();
+        try {
+            writeAndForce(batch);
+            written = true;
+        } finally {
+            lock.lock();
+            syncing = false;
+            if (written) {
+                durableSeq = target;
+            } else {
+                // The failed bytes are older than anything appended since,
+                // so they go back in front and are written first next time.
+                pending.prepend(batch);
+                batch.size = 0;
+            }
+            synced.signalAll();
+        }
+    }
+    
+    // Only clears the batch once it is on disk. On failure the file is cut
+    // back to where the batch started, so a retry never leaves a torn frame
+    // in the middle; if even that fails, the journal is marked failed.
+    private void writeAndForce(Buffer batch) {
+        long start = -1;
+        try {
+            start = channel.position();
+            ByteBuffer bytes = ByteBuffer.wrap(batch.data, 0, batch.size);
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(false);
+            batch.size = 0;
+        } catch (IOException e) {
+            try {
+                if (start < 0) {
+                    throw new IOException("Journal position unknown");
+                }
+                channel.truncate(start);
+                channel.position(start);
+            } catch (IOException rollback) {
+                e.addSuppressed(rollback);
+                failure = e;
+            }
+            throw new UncheckedIOException("Failed to write journal " + file, e);
+        }
+    }
+    
+    private void checkNotFailed() {
+        IOException e = failure;
+        if (e != null) {
+            throw new UncheckedIOException("Journal " + file + " failed and can't be written", e);
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (syncTimer != null) {
+            syncTimer.shutdownNow();
+        }
+        sync();
+        lock.lock();
+        try {
+            closed = true;
+        } finally {
+            lock.unlock();
+        }
+        channel.close();
+    }
+    
+    private static final class Buffer {
+        byte[] data = new byte[1 << 12];
+        int size;
+        
+        void ensure(int extra) {
+            if (size + extra > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length << 1, size + extra));
+            }
+        }
+        
+        void write(int b) {
+            ensure(1);
+            data[size++] = (byte) b;
+        }
+        
+        void write(byte[] b, int off, int len) {
+            ensure(len);
+            System.arraycopy(b, off, data, size, len);
+            size += len;
+        }
+        
+        // Puts head's bytes in front of this buffer's.
+        void prepend(Buffer head) {
+            byte[] merged = new byte[Math.max(data.length, head.size + size)];
+            System.arraycopy(head.data, 0, merged, 0, head.size);
+            System.arraycopy(data, 0, merged, head.size, size);
+            data = merged;
+            size += head.size;
+        }
+        
+        void writeInt(int v) {
+            ensure(4);
+            data[size++] = (byte) (v >>> 24);
+            data[size++] = (byte) (v >>> 16);
+            data[size++] = (byte) (v >>> 8);
+            data[size++] = (byte) v;
+        }
+    }
+}
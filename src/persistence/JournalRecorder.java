@@ -0,0 +1,148 @@
+package persistence;
+
+import inventory.InventoryListener;
+import inventory.Item;
+import inventory.Reservation;
+import inventory.ReservationListener;
+import inventory.ReservationStatus;
+import student.Student;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.ZoneOffset;
+
+// Turns inventory, reservation and signup events into journal records.
+// Catalog and reservation records are appended while the manager's lock is
+// held, so they reach the log in the order they were applied. Stock changes
+// are lock-free CASes and can reach the log out of order, so each carries
+// the packed (version, quantity) word read after its CAS, and replay keeps
+// the highest version. The wait for durability happens in
+// operationCompleted(), after any lock is released, so concurrent callers
+// share one fsync.
+public class JournalRecorder implements InventoryListener, ReservationListener {
+    static final byte ITEM_ADDED = 1;
+    static final byte ITEM_REMOVED = 2;
+    // Carries the item's packed (version, quantity) after the change rather
+    // than the delta, so replay is idempotent and order-insensitive.
+    static final byte STOCK_STATE = 3;
+    static final byte RESERVATION_CREATED = 5;
+    static final byte RESERVATION_STATUS = 6;
+    static final byte STUDENT_REGISTERED = 7;
+    
+    private final Journal journal;
+    // False when stock lives in a MappedStockFile, which persists it in place.
+    private final boolean journalStock;
+    private final ThreadLocal<long[]> lastSeq = ThreadLocal.withInitial(() -> new long[1]);
+    
+    public JournalRecorder(Journal journal) {
+        this(journal, true);
+    }
+    
+    public JournalRecorder(Journal journal, boolean journalStock) {
+        this.journal = journal;
+        this.journalStock = journalStock;
+    }
+    
+    @Override
+    public void itemAdded(Item item) {
+        append(ITEM_ADDED, out -> writeItem(out, item));
+    }
+    
+    @Override
+    public void itemRemoved(Item item) {
+        append(ITEM_REMOVED, out -> out.writeInt(item.getCode()));
+    }
+    
+    @Override
+    public void stockAdjusted(Item item, int delta) {
+        appendStock(item);
+    }
+    
+    @Override
+    public void quantitySet(Item item, int quantity) {
+        appendStock(item);
+    }
+    
+    private void appendStock(Item item) {
+        if (!journalStock) {
+            return;
+        }
+        append(STOCK_STATE, out -> {
+            out.writeInt(item.getCode());
+            out.writeLong(item.getStock());
+        });
+    }
+    
+    @Override
+    public void reservationCreated(Reservation r) {
+        append(RESERVATION_CREATED, out -> writeReservation(out, r));
+    }
+    
+    @Override
+    public void statusChanged(Reservation r, ReservationStatus oldStatus) {
+        append(RESERVATION_STATUS, out -> {
+            out.writeInt(r.getReservationId());
+            out.writeByte(r.getStatus().ordinal());
+        });
+    }
+    
+    public void studentRegistered(Student s) {
+        append(STUDENT_REGISTERED, out -> writeStudent(out, s));
+        operationCompleted();
+    }
+    
+    @Override
+    public void operationCompleted() {
+        long[] seq = lastSeq.get();
+        if (seq[0] != 0) {
+            journal.awaitDurable(seq[0]);
+            seq[0] = 0;
+        }
+    }
+    
+    static void writeItem(DataOutputStream out, Item item) throws IOException {
+        out.writeInt(item.getCode());
+        out.writeUTF(item.getName());
+        out.writeUTF(item.getCourse());
+        out.writeUTF(item.getSize());
+        out.writeLong(item.getStock());
+        out.writeDouble(item.getPrice());
+    }
+    
+    static void writeReservation(DataOutputStream out, Reservation r) throws IOException {
+        out.writeInt(r.getReservationId());
+        out.writeUTF(r.getStudentName());
+        out.writeUTF(r.getStudentId());
+        out.writeUTF(r.getCourse());
+        out.writeInt(r.getItemCode());
+        out.writeUTF(r.getItemName());
+        out.writeInt(r.getQuantity());
+        out.writeLong(r.getReservationTime().toInstant(ZoneOffset.UTC).toEpochMilli());
+        out.writeByte(r.getStatus().ordinal());
+    }
+    
+    static void writeStudent(DataOutputStream out, Student s) throws IOException {
+        out.writeUTF(s.getUsername());
+        out.writeUTF(s.getPasswordHash());
+        out.writeUTF(s.getStudentId());
+        out.writeUTF(s.getCourse());
+        out.writeUTF(s.getFirstName());
+        out.writeUTF(s.getLastName());
+    }
+    
+    private interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+    
+    private void append(byte type, RecordWriter writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writer.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        lastSeq.get()[0] = journal.append(type, bytes.toByteArray());
+    }
+}
@@ -0,0 +1,111 @@
+package persistence;
+
+import inventory.InventoryManager;
+import inventory.Item;
+import inventory.Reservation;
+import inventory.ReservationManager;
+import inventory.ReservationStatus;
+import student.Student;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.function.Consumer;
+
+// Applies journal records back onto the in-memory managers.
+// Must run before any listener is attached, or replay would re-journal itself.
+// Every record is idempotent, so records that a snapshot already covers can
+// be replayed on top of it safely.
+public class JournalReplayer implements Journal.RecordHandler {
+    private static final ReservationStatus[] STATUSES = ReservationStatus.values();
+    
+    private final InventoryManager inventoryManager;
+    private final ReservationManager reservationManager;
+    private final Consumer<Student> studentSink;
+    private long records;
+    
+    public JournalReplayer(InventoryManager inventoryManager, ReservationManager reservationManager,
+                           Consumer<Student> studentSink) {
+        this.inventoryManager = inventoryManager;
+        this.reservationManager = reservationManager;
+        this.studentSink = studentSink;
+    }
+    
+    public long getRecordCount() {
+        return records;
+    }
+    
+    @Override
+    public void handle(byte type, DataInputStream in) throws IOException {
+        records++;
+        switch (type) {
+            case JournalRecorder.ITEM_ADDED:
+                Item item = readItem(in);
+                if (inventoryManager.findItemByCode(item.getCode()) == null) {
+                    inventoryManager.addItem(item);
+                }
+                break;
+            case JournalRecorder.ITEM_REMOVED:
+                inventoryManager.removeItem(in.readInt());
+                break;
+            case JournalRecorder.STOCK_STATE: {
+                Item target = inventoryManager.findItemByCode(in.readInt());
+                long stock = in.readLong();
+                if (target != null) {
+                    target.restoreStock(stock);
+                }
+                break;
+            }
+            case JournalRecorder.RESERVATION_CREATED:
+                Reservation r = readReservation(in);
+                if (reservationManager.findReservationById(r.getReservationId()) == null) {
+                    reservationManager.restoreReservation(r);
+                }
+                break;
+            case JournalRecorder.RESERVATION_STATUS:
+                reservationManager.updateReservationStatus(in.readInt(), STATUSES[in.readByte()]);
+                break;
+            case JournalRecorder.STUDENT_REGISTERED:
+                studentSink.accept(readStudent(in));
+                break;
+            default:
+                throw new IOException("Unknown journal record type: " + type);
+        }
+    }
+    
+    static Item readItem(DataInputStream in) throws IOException {
+        int code = in.readInt();
+        String name = in.readUTF();
+        String course = in.readUTF();
+        String size = in.readUTF();
+        long stock = in.readLong();
+        Item item = new Item(code, name, course, size, Item.quantityOf(stock), in.readDouble());
+        item.restoreStock(stock);
+        return item;
+    }
+    
+    static Reservation readReservation(DataInputStream in) throws IOException {
+        int id = in.readInt();
+        String studentName = in.readUTF();
+        String studentId = in.readUTF();
+        String course = in.readUTF();
+        int itemCode = in.readInt();
+        String itemName = in.readUTF();
+        int quantity = in.readInt();
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(in.readLong()), ZoneOffset.UTC);
+        ReservationStatus status = STATUSES[in.readByte()];
+        return new Reservation(id, studentName, studentId, course, itemCode, itemName, quantity, time, status);
+    }
+    
+    static Student readStudent(DataInputStream in) throws IOException {
+        String username = in.readUTF();
+        String passwordHash = in.readUTF();
+        String studentId = in.readUTF();
+        String course = in.readUTF();
+        String firstName = in.readUTF();
+        String lastName = in.readUTF();
+        return Student.restore(username, passwordHash, studentId, course, firstName, lastName);
+    }
+}
@@ -0,0 +1,232 @@
+package persistence;
+
+import inventory.Item;
+import inventory.StockStore;
+import utils.IntIntHashMap;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+// Item catalog as fixed-size records in a memory-mapped file. Each item's
+// stock is bound to its record (see Item.bindStock), so a reservation is a
+// CAS straight into the mapping: no serialization and no write() call. The
+// OS writes dirty pages back; force() bounds what a power loss can take.
+//
+// The file is mapped in fixed-size chunks so it can grow without remapping
+// slots that items are already bound to.
+//
+// Removing an item tombstones its slot in the same CAS that reads the final
+// stock (Item.unbindStock), so no reservation is lost to a removal. A CAS
+// that loaded the slot before the removal and stalls past it could still
+// land on a reused slot if the new item holds the identical stock word;
+// freed slots are reused oldest first to make that take a full turn of the
+// free list, and that remaining window is accepted.
+//
+// Record layout (128 bytes, stock first so it is 8-byte aligned):
+//   long stock (version << 32 | quantity), int code, int live flag,
+//   double price, name (2-byte length + 62 bytes UTF-8),
+//   course (2 + 22), size (2 + 14)
+public class MappedStockFile implements StockStore, AutoCloseable {
+    private static final int MAGIC = 0x4D53544B; // "MSTK"
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 128;
+    private static final int RECORDS_PER_CHUNK = 8192;
+    private static final int CHUNK_SIZE = RECORD_SIZE * RECORDS_PER_CHUNK;
+
+    private static final int STOCK = 0;
+    private static final int CODE = 8;
+    private static final int LIVE = 12;
+    private static final int PRICE = 16;
+    private static final int NAME = 24;
+    private static final int NAME_BYTES = 62;
+    private static final int COURSE = NAME + 2 + NAME_BYTES;
+    private static final int COURSE_BYTES = 22;
+    private static final int SIZE = COURSE + 2 + COURSE_BYTES;
+    private static final int SIZE_BYTES = 14;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final List<MappedByteBuffer> chunks = new ArrayList<>();
+    private final IntIntHashMap slotsByCode = new IntIntHashMap();
+    // Free slots as a ring: freeCount of them, oldest at freeHead.
+    private int[] freeSlots = new int[16];
+    private int freeHead;
+    private int freeCount;
+    private int slotCount;
+
+    private MappedStockFile(Path file, FileChannel channel) throws IOException {
+        this.file = file;
+        this.channel = channel;
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+    }
+
+    public static MappedStockFile open(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                               StandardOpenOption.WRITE);
+        MappedStockFile stockFile = new MappedStockFile(file, channel);
+        stockFile.load();
+        return stockFile;
+    }
+
+    private void load() throws IOException {
+        if (header.getInt(0) != MAGIC) {
+            header.putInt(0, MAGIC);
+            header.putInt(4, RECORD_SIZE);
+            header.putInt(8, 0);
+            return;
+        }
+        if (header.getInt(4) != RECORD_SIZE) {
+            throw new IOException("Unsupported stock file record size in " + file);
+        }
+        slotCount = header.getInt(8);
+        for (int slot = 0; slot < slotCount; slot++) {
+            ByteBuffer chunk = chunkFor(slot);
+            int base = offsetInChunk(slot);
+            if (chunk.getInt(base + LIVE) == 1) {
+                slotsByCode.put(chunk.getInt(base + CODE), slot);
+            } else {
+                freeSlot(slot);
+            }
+        }
+    }
+
+    // Calls the visitor with (code, packed stock) for every live record, so
+    // recovery can overlay stock levels that are newer than the journal's.
+    public synchronized void forEachStock(StockVisitor visitor) {
+        for (int slot = 0; slot < slotCount; slot++) {
+            ByteBuffer chunk = chunkFor(slot);
+            int base = offsetInChunk(slot);
+            if (chunk.getInt(base + LIVE) == 1) {
+                visitor.visit(chunk.getInt(base + CODE), chunk.getLong(base + STOCK));
+            }
+        }
+    }
+
+    public interface StockVisitor {
+        void visit(int code, long stock);
+    }
+
+    @Override
+    public synchronized void attach(Item item) {
+        int slot = slotsByCode.get(item.getCode());
+        if (slot < 0) {
+            slot = allocateSlot();
+        }
+        ByteBuffer chunk = chunkFor(slot);
+        int base = offsetInChunk(slot);
+        chunk.putInt(base + CODE, item.getCode());
+        chunk.putDouble(base + PRICE, item.getPrice());
+        writeString(chunk, base + NAME, item.getName(), NAME_BYTES);
+        writeString(chunk, base + COURSE, item.getCourse(), COURSE_BYTES);
+        writeString(chunk, base + SIZE, item.getSize(), SIZE_BYTES);
+        item.bindStock(chunk, base + STOCK);
+        chunk.putInt(base + LIVE, 1);
+        slotsByCode.put(item.getCode(), slot);
+    }
+
+    @Override
+    public synchronized void detach(Item item) {
+        int slot = slotsByCode.remove(item.getCode());
+        if (slot < 0) {
+            return;
+        }
+        item.unbindStock();
+        chunkFor(slot).putInt(offsetInChunk(slot) + LIVE, 0);
+        freeSlot(slot);
+    }
+
+    // Drops records for codes the catalog no longer has (e.g. the file
+    // outlived a removal that only reached the journal).
+    public synchronized void retainOnly(IntPredicate isLive) {
+        for (int slot = 0; slot < slotCount; slot++) {
+            ByteBuffer chunk = chunkFor(slot);
+            int base = offsetInChunk(slot);
+            if (chunk.getInt(base + LIVE) == 1 && !isLive.test(chunk.getInt(base + CODE))) {
+                slotsByCode.remove(chunk.getInt(base + CODE));
+                chunk.putInt(base + LIVE, 0);
+                freeSlot(slot);
+            }
+        }
+    }
+
+    private void freeSlot(int slot) {
+        if (freeCount == freeSlots.length) {
+            // Unroll the ring so it stays in order in the larger array.
+            int[] grown = new int[freeSlots.length * 2];
+            int tail = freeSlots.length - freeHead;
+            System.arraycopy(freeSlots, freeHead, grown, 0, tail);
+            System.arraycopy(freeSlots, 0, grown, tail, freeHead);
+            freeSlots = grown;
+            freeHead = 0;
+        }
+        freeSlots[(freeHead + freeCount) % freeSlots.length] = slot;
+        freeCount++;
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            int free = freeSlots[freeHead];
+            freeHead = (freeHead + 1) % freeSlots.length;
+            freeCount--;
+            return free;
+        }
+        int slot = slotCount++;
+        chunkFor(slot);
+        header.putInt(8, slotCount);
+        return slot;
+    }
+
+    private MappedByteBuffer chunkFor(int slot) {
+        int index = slot / RECORDS_PER_CHUNK;
+        while (chunks.size() <= index) {
+            long position = HEADER_SIZE + (long) chunks.size() * CHUNK_SIZE;
+            try {
+                chunks.add(channel.map(FileChannel.MapMode.READ_WRITE, position, CHUNK_SIZE));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to grow stock file " + file, e);
+            }
+        }
+        return chunks.get(index);
+    }
+
+    private static int offsetInChunk(int slot) {
+        return (slot % RECORDS_PER_CHUNK) * RECORD_SIZE;
+    }
+
+    private static void writeString(ByteBuffer buffer, int offset, String value, int maxBytes) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, maxBytes);
+        // Cut before a continuation byte would split a multi-byte character.
+        while (length < bytes.length && length > 0 && (bytes[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        buffer.putShort(offset, (short) length);
+        buffer.put(offset + 2, bytes, 0, length);
+    }
+
+    // Flushes dirty pages to disk.
+    public synchronized void force() {
+        header.force();
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        force();
+        channel.close();
+    }
+}
@@ -0,0 +1,147 @@
+package persistence;
+
+import inventory.InventoryManager;
+import inventory.Item;
+import inventory.Reservation;
+import inventory.ReservationManager;
+import student.Student;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+// Compact binary image of the catalog, reservations (with nextReservationId)
+// and student registry. Layout:
+//   magic, format version, item count, items, nextReservationId,
+//   reservation count, reservations, student count, students, crc32
+// Written to a temp file and moved into place, so a crash never leaves a
+// half-written snapshot under the final name.
+public class Snapshot {
+    private static final int MAGIC = 0x4D534E50; // "MSNP"
+    private static final int FORMAT_VERSION = 1;
+    
+    public static class Counts {
+        public final int items;
+        public final int reservations;
+        public final int students;
+        
+        Counts(int items, int reservations, int students) {
+            this.items = items;
+            this.reservations = reservations;
+            this.students = students;
+        }
+        
+        @Override
+        public String toString() {
+            return items + " items, " + reservations + " reservations, " + students + " students";
+        }
+    }
+    
+    public static Counts write(Path file, InventoryManager inventoryManager, ReservationManager reservationManager,
+                               Collection<Student> students) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        List<Item> items = inventoryManager.getAllItems();
+        // Read the ID counter first: anything created after this is either in
+        // the list below or in the journal tail, and restore bumps the counter.
+        int nextReservationId = reservationManager.getNextReservationId();
+        List<Reservation> reservations = reservationManager.getAllReservations();
+        CRC32 crc = new CRC32();
+        try (OutputStream raw = Files.newOutputStream(temp);
+             CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(raw, 1 << 16), crc);
+             DataOutputStream out = new DataOutputStream(checked)) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(items.size());
+            for (Item item : items) {
+                JournalRecorder.writeItem(out, item);
+            }
+            out.writeInt(nextReservationId);
+            out.writeInt(reservations.size());
+            for (Reservation r : reservations) {
+                JournalRecorder.writeReservation(out, r);
+            }
+            out.writeInt(students.size());
+            for (Student s : students) {
+                JournalRecorder.writeStudent(out, s);
+            }
+            out.flush();
+            // The trailing checksum covers everything before it.
+            new DataOutputStream(raw).writeInt((int) crc.getValue());
+        }
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new Counts(items.size(), reservations.size(), students.size());
+    }
+    
+    // Checks the trailing checksum without decoding anything, so a damaged
+    // snapshot can be skipped before it touches the managers.
+    public static boolean verify(Path file) throws IOException {
+        long length = Files.size(file);
+        if (length < 12) {
+            return false;
+        }
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[1 << 16];
+        try (InputStream in = Files.newInputStream(file)) {
+            long remaining = length - 4;
+            while (remaining > 0) {
+                int n = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (n < 0) {
+                    return false;
+                }
+                crc.update(buffer, 0, n);
+                remaining -= n;
+            }
+            return new DataInputStream(in).readInt() == (int) crc.getValue();
+        }
+    }
+    
+    // Loads a snapshot into empty managers. Throws IOException if the file is
+    // truncated or its checksum does not match.
+    public static Counts load(Path file, InventoryManager inventoryManager, ReservationManager reservationManager,
+                              Consumer<Student> studentSink) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream raw = new BufferedInputStream(Files.newInputStream(file), 1 << 16);
+             CheckedInputStream checked = new CheckedInputStream(raw, crc);
+             DataInputStream in = new DataInputStream(checked)) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException("Not a snapshot file: " + file);
+            }
+            int itemCount = in.readInt();
+            for (int i = 0; i < itemCount; i++) {
+                inventoryManager.addItem(JournalReplayer.readItem(in));
+            }
+            reservationManager.setNextReservationId(in.readInt());
+            int reservationCount = in.readInt();
+            for (int i = 0; i < reservationCount; i++) {
+                reservationManager.restoreReservation(JournalReplayer.readReservation(in));
+            }
+            int studentCount = in.readInt();
+            for (int i = 0; i < studentCount; i++) {
+                studentSink.accept(JournalReplayer.readStudent(in));
+            }
+            int expected = (int) crc.getValue();
+            if (new DataInputStream(raw).readInt() != expected) {
+                throw new IOException("Snapshot checksum mismatch: " + file);
+            }
+            return new Counts(itemCount, reservationCount, studentCount);
+        }
+    }
+}
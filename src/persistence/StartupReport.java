@@ -0,0 +1,28 @@
+package persistence;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Wall-clock time per startup phase, printed once the system is up.
+public class StartupReport {
+    private final List<String> phases = new ArrayList<>();
+    private final long startNanos = System.nanoTime();
+    private long markNanos = startNanos;
+    
+    // Records the time since the previous phase ended.
+    public void phase(String name, String detail) {
+        long now = System.nanoTime();
+        phases.add(String.format("   %-22s %8.1f ms  %s", name, (now - markNanos) / 1e6, detail));
+        markNanos = now;
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Startup phases:\n");
+        for (String phase : phases) {
+            sb.append(phase).append('\n');
+        }
+        sb.append(String.format("   %-22s %8.1f ms", "Total", (markNanos - startNanos) / 1e6));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,282 @@
+package persistence;
+
+import inventory.InventoryManager;
+import inventory.Item;
+import inventory.ReservationManager;
+import student.Student;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Owns the on-disk state of the system: recovers it at boot and journals
+// every change afterwards.
+//
+// The data directory holds numbered journal segments (journal-N.wal) and
+// snapshots (snapshot-N.snap). snapshot-N covers everything in segments
+// before N, so recovery loads the newest valid snapshot and replays only
+// segments N and later. A checkpoint rotates to a fresh segment, writes the
+// snapshot, then deletes what it made obsolete.
+//
+// Configured with system properties:
+//   merch.persistence         "off" disables storage entirely (default on)
+//   merch.data.dir            directory for data files (default "data")
+//   merch.journal.sync        PER_OP, BATCHED or INTERVAL (default BATCHED)
+//   merch.journal.interval    sync interval in ms for INTERVAL (default 50)
+//   merch.snapshot.interval   seconds between checkpoint checks (default 60)
+//   merch.snapshot.records    journal records that trigger a checkpoint (default 10000)
+//   merch.stock.file          "on" keeps stock in a memory-mapped stock.dat (default off)
+//   merch.stock.sync          ms between flushes of stock.dat to disk (default 1000)
+//
+// With the stock file on, stock changes are CAS'd straight into the mapping
+// and are no longer journaled. The file survives a process crash as-is
+// (dirty pages belong to the OS); a power loss can lose up to one
+// merch.stock.sync interval of stock changes.
+public class Storage implements AutoCloseable {
+    private static final String JOURNAL_PREFIX = "journal-";
+    private static final String JOURNAL_SUFFIX = ".wal";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    
+    private final Path dataDir;
+    private final SyncPolicy syncPolicy;
+    private final long syncIntervalMillis;
+    private final long snapshotIntervalSeconds;
+    private final long snapshotRecords;
+    private final boolean stockFileEnabled;
+    private final long stockSyncMillis;
+    
+    private InventoryManager inventoryManager;
+    private ReservationManager reservationManager;
+    private Supplier<Collection<Student>> students;
+    private Journal journal;
+    private MappedStockFile stockFile;
+    private JournalRecorder recorder;
+    private ScheduledExecutorService checkpointTimer;
+    private long segment;
+    private long recordsAtCheckpoint;
+    private StartupReport startupReport = new StartupReport();
+    
+    public Storage(Path dataDir, SyncPolicy syncPolicy, long syncIntervalMillis,
+                   long snapshotIntervalSeconds, long snapshotRecords) {
+        this(dataDir, syncPolicy, syncIntervalMillis, snapshotIntervalSeconds, snapshotRecords, false, 0);
+    }
+    
+    public Storage(Path dataDir, SyncPolicy syncPolicy, long syncIntervalMillis,
+                   long snapshotIntervalSeconds, long snapshotRecords,
+                   boolean stockFileEnabled, long stockSyncMillis) {
+        this.dataDir = dataDir;
+        this.syncPolicy = syncPolicy;
+        this.syncIntervalMillis = syncIntervalMillis;
+        this.snapshotIntervalSeconds = snapshotIntervalSeconds;
+        this.snapshotRecords = snapshotRecords;
+        this.stockFileEnabled = stockFileEnabled;
+        this.stockSyncMillis = stockSyncMillis;
+    }
+    
+    // Returns null when persistence is switched off.
+    public static Storage fromSystemProperties() {
+        if ("off".equalsIgnoreCase(System.getProperty("merch.persistence", "on"))) {
+            return null;
+        }
+        Path dir = Paths.get(System.getProperty("merch.data.dir", "data"));
+        SyncPolicy policy = SyncPolicy.valueOf(System.getProperty("merch.journal.sync", "BATCHED").toUpperCase());
+        long interval = Long.getLong("merch.journal.interval", 50L);
+        long snapshotInterval = Long.getLong("merch.snapshot.interval", 60L);
+        long snapshotRecords = Long.getLong("merch.snapshot.records", 10_000L);
+        boolean stockFile = "on".equalsIgnoreCase(System.getProperty("merch.stock.file", "off"));
+        long stockSync = Long.getLong("merch.stock.sync", 1000L);
+        return new Storage(dir, policy, interval, snapshotInterval, snapshotRecords, stockFile, stockSync);
+    }
+    
+    public Path getDataDir() { return dataDir; }
+    public SyncPolicy getSyncPolicy() { return syncPolicy; }
+    public StartupReport getStartupReport() { return startupReport; }
+    
+    // Loads the newest valid snapshot and replays the journal tail into the
+    // (empty) managers. Returns false if there was nothing to recover, i.e.
+    // this is a first start.
+    public boolean recover(InventoryManager inventoryManager, ReservationManager reservationManager,
+                           Consumer<Student> studentSink) throws IOException {
+        Files.createDirectories(dataDir);
+        startupReport = new StartupReport();
+        
+        long snapshotSegment = 0;
+        Snapshot.Counts counts = null;
+        List<Long> snapshots = list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            Path file = snapshotFile(snapshots.get(i));
+            if (Snapshot.verify(file)) {
+                counts = Snapshot.load(file, inventoryManager, reservationManager, studentSink);
+                snapshotSegment = snapshots.get(i);
+                break;
+            }
+            System.err.println("Skipping damaged snapshot " + file);
+        }
+        startupReport.phase("Load snapshot", counts == null ? "(none)" : counts.toString());
+        
+        JournalReplayer replayer = new JournalReplayer(inventoryManager, reservationManager, studentSink);
+        List<Long> segments = list(JOURNAL_PREFIX, JOURNAL_SUFFIX);
+        int replayed = 0;
+        for (long n : segments) {
+            if (n >= snapshotSegment) {
+                Journal.replay(journalFile(n), replayer);
+                replayed++;
+            }
+        }
+        startupReport.phase("Replay journal tail", replayer.getRecordCount() + " records in " + replayed + " segment(s)");
+        
+        if (stockFileEnabled) {
+            overlayStockFile(inventoryManager);
+        }
+        
+        segment = Math.max(snapshotSegment, segments.isEmpty() ? 1 : segments.get(segments.size() - 1));
+        segment = Math.max(segment, 1);
+        return counts != null || replayer.getRecordCount() > 0;
+    }
+    
+    // The stock file holds the newest stock levels, since they are not in the
+    // journal. Versions only grow, so restoreStock keeps whichever of file and
+    // journal is newer; records for items that no longer exist are dropped.
+    private void overlayStockFile(InventoryManager inventoryManager) throws IOException {
+        stockFile = MappedStockFile.open(dataDir.resolve("stock.dat"));
+        int[] restored = new int[1];
+        stockFile.forEachStock((code, stock) -> {
+            Item item = inventoryManager.findItemByCode(code);
+            if (item != null && item.restoreStock(stock)) {
+                restored[0]++;
+            }
+        });
+        stockFile.retainOnly(code -> inventoryManager.findItemByCode(code) != null);
+        startupReport.phase("Overlay stock file", restored[0] + " stock levels");
+    }
+    
+    // Starts journaling every change made through the managers and schedules
+    // periodic checkpoints.
+    public void attach(InventoryManager inventoryManager, ReservationManager reservationManager,
+                       Supplier<Collection<Student>> students) throws IOException {
+        this.inventoryManager = inventoryManager;
+        this.reservationManager = reservationManager;
+        this.students = students;
+        if (segment == 0) {
+            segment = 1;
+        }
+        if (stockFileEnabled && stockFile == null) {
+            stockFile = MappedStockFile.open(dataDir.resolve("stock.dat"));
+        }
+        if (stockFile != null) {
+            inventoryManager.setStockStore(stockFile);
+        }
+        journal = Journal.open(journalFile(segment), syncPolicy, syncIntervalMillis);
+        recorder = new JournalRecorder(journal, stockFile == null);
+        inventoryManager.addListener(recorder);
+        reservationManager.addListener(recorder);
+        startupReport.phase("Open journal", journalFile(segment).getFileName() + " (" + syncPolicy + ")");
+        
+        checkpointTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "checkpoint");
+            t.setDaemon(true);
+            return t;
+        });
+        checkpointTimer.scheduleWithFixedDelay(this::checkpointIfDue,
+            snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+        if (stockFile != null) {
+            checkpointTimer.scheduleWithFixedDelay(stockFile::force,
+                stockSyncMillis, stockSyncMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    public void recordStudent(Student student) {
+        if (recorder != null) {
+            recorder.studentRegistered(student);
+        }
+    }
+    
+    private synchronized void checkpointIfDue() {
+        try {
+            if (journal.getAppendedCount() - recordsAtCheckpoint >= snapshotRecords) {
+                checkpoint();
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Checkpoint failed: " + e.getMessage());
+        }
+    }
+    
+    // Rotates the journal, writes a snapshot that covers every earlier
+    // segment, and deletes the segments and snapshots it supersedes.
+    public synchronized Snapshot.Counts checkpoint() throws IOException {
+        long next = segment + 1;
+        recordsAtCheckpoint = journal.getAppendedCount();
+        journal.rotate(journalFile(next));
+        segment = next;
+        Snapshot.Counts counts = Snapshot.write(snapshotFile(next), inventoryManager, reservationManager, students.get());
+        for (long n : list(JOURNAL_PREFIX, JOURNAL_SUFFIX)) {
+            if (n < next) {
+                Files.deleteIfExists(journalFile(n));
+            }
+        }
+        for (long n : list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+            if (n < next) {
+                Files.deleteIfExists(snapshotFile(n));
+            }
+        }
+        return counts;
+    }
+    
+    private Path journalFile(long n) {
+        return dataDir.resolve(String.format("%s%08d%s", JOURNAL_PREFIX, n, JOURNAL_SUFFIX));
+    }
+    
+    private Path snapshotFile(long n) {
+        return dataDir.resolve(String.format("%s%08d%s", SNAPSHOT_PREFIX, n, SNAPSHOT_SUFFIX));
+    }
+    
+    // Sequence numbers of the files with the given prefix/suffix, ascending.
+    private List<Long> list(String prefix, String suffix) throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        if (!Files.isDirectory(dataDir)) {
+            return numbers;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dataDir, prefix + "*" + suffix)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    numbers.add(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())));
+                } catch (NumberFormatException e) {
+                    // Not one of ours.
+                }
+            }
+        }
+        Collections.sort(numbers);
+        return numbers;
+    }
+    
+    // Takes a final checkpoint when there is anything new, so the next start
+    // only has to load the snapshot.
+    @Override
+    public synchronized void close() throws IOException {
+        if (journal == null) {
+            return;
+        }
+        checkpointTimer.shutdownNow();
+        if (journal.getAppendedCount() > recordsAtCheckpoint) {
+            checkpoint();
+        }
+        journal.close();
+        journal = null;
+        if (stockFile != null) {
+            stockFile.close();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package persistence;
+
+public enum SyncPolicy {
+    // fsync after every record; the caller waits for its own sync.
+    PER_OP,
+    // Group commit: callers wait for durability, but one fsync covers every
+    // record appended while the previous fsync was running.
+    BATCHED,
+    // A background thread fsyncs on a fixed interval; callers never wait, so a
+    // crash can lose up to one interval of changes.
+    INTERVAL
+}
@@ -0,0 +1,191 @@
+package server;
+
+import inventory.Item;
+import inventory.Reservation;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+// Just enough JSON for the HTTP API: writes items and reservations, and
+// reads flat request bodies like {"itemCode": 1001, "quantity": 2}.
+public final class Json {
+    private static final Pattern NUMBER = Pattern.compile("-?\\d+(\\.\\d+)?([eE][+-]?\\d+)?");
+    
+    private Json() {
+    }
+    
+    public static void writeItem(Appendable out, Item item) throws IOException {
+        out.append("{\"code\":").append(Integer.toString(item.getCode()))
+           .append(",\"name\":");
+        writeString(out, item.getName());
+        out.append(",\"course\":");
+        writeString(out, item.getCourse());
+        out.append(",\"size\":");
+        writeString(out, item.getSize());
+        out.append(",\"quantity\":").append(Integer.toString(item.getQuantity()))
+           .append(",\"price\":").append(Double.toString(item.getPrice()))
+           .append('}');
+    }
+    
+    public static void writeReservation(Appendable out, Reservation r) throws IOException {
+        out.append("{\"id\":").append(Integer.toString(r.getReservationId()))
+           .append(",\"studentId\":");
+        writeString(out, r.getStudentId());
+        out.append(",\"studentName\":");
+        writeString(out, r.getStudentName());
+        out.append(",\"course\":");
+        writeString(out, r.getCourse());
+        out.append(",\"itemCode\":").append(Integer.toString(r.getItemCode()))
+           .append(",\"itemName\":");
+        writeString(out, r.getItemName());
+        out.append(",\"quantity\":").append(Integer.toString(r.getQuantity()))
+           .append(",\"status\":");
+        writeString(out, r.getStatus().name());
+        out.append(",\"reservedAt\":");
+        writeString(out, r.getReservationTime().toString());
+        out.append('}');
+    }
+    
+    public static void writeString(Appendable out, String value) throws IOException {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+    
+    // Parses an object whose values are strings, numbers, booleans or null.
+    // Values come back as strings (null as null). Throws
+    // IllegalArgumentException on anything else, including nested values.
+    public static Map<String, String> parseObject(String text) {
+        Parser p = new Parser(text);
+        Map<String, String> result = new LinkedHashMap<>();
+        p.skipSpace();
+        p.expect('{');
+        p.skipSpace();
+        if (p.peek() == '}') {
+            p.pos++;
+        } else {
+            while (true) {
+                p.skipSpace();
+                String key = p.readString();
+                p.skipSpace();
+                p.expect(':');
+                p.skipSpace();
+                result.put(key, p.readValue());
+                p.skipSpace();
+                if (p.peek() == ',') {
+                    p.pos++;
+                    continue;
+                }
+                p.expect('}');
+                break;
+            }
+        }
+        p.skipSpace();
+        if (p.pos != text.length()) {
+            throw new IllegalArgumentException("Unexpected content after JSON object");
+        }
+        return result;
+    }
+    
+    private static final class Parser {
+        final String text;
+        int pos;
+        
+        Parser(String text) {
+            this.text = text;
+        }
+        
+        char peek() {
+            if (pos >= text.length()) {
+                throw new IllegalArgumentException("Unexpected end of JSON");
+            }
+            return text.charAt(pos);
+        }
+        
+        void expect(char c) {
+            if (peek() != c) {
+                throw new IllegalArgumentException("Expected '" + c + "' at position " + pos);
+            }
+            pos++;
+        }
+        
+        void skipSpace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+        
+        String readValue() {
+            char c = peek();
+            if (c == '"') {
+                return readString();
+            }
+            int start = pos;
+            while (pos < text.length() && ",} \t\r\n".indexOf(text.charAt(pos)) < 0) {
+                pos++;
+            }
+            String literal = text.substring(start, pos);
+            if (literal.equals("null")) {
+                return null;
+            }
+            if (literal.equals("true") || literal.equals("false") || NUMBER.matcher(literal).matches()) {
+                return literal;
+            }
+            throw new IllegalArgumentException("Unsupported JSON value at position " + start);
+        }
+        
+        String readString() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                char c = peek();
+                pos++;
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                char escape = peek();
+                pos++;
+                switch (escape) {
+                    case '"': sb.append('"'); break;
+                    case '\\': sb.append('\\'); break;
+                    case '/': sb.append('/'); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'u':
+                        if (pos + 4 > text.length()) {
+                            throw new IllegalArgumentException("Bad unicode escape");
+                        }
+                        sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        pos += 4;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Bad escape '\\" + escape + "'");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,489 @@
+package server;
+
+import admin.Admin;
+import audit.AuditAction;
+import audit.AuditLog;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import inventory.CheckoutResult;
+import inventory.InventoryManager;
+import inventory.Item;
+import inventory.Reservation;
+import inventory.ReservationManager;
+import inventory.ReservationService;
+import inventory.ReservationStatus;
+import main.MerchSystem;
+import student.Student;
+import student.StudentRegistry;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+// JSON over HTTP for kiosks and other programs, on the JDK's built-in
+// server with one virtual thread per request.
+//
+//   GET  /api/items                     all items (streamed)
+//   GET  /api/items?course=BSIT         items for a course (streamed)
+//   GET  /api/items/{code}
+//   PUT  /api/items/{code}/quantity     admin; {"quantity": 50}
+//   GET  /api/courses
+//   POST /api/reservations              student; {"studentId": "...", "itemCode": 1001, "quantity": 1}
+//   GET  /api/reservations?studentId=   admin, or that student
+//   GET  /api/reservations/{id}         admin, or the student it belongs to
+//   POST /api/reservations/{id}/cancel  admin, or the student cancelling their
+//                                       own PENDING reservation
+//   PUT  /api/reservations/{id}/status  admin; {"status": "APPROVED"}
+//
+// Both kinds of caller use HTTP Basic auth. Admin calls go into the audit
+// log as "<username> (http)". A student's username and password must match
+// the studentId the request is about, as at the console login. Errors come
+// back as {"error": "..."} with a 4xx/5xx status.
+public class MerchHttpApi implements AutoCloseable {
+    public static final int DEFAULT_PORT = 8080;
+    private static final int MAX_BODY = 1 << 16;
+    
+    private final InventoryManager inventoryManager;
+    private final ReservationManager reservationManager;
+    private final ReservationService reservationService;
+    private final StudentRegistry studentRegistry;
+    // Null when the audit log is off.
+    private final AuditLog auditLog;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    
+    // Binds to the loopback address unless merch.http.bind names another
+    // (e.g. 0.0.0.0 for kiosks on the campus network). Port 0 picks a free port.
+    public MerchHttpApi(MerchSystem system, int port) throws IOException {
+        this.inventoryManager = system.getInventoryManager();
+        this.reservationManager = system.getReservationManager();
+        this.reservationService = system.getReservationService();
+        this.studentRegistry = system.getStudentRegistry();
+        this.auditLog = system.getAuditLog();
+        String bind = System.getProperty("merch.http.bind", "127.0.0.1");
+        // Responses are small; don't let Nagle hold them back.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        this.server = HttpServer.create(new InetSocketAddress(bind, port), 1024);
+        server.createContext("/api/items", exchange -> dispatch(exchange, this::items));
+        server.createContext("/api/courses", exchange -> dispatch(exchange, this::courses));
+        server.createContext("/api/reservations", exchange -> dispatch(exchange, this::reservations));
+        server.setExecutor(executor);
+    }
+    
+    public void start() {
+        server.start();
+    }
+    
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+    
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+    
+    private interface Route {
+        void handle(HttpExchange exchange, String[] path) throws IOException;
+    }
+    
+    private static final class ApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        
+        final int status;
+        
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+    
+    private void dispatch(HttpExchange exchange, Route route) {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            String[] segments = path.replaceAll("^/+|/+$", "").split("/+");
+            try {
+                route.handle(exchange, segments);
+            } catch (ApiException e) {
+                sendError(exchange, e.status, e.getMessage());
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, e.getMessage());
+            } catch (UncheckedIOException e) {
+                // The client went away mid-stream; nothing left to tell it.
+            } catch (RuntimeException e) {
+                sendError(exchange, 500, "Internal error");
+                System.err.println("HTTP " + path + " failed: " + e);
+            }
+        } catch (IOException e) {
+            // Same as above: the connection is gone.
+        }
+    }
+    
+    // /api/items[/{code}[/quantity]]
+    private void items(HttpExchange exchange, String[] path) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (path.length == 2) {
+            requireMethod(method, "GET");
+            String course = queryParam(exchange, "course");
+            streamItems(exchange, course);
+            return;
+        }
+        int code = parseInt(path[2], "item code");
+        if (path.length == 3) {
+            requireMethod(method, "GET");
+            sendJson(exchange, 200, out -> Json.writeItem(out, requireItem(code)));
+            return;
+        }
+        if (path.length == 4 && path[3].equals("quantity")) {
+            requireMethod(method, "PUT");
+            requireAdmin(exchange);
+            int quantity = parseInt(requireField(readBody(exchange), "quantity"), "quantity");
+            if (quantity < 0) {
+                throw new ApiException(400, "quantity must not be negative");
+            }
+            Item before = requireItem(code);
+            int oldQuantity = before.getQuantity();
+            if (!inventoryManager.updateItemQuantity(code, quantity)) {
+                throw new ApiException(404, "No item " + code);
+            }
+            audit(exchange, AuditAction.QUANTITY_UPDATED, code, 0, String.valueOf(oldQuantity), String.valueOf(quantity),
+                  before.getName() + " (" + before.getCourse() + ", " + before.getSize() + ")");
+            sendJson(exchange, 200, out -> Json.writeItem(out, requireItem(code)));
+            return;
+        }
+        throw new ApiException(404, "Not found");
+    }
+    
+    // Writes the array item by item as the catalog is walked; nothing is
+    // collected first, and the body goes out chunked.
+    private void streamItems(HttpExchange exchange, String course) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), 1 << 13);
+        boolean[] first = {true};
+        out.write('[');
+        Consumer<Item> writer = item -> {
+            try {
+                if (!first[0]) {
+                    out.write(',');
+                }
+                first[0] = false;
+                Json.writeItem(out, item);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+        if (course == null) {
+            inventoryManager.forEachItem(writer);
+        } else {
+            inventoryManager.forEachItemInCourse(course, writer);
+        }
+        out.write(']');
+        out.flush();
+    }
+    
+    private void courses(HttpExchange exchange, String[] path) throws IOException {
+        requireMethod(exchange.getRequestMethod(), "GET");
+        if (path.length != 2) {
+            throw new ApiException(404, "Not found");
+        }
+        List<String> courses = inventoryManager.getAvailableCourses();
+        sendJson(exchange, 200, out -> {
+            out.append('[');
+            for (int i = 0; i < courses.size(); i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                Json.writeString(out, courses.get(i));
+            }
+            out.append(']');
+        });
+    }
+    
+    // /api/reservations[/{id}[/cancel|/status]]
+    private void reservations(HttpExchange exchange, String[] path) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (path.length == 2) {
+            if (method.equals("POST")) {
+                createReservation(exchange);
+                return;
+            }
+            requireMethod(method, "GET");
+            String studentId = queryParam(exchange, "studentId");
+            if (studentId == null) {
+                throw new ApiException(400, "studentId is required");
+            }
+            if (!isAdmin(exchange)) {
+                requireStudent(exchange, studentId);
+            }
+            List<Reservation> reservations = reservationManager.getReservationsByStudent(studentId);
+            sendJson(exchange, 200, out -> {
+                out.append('[');
+                for (int i = 0; i < reservations.size(); i++) {
+                    if (i > 0) {
+                        out.append(',');
+                    }
+                    Json.writeReservation(out, reservations.get(i));
+                }
+                out.append(']');
+            });
+            return;
+        }
+        int id = parseInt(path[2], "reservation id");
+        if (path.length == 3) {
+            requireMethod(method, "GET");
+            Reservation r = requireReservation(id);
+            if (!isAdmin(exchange)) {
+                requireStudent(exchange, r.getStudentId());
+            }
+            sendJson(exchange, 200, out -> Json.writeReservation(out, r));
+            return;
+        }
+        if (path.length == 4 && path[3].equals("cancel")) {
+            requireMethod(method, "POST");
+            cancelReservation(exchange, id);
+            return;
+        }
+        if (path.length == 4 && path[3].equals("status")) {
+            requireMethod(method, "PUT");
+            requireAdmin(exchange);
+            ReservationStatus status = ReservationStatus.fromLabel(requireField(readBody(exchange), "status"));
+            // Reservations are point-in-time copies: the change only applies
+            // while the status is still the one read here, and the response
+            // is read again afterwards.
+            Reservation r = requireReservation(id);
+            ReservationStatus oldStatus = r.getStatus();
+            boolean changed = status == ReservationStatus.CANCELLED
+                ? reservationService.cancelReservation(id, oldStatus)
+                : reservationManager.updateReservationStatus(id, status, oldStatus);
+            if (!changed) {
+                throw new ApiException(409, "Cannot change " + requireReservation(id).getStatus().name() + " to " + status.name());
+            }
+            audit(exchange, status == ReservationStatus.CANCELLED ? AuditAction.RESERVATION_CANCELLED : AuditAction.STATUS_UPDATED,
+                  r.getItemCode(), id, oldStatus.name(), status.name(), describe(r));
+            Reservation updated = requireReservation(id);
+            sendJson(exchange, 200, out -> Json.writeReservation(out, updated));
+            return;
+        }
+        throw new ApiException(404, "Not found");
+    }
+    
+    private void createReservation(HttpExchange exchange) throws IOException {
+        Map<String, String> body = readBody(exchange);
+        Student student = requireStudent(exchange, requireField(body, "studentId"));
+        Item item = requireItem(parseInt(requireField(body, "itemCode"), "itemCode"));
+        int quantity = parseInt(requireField(body, "quantity"), "quantity");
+        if (quantity <= 0) {
+            throw new ApiException(400, "quantity must be positive");
+        }
+        if (!item.getCourse().equalsIgnoreCase(student.getCourse())
+            && !item.getCourse().equalsIgnoreCase("STI Special")) {
+            throw new ApiException(403, "Item " + item.getCode() + " is not available for " + student.getCourse());
+        }
+        CheckoutResult result = reservationService.reserve(student.getFullName(), student.getStudentId(), student.getCourse(),
+                                                           item, quantity);
+        if (!result.isSuccess()) {
+            throw new ApiException(409, result.getMessage());
+        }
+        Reservation r = result.getReservations().get(0);
+        sendJson(exchange, 201, out -> Json.writeReservation(out, r));
+    }
+    
+    private void cancelReservation(HttpExchange exchange, int id) throws IOException {
+        Reservation r = requireReservation(id);
+        ReservationStatus oldStatus = r.getStatus();
+        boolean admin = isAdmin(exchange);
+        if (!admin) {
+            requireStudent(exchange, r.getStudentId());
+            if (oldStatus != ReservationStatus.PENDING) {
+                throw new ApiException(409, "Only PENDING reservations can be cancelled");
+            }
+        }
+        // Only cancels if nobody changed the status since it was read above;
+        // for students that keeps it to PENDING.
+        if (!reservationService.cancelReservation(id, oldStatus)) {
+            throw new ApiException(409, "Reservation is already " + requireReservation(id).getStatus().name());
+        }
+        // Students cancelling their own reservations aren't admin actions.
+        if (admin) {
+            audit(exchange, AuditAction.RESERVATION_CANCELLED, r.getItemCode(), id, oldStatus.name(),
+                  ReservationStatus.CANCELLED.name(), describe(r));
+        }
+        Reservation cancelled = requireReservation(id);
+        sendJson(exchange, 200, out -> Json.writeReservation(out, cancelled));
+    }
+    
+    private Item requireItem(int code) {
+        Item item = inventoryManager.findItemByCode(code);
+        if (item == null) {
+            throw new ApiException(404, "No item " + code);
+        }
+        return item;
+    }
+    
+    private Reservation requireReservation(int id) {
+        Reservation r = reservationManager.findReservationById(id);
+        if (r == null) {
+            throw new ApiException(404, "No reservation " + id);
+        }
+        return r;
+    }
+    
+    private static void requireMethod(String method, String expected) {
+        if (!method.equals(expected)) {
+            throw new ApiException(405, "Use " + expected);
+        }
+    }
+    
+    private static boolean isAdmin(HttpExchange exchange) {
+        return adminName(exchange) != null;
+    }
+    
+    // The Basic auth username if it is a valid admin login, else null.
+    private static String adminName(HttpExchange exchange) {
+        String[] credentials = basicCredentials(exchange);
+        if (credentials == null) {
+            return null;
+        }
+        return new Admin(credentials[0], credentials[1]).authenticate() ? credentials[0] : null;
+    }
+    
+    // The student whose Basic auth login matches studentId. 401 without a
+    // valid student login, 403 when the login is someone else's.
+    private Student requireStudent(HttpExchange exchange, String studentId) {
+        String[] credentials = basicCredentials(exchange);
+        if (credentials != null) {
+            Student student = studentRegistry.authenticate(credentials[0], credentials[1], studentId);
+            if (student != null) {
+                return student;
+            }
+            Student other = studentRegistry.findByUsername(credentials[0]);
+            if (other != null && other.checkPassword(credentials[1])) {
+                throw new ApiException(403, "Not your student ID");
+            }
+        }
+        exchange.getResponseHeaders().set("WWW-Authenticate", "Basic realm=\"merch\"");
+        throw new ApiException(401, "Student credentials required");
+    }
+    
+    // {username, password} from a Basic Authorization header, or null.
+    private static String[] basicCredentials(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.startsWith("Basic ")) {
+            return null;
+        }
+        String credentials;
+        try {
+            credentials = new String(Base64.getDecoder().decode(header.substring(6).trim()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        int colon = credentials.indexOf(':');
+        if (colon <= 0) {
+            return null;
+        }
+        return new String[] {credentials.substring(0, colon), credentials.substring(colon + 1)};
+    }
+    
+    private void audit(HttpExchange exchange, AuditAction action, int itemCode, int reservationId,
+                       String before, String after, String detail) {
+        if (auditLog != null) {
+            auditLog.record(adminName(exchange) + " (http)", action, itemCode, reservationId, before, after, detail);
+        }
+    }
+    
+    private static String describe(Reservation r) {
+        return r.getQuantity() + " x " + r.getItemName() + " for " + r.getStudentId();
+    }
+    
+    private static void requireAdmin(HttpExchange exchange) {
+        if (!isAdmin(exchange)) {
+            exchange.getResponseHeaders().set("WWW-Authenticate", "Basic realm=\"merch\"");
+            throw new ApiException(401, "Admin credentials required");
+        }
+    }
+    
+    private static int parseInt(String value, String name) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, name + " must be a whole number");
+        }
+    }
+    
+    private static String requireField(Map<String, String> body, String name) {
+        String value = body.get(name);
+        if (value == null || value.isBlank()) {
+            throw new ApiException(400, name + " is required");
+        }
+        return value;
+    }
+    
+    private static String queryParam(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            if (key.equals(name)) {
+                return eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+    
+    private static Map<String, String> readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] bytes = in.readNBytes(MAX_BODY + 1);
+            if (bytes.length > MAX_BODY) {
+                throw new ApiException(413, "Request body too large");
+            }
+            return Json.parseObject(new String(bytes, StandardCharsets.UTF_8));
+        }
+    }
+    
+    private interface Body {
+        void write(StringBuilder out) throws IOException;
+    }
+    
+    private static void sendJson(HttpExchange exchange, int status, Body body) throws IOException {
+        StringBuilder sb = new StringBuilder(256);
+        body.write(sb);
+        byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+    
+    private static void sendError(HttpExchange exchange, int status, String message) {
+        try {
+            sendJson(exchange, status, out -> {
+                out.append("{\"error\":");
+                Json.writeString(out, message == null ? "" : message);
+                out.append('}');
+            });
+        } catch (IOException e) {
+            // Connection gone.
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package server;
+
+import main.MerchSession;
+import main.MerchSystem;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Serves terminal sessions over local TCP (e.g. "nc localhost 7070"), one
+// virtual thread per connection. Every session shares the MerchSystem's
+// managers; each has its own input, validator and login.
+public class MerchServer implements AutoCloseable {
+    public static final int DEFAULT_PORT = 7070;
+    
+    private final MerchSystem system;
+    private final ServerSocket serverSocket;
+    private final ExecutorService sessions = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicInteger activeSessions = new AtomicInteger();
+    
+    // Port 0 picks a free port; see getPort().
+    public MerchServer(MerchSystem system, int port) throws IOException {
+        this.system = system;
+        this.serverSocket = new ServerSocket(port, 512, InetAddress.getLoopbackAddress());
+        SessionConsole.install();
+    }
+    
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+    
+    public int getActiveSessions() {
+        return activeSessions.get();
+    }
+    
+    // Accepts connections until the server is closed.
+    public void serve() throws IOException {
+        while (true) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (SocketException e) {
+                if (serverSocket.isClosed()) {
+                    return;
+                }
+                throw e;
+            }
+            sessions.submit(() -> handle(socket));
+        }
+    }
+    
+    // Runs serve() on a background thread.
+    public void start() {
+        Thread acceptor = new Thread(() -> {
+            try {
+                serve();
+            } catch (IOException e) {
+                System.err.println("Server stopped: " + e.getMessage());
+            }
+        }, "merch-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+    
+    private void handle(Socket socket) {
+        activeSessions.incrementAndGet();
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            PrintStream out = new PrintStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 13),
+                                              false, StandardCharsets.UTF_8);
+            InputStream in = new FlushingInputStream(socket.getInputStream(), out);
+            SessionConsole.bind(out);
+            try {
+                new MerchSession(system, new Scanner(in, StandardCharsets.UTF_8)).run();
+            } finally {
+                out.flush();
+                SessionConsole.unbind();
+            }
+        } catch (IOException e) {
+            System.err.println("Session ended: " + e.getMessage());
+        } finally {
+            activeSessions.decrementAndGet();
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        sessions.shutdownNow();
+    }
+    
+    // Output is buffered and sent when the session next waits for input, so a
+    // whole screen goes out in one write instead of one per line.
+    private static final class FlushingInputStream extends FilterInputStream {
+        private final PrintStream out;
+        
+        FlushingInputStream(InputStream in, PrintStream out) {
+            super(in);
+            this.out = out;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            out.flush();
+            return super.read();
+        }
+        
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            out.flush();
+            return super.read(b, off, len);
+        }
+    }
+}
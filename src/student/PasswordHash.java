@@ -0,0 +1,56 @@
+package student;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+// Salted SHA-256 of a password, stored as "sha256$<salt>$<digest>" (both
+// Base64). Only this form is kept in memory and written to the journal and
+// snapshots, so the data directory never holds a password.
+public final class PasswordHash {
+    private static final String PREFIX = "sha256$";
+    private static final int SALT_BYTES = 16;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    
+    private PasswordHash() { }
+    
+    public static String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        Base64.Encoder base64 = Base64.getEncoder();
+        return PREFIX + base64.encodeToString(salt) + "$" + base64.encodeToString(digest(salt, password));
+    }
+    
+    public static boolean isHash(String stored) {
+        return stored != null && stored.startsWith(PREFIX) && stored.indexOf('$', PREFIX.length()) > 0;
+    }
+    
+    public static boolean matches(String password, String stored) {
+        if (password == null || !isHash(stored)) {
+            return false;
+        }
+        int split = stored.indexOf('$', PREFIX.length());
+        byte[] salt;
+        byte[] expected;
+        try {
+            salt = Base64.getDecoder().decode(stored.substring(PREFIX.length(), split));
+            expected = Base64.getDecoder().decode(stored.substring(split + 1));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        // Constant time, so the comparison does not leak how much matched.
+        return MessageDigest.isEqual(expected, digest(salt, password));
+    }
+    
+    private static byte[] digest(byte[] salt, String password) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            sha.update(salt);
+            return sha.digest(password.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
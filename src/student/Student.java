@@ -8,14 +8,26 @@ public class Student extends User {
     private String firstName;
     private String lastName;
     
+    // Takes the plain password; only its salted hash is kept (see PasswordHash).
     public Student(String username, String password, String studentId, String course, String firstName, String lastName) {
-        super(username, password);
+        super(username, PasswordHash.hash(password));
         this.studentId = studentId;
         this.course = course;
         this.firstName = firstName;
         this.lastName = lastName;
     }
     
+    // Rebuilds a student from a stored password hash. Data written before
+    // passwords were hashed holds the plain password, which is hashed here.
+    public static Student restore(String username, String passwordHash, String studentId, String course,
+                                  String firstName, String lastName) {
+        Student student = new Student(username, passwordHash, studentId, course, firstName, lastName);
+        if (PasswordHash.isHash(passwordHash)) {
+            student.password = passwordHash;
+        }
+        return student;
+    }
+    
     @Override
     public boolean authenticate() {
         return username != null && !username.trim().isEmpty() &&
@@ -28,6 +40,11 @@ public class Student extends User {
     public String getCourse() { return course; }
     public String getFirstName() { return firstName; }
     public String getLastName() { return lastName; }
+    public String getPasswordHash() { return password; }
+    
+    public boolean checkPassword(String candidate) {
+        return PasswordHash.matches(candidate, password);
+    }
     
     public String getFullName() {
         return lastName + ", " + firstName;
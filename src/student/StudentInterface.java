@@ -4,25 +4,45 @@ import inventory.InventoryManager;
 import inventory.ReservationManager;
 import inventory.Reservation;
 import inventory.Item;
+import inventory.ItemSearchIndex;
+import inventory.Cart;
+import inventory.CheckoutResult;
+import inventory.ReservationService;
+import inventory.ReservationStatus;
+import inventory.Tables;
+import inventory.WaitlistManager;
 import utils.InputValidator;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletionException;
 
 public class StudentInterface {
     private InventoryManager inventoryManager;
     private ReservationManager reservationManager;
+    private ReservationService reservationService;
+    private WaitlistManager waitlistManager;
+    private ItemSearchIndex searchIndex;
     private InputValidator validator;
     private Student student;
+    private Cart cart = new Cart();
+    private static final int MAX_WAITLIST_QUANTITY = 10;
+    private static final int SEARCH_LIMIT = 50;
 
     public StudentInterface(InventoryManager inventoryManager, ReservationManager reservationManager,
-                            InputValidator validator, Student student) {
+                            ReservationService reservationService, WaitlistManager waitlistManager,
+                            ItemSearchIndex searchIndex, InputValidator validator, Student student) {
         this.inventoryManager = inventoryManager;
         this.reservationManager = reservationManager;
+        this.reservationService = reservationService;
+        this.waitlistManager = waitlistManager;
+        this.searchIndex = searchIndex;
         this.validator = validator;
         this.student = student;
     }
 
-    public void showMenu() {
+    // Returns true if the user chose to exit the system, false on logout.
+    public boolean showMenu() {
         while (true) {
             System.out.println("\n=================================");
             System.out.println("       STUDENT HOMEPAGE");
@@ -33,16 +53,16 @@ public class StudentInterface {
             System.out.println("[2] Reserve a Item");
             System.out.println("[3] Stock Page");
             System.out.println("[4] Your Reservations");
-            System.out.println("[5] Logout");
+            System.out.println("[5] Reserve Multiple Items (Cart)");
+            System.out.println("[6] Logout");
             System.out.println("[0] Exit System");
             
-            int choice = validator.getValidInteger("Enter your choice: ", 0, 5);
+            int choice = validator.getValidInteger("Enter your choice: ", 0, 6);
             
             switch (choice) {
                 case 0:
                     System.out.println("Exiting system...");
-                    System.exit(0);
-                    break;
+                    return true;
                 case 1:
                     showStudentHelp();
                     break;
@@ -56,9 +76,12 @@ public class StudentInterface {
                     showYourReservations();
                     break;
                 case 5:
+                    showCart();
+                    break;
+                case 6:
                     if (validator.getValidYesNo("Are you sure you want to logout?")) {
                         System.out.println("Logged out successfully!");
-                        return;
+                        return false;
                     }
                     break;
             }
@@ -86,18 +109,27 @@ public class StudentInterface {
         System.out.println("           • You can also reserve STI SPECIAL merchandise");
         System.out.println("   Step 3: Note the item code (e.g., 1001, 2002)");
         System.out.println("   Step 4: Enter item code or [0] to go back");
-        System.out.println("   Step 5: Select your size (XS, S, M, L, XL, XXL, One Size)");
+        System.out.println("   Step 5: Select your size from the sizes that item comes in");
+        System.out.println("           • Any size's code works; the stock of the size you pick is used");
         System.out.println("   Step 6: Enter quantity (must not exceed available stock)");
         System.out.println("   Step 7: Review details and confirm (y/n)");
         System.out.println("   Step 8: Receive your Reservation ID");
         System.out.println("           • Save this ID to track your order!");
         
+        System.out.println("\nRESERVING A FULL SET (CART):");
+        System.out.println("   • Select [5] Reserve Multiple Items (Cart) from homepage");
+        System.out.println("   • Add each item code and quantity (e.g., polo, pants, necktie, PE shirt)");
+        System.out.println("   • Checkout reserves everything at once, or nothing if any item is short");
+        
         System.out.println("\nSTOCK PAGE:");
         System.out.println("   [1] View Your Course Items - See all items for " + student.getCourse());
         System.out.println("   [2] View STI Special Items - Browse special merchandise");
         System.out.println("       • Anniversary Shirts, PE Uniforms, Washday Shirts, etc.");
         System.out.println("   [3] Search by Code - Find specific item using code (1000-9999)");
         System.out.println("       • Enter item code or [0] to go back");
+        System.out.println("   [4] Search by Name - Find your course and STI Special items by name");
+        System.out.println("       • Partial words match (e.g., \"jog\" finds Jogging Pants)");
+        System.out.println("       • Small typos are forgiven (e.g., \"necktei\" finds Necktie)");
         System.out.println("   [0] Back - Return to homepage");
         
         System.out.println("\nYOUR RESERVATIONS:");
@@ -106,6 +138,9 @@ public class StudentInterface {
         System.out.println("   [3] Cancel Reservation - Cancel a pending reservation");
         System.out.println("       • You can only cancel PENDING reservations");
         System.out.println("       • Stock will be returned to inventory");
+        System.out.println("   [4] Your Waitlist - Items you are queued for, and leaving a queue");
+        System.out.println("       • Out-of-stock items offer a waitlist; when stock returns you get");
+        System.out.println("         a PENDING reservation automatically, first come first served");
         System.out.println("   [0] Back - Return to homepage");
         
         System.out.println("\nRESERVATION STATUS MEANINGS:");
@@ -138,7 +173,7 @@ public class StudentInterface {
         
         System.out.println("\n" + "=".repeat(80));
         System.out.println("Press Enter to return to Student Homepage...");
-        try { System.in.read(); } catch (Exception e) { }
+        validator.waitForEnter();
     }
 
     private void reserveItem() {
@@ -146,56 +181,50 @@ public class StudentInterface {
             System.out.println("\n=== RESERVE ITEM ===");
             System.out.println("[0] Back to Menu");
             System.out.println("\nAvailable items for " + student.getCourse() + ":");
-            inventoryManager.displayItemsByCourse(student.getCourse());
+            inventoryManager.displayItemsByCourse(student.getCourse(), validator);
             System.out.println("\n🎉 STI Special Merchandise:");
-            inventoryManager.displayItemsByCourse("STI Special");
+            inventoryManager.displayItemsByCourse("STI Special", validator);
 
             int code = validator.getValidInteger("\nEnter item code to reserve (0 to go back): ", 0, 9999);
             if (code == 0) return;
 
-            Item item = inventoryManager.findItemByCode(code);
-            if (item == null) {
+            Item product = inventoryManager.findItemByCode(code);
+            if (product == null) {
                 System.out.println("Item not found.");
                 continue;
             }
 
-            if (!item.getCourse().equalsIgnoreCase(student.getCourse()) 
-                && !item.getCourse().equalsIgnoreCase("STI Special")) {
+            if (!product.getCourse().equalsIgnoreCase(student.getCourse()) 
+                && !product.getCourse().equalsIgnoreCase("STI Special")) {
                 System.out.println("You can only reserve items for your course or STI Special items.");
                 continue;
             }
 
-            System.out.println("\nItem: " + item.getName());
+            Item item = selectSize(product);
+            if (item == null) {
+                continue;
+            }
+            if (item.getQuantity() == 0) {
+                System.out.println("\n" + item.getName() + " (" + item.getSize() + ") is out of stock.");
+                offerWaitlist(item, 0);
+                continue;
+            }
+
+            System.out.println("\nItem: " + item.getName() + " (" + item.getSize() + ")");
             System.out.println("Available stock: " + item.getQuantity());
             System.out.println("Price: ₱" + item.getPrice());
-
-            String selectedSize = validator.getValidSize("Select size: ");
             
             int qty = validator.getValidInteger("Enter quantity (1-" + item.getQuantity() + "): ", 1, item.getQuantity());
 
             System.out.println("\n=== CONFIRMATION ===");
             System.out.println("Student: " + student.getFullName());
             System.out.println("Item: " + item.getName());
-            System.out.println("Size: " + selectedSize);
+            System.out.println("Size: " + item.getSize());
             System.out.println("Quantity: " + qty);
             System.out.println("Total: ₱" + (item.getPrice() * qty));
 
             if (validator.getValidYesNo("\nConfirm reservation?")) {
-                if (inventoryManager.reserveItem(code, qty)) {
-                    Reservation res = reservationManager.createReservation(
-                        student.getFullName(),
-                        student.getStudentId(),
-                        student.getCourse(),
-                        code,
-                        item.getName() + " (" + selectedSize + ")",
-                        qty
-                    );
-                    System.out.println("Reservation created!");
-                    System.out.println("Reservation ID: " + res.getReservationId());
-                    System.out.println("Status: " + res.getStatus());
-                } else {
-                    System.out.println("Failed to create reservation.");
-                }
+                placeReservation(item, qty);
             }
             
             if (!validator.getValidYesNo("Reserve another item?")) {
@@ -204,25 +233,231 @@ public class StudentInterface {
         }
     }
 
+    // Goes through ReservationService like the HTTP API, so console and TCP
+    // reservations share its batching pipeline when one is running.
+    private void placeReservation(Item item, int qty) {
+        CheckoutResult result;
+        try {
+            result = reservationService.reserve(student.getFullName(), student.getStudentId(),
+                                                student.getCourse(), item, qty);
+        } catch (CompletionException e) {
+            System.out.println("Reservation failed; nothing was reserved. Please try again.");
+            System.err.println("Reservation failed: " + e.getCause());
+            return;
+        }
+        if (result.isSuccess()) {
+            Reservation res = result.getReservations().get(0);
+            System.out.println("Reservation created!");
+            System.out.println("Reservation ID: " + res.getReservationId());
+            System.out.println("Status: " + res.getStatus());
+        } else {
+            System.out.println("Reservation failed: " + result.getMessage());
+            if (item.getQuantity() < qty) {
+                offerWaitlist(item, qty);
+            }
+        }
+    }
+
+    // Each size of a product is its own item code. Lists the sizes of the
+    // chosen product and returns the item for the size the student picks,
+    // or null if they enter 0 to go back; a product with only one size
+    // needs no question.
+    private Item selectSize(Item product) {
+        List<Item> variants = inventoryManager.getVariants(product);
+        if (variants.size() <= 1) {
+            return product;
+        }
+        System.out.println("\n" + product.getName() + " comes in:");
+        for (Item variant : variants) {
+            System.out.println("   " + variant.getSize() + " - "
+                + (variant.getQuantity() == 0 ? "out of stock" : variant.getQuantity() + " left"));
+        }
+        while (true) {
+            String input = validator.getValidNonEmptyString("Select size (0 to go back): ", "Size");
+            if (input.equals("0")) {
+                return null;
+            }
+            String size = InputValidator.normalizeSize(input);
+            if (size == null) {
+                System.out.println(" Error: Invalid size.");
+                continue;
+            }
+            Item item = inventoryManager.findVariant(product.getName(), product.getCourse(), size);
+            if (item != null) {
+                return item;
+            }
+            System.out.println(product.getName() + " does not come in " + size + ".");
+        }
+    }
+
+    // Offers to queue the student for an item that is out of stock. A
+    // quantity of 0 means ask for one.
+    private void offerWaitlist(Item item, int quantity) {
+        int waiting = waitlistManager.getWaitingCount(item.getCode());
+        System.out.println(waiting == 0 ? "Nobody is waiting for this item yet." : waiting + " student(s) already waiting.");
+        if (!validator.getValidYesNo("Join the waitlist? You'll get a PENDING reservation as soon as stock returns")) {
+            return;
+        }
+        if (quantity == 0) {
+            quantity = validator.getValidInteger("Enter quantity (1-" + MAX_WAITLIST_QUANTITY + "): ", 1, MAX_WAITLIST_QUANTITY);
+        }
+        int position = waitlistManager.join(student.getFullName(), student.getStudentId(), student.getCourse(),
+                                            item.getCode(), quantity);
+        if (position == 0) {
+            System.out.println("You are already on the waitlist for this item.");
+        } else {
+            System.out.println("Added to the waitlist at position " + position + ".");
+            System.out.println("Check 'Your Reservations' for the reservation once it comes through.");
+        }
+    }
+
+    private void showCart() {
+        while (true) {
+            System.out.println("\n=== RESERVE MULTIPLE ITEMS (CART) ===");
+            displayCart();
+            System.out.println("[1] Add Item");
+            System.out.println("[2] Remove Item");
+            System.out.println("[3] Checkout");
+            System.out.println("[0] Back");
+            
+            int choice = validator.getValidInteger("Enter choice: ", 0, 3);
+            
+            switch (choice) {
+                case 0: return;
+                case 1: addToCart(); break;
+                case 2: removeFromCart(); break;
+                case 3: checkoutCart(); break;
+            }
+        }
+    }
+
+    private void displayCart() {
+        if (cart.isEmpty()) {
+            System.out.println("Your cart is empty.");
+            return;
+        }
+        double total = 0;
+        System.out.println("Code   | Item Name                           | Quantity | Subtotal");
+        System.out.println("-------|-------------------------------------|----------|----------");
+        for (Cart.Line line : cart.getLines()) {
+            Item item = inventoryManager.findItemByCode(line.getItemCode());
+            double subtotal = item == null ? 0 : item.getPrice() * line.getQuantity();
+            total += subtotal;
+            System.out.println(String.format("%-6d | %-35s | %-8d | ₱%-8.2f",
+                line.getItemCode(), line.getItemName(), line.getQuantity(), subtotal));
+        }
+        System.out.println(String.format("Total: ₱%.2f", total));
+    }
+
+    private void addToCart() {
+        System.out.println("\nAvailable items for " + student.getCourse() + ":");
+        inventoryManager.displayItemsByCourse(student.getCourse(), validator);
+        System.out.println("\n🎉 STI Special Merchandise:");
+        inventoryManager.displayItemsByCourse("STI Special", validator);
+
+        int code = validator.getValidInteger("\nEnter item code to add (0 to go back): ", 0, 9999);
+        if (code == 0) return;
+
+        Item item = inventoryManager.findItemByCode(code);
+        if (item == null) {
+            System.out.println("Item not found.");
+            return;
+        }
+
+        if (!item.getCourse().equalsIgnoreCase(student.getCourse()) 
+            && !item.getCourse().equalsIgnoreCase("STI Special")) {
+            System.out.println("You can only reserve items for your course or STI Special items.");
+            return;
+        }
+
+        int available = item.getQuantity() - cart.getQuantity(code);
+        if (available <= 0) {
+            System.out.println("No more stock available for this item.");
+            return;
+        }
+
+        int qty = validator.getValidInteger("Enter quantity (1-" + available + "): ", 1, available);
+        cart.addItem(item, qty);
+        System.out.println("Added to cart: " + item.getName() + " (" + item.getSize() + ") x" + qty);
+    }
+
+    private void removeFromCart() {
+        if (cart.isEmpty()) {
+            System.out.println("Your cart is empty.");
+            return;
+        }
+        int code = validator.getValidInteger("Enter item code to remove (0 to go back): ", 0, 9999);
+        if (code == 0) return;
+        if (cart.removeItem(code)) {
+            System.out.println("Removed from cart.");
+        } else {
+            System.out.println("Item is not in your cart.");
+        }
+    }
+
+    private void checkoutCart() {
+        if (cart.isEmpty()) {
+            System.out.println("Your cart is empty.");
+            return;
+        }
+        displayCart();
+        if (!validator.getValidYesNo("\nReserve all items in your cart?")) {
+            return;
+        }
+
+        CheckoutResult result = reservationService.checkout(cart, student.getFullName(),
+            student.getStudentId(), student.getCourse());
+        if (result.isSuccess()) {
+            System.out.println("Reservations created!");
+            for (Reservation res : result.getReservations()) {
+                System.out.println("Reservation ID: " + res.getReservationId() + " - " + res.getItemName()
+                    + " x" + res.getQuantity() + " (" + res.getStatus() + ")");
+            }
+        } else {
+            System.out.println("Checkout failed: " + result.getMessage());
+            System.out.println("Nothing was reserved. Adjust your cart and try again.");
+        }
+    }
+
     private void showStockPage() {
         while (true) {
             System.out.println("\n=== STOCK PAGE ===");
             System.out.println("[1] View Your Course Items");
             System.out.println("[2] View STI Special Items");
             System.out.println("[3] Search by Code");
+            System.out.println("[4] Search by Name");
             System.out.println("[0] Back");
             
-            int choice = validator.getValidInteger("Enter choice: ", 0, 3);
+            int choice = validator.getValidInteger("Enter choice: ", 0, 4);
             
             switch (choice) {
                 case 0: return;
-                case 1: inventoryManager.displayItemsByCourse(student.getCourse()); break;
-                case 2: inventoryManager.displayItemsByCourse("STI Special"); break;
+                case 1: inventoryManager.displayItemsByCourse(student.getCourse(), validator); break;
+                case 2: inventoryManager.displayItemsByCourse("STI Special", validator); break;
                 case 3: searchItem(); break;
+                case 4: searchByName(); break;
             }
         }
     }
 
+    // Only items the student may reserve: their course and STI Special.
+    private void searchByName() {
+        System.out.println("\n=== SEARCH BY NAME ===");
+        String query = validator.getValidNonEmptyString("Enter words from the item name: ", "Search");
+        List<Item> matches = searchIndex.search(query,
+            item -> item.getCourse().equalsIgnoreCase(student.getCourse()) || item.getCourse().equalsIgnoreCase("STI Special"),
+            SEARCH_LIMIT + 1);
+        if (matches.isEmpty()) {
+            System.out.println("No items for " + student.getCourse() + " or STI Special match \"" + query + "\".");
+            return;
+        }
+        Tables.ITEMS.page("ITEMS MATCHING \"" + query + "\"", matches.subList(0, Math.min(SEARCH_LIMIT, matches.size())),
+                          validator);
+        if (matches.size() > SEARCH_LIMIT) {
+            System.out.println("Showing the best " + SEARCH_LIMIT + " matches. Add more words to narrow the search.");
+        }
+    }
+    
     private void searchItem() {
         System.out.println("\n=== SEARCH BY CODE ===");
         System.out.println("[0] Back to previous menu");
@@ -234,10 +469,7 @@ public class StudentInterface {
         
         Item item = inventoryManager.findItemByCode(code);
         if (item != null) {
-            System.out.println("\n=== ITEM FOUND ===");
-            System.out.println("Code   | Name                      | Course               | Size     | Quantity | Price");
-            System.out.println("-------|---------------------------|----------------------|----------|----------|----------");
-            System.out.println(item);
+            Tables.ITEMS.print("ITEM FOUND", List.of(item));
         } else {
             System.out.println("Item not found.");
         }
@@ -249,46 +481,73 @@ public class StudentInterface {
             System.out.println("[1] View All Reservations");
             System.out.println("[2] View Pending");
             System.out.println("[3] Cancel Reservation");
+            System.out.println("[4] Your Waitlist");
             System.out.println("[0] Back");
             
-            int choice = validator.getValidInteger("Enter choice: ", 0, 3);
+            int choice = validator.getValidInteger("Enter choice: ", 0, 4);
             
             switch (choice) {
                 case 0: return;
-                case 1: reservationManager.displayReservationsByStudent(student.getStudentId()); break;
+                case 1: reservationManager.displayReservationsByStudent(student.getStudentId(), validator); break;
                 case 2: displayPendingReservations(); break;
                 case 3: cancelReservation(); break;
+                case 4: showWaitlist(); break;
             }
         }
     }
 
     private void displayPendingReservations() {
-        List<Reservation> all = reservationManager.getReservationsByStudent(student.getStudentId());
-        System.out.println("\n=== PENDING RESERVATIONS ===");
-        boolean found = false;
-        for (Reservation r : all) {
-            if (r.getStatus().equals("PENDING")) {
-                System.out.println(r);
-                found = true;
+        List<Reservation> pending = new ArrayList<>();
+        for (Reservation r : reservationManager.getReservationsByStudent(student.getStudentId())) {
+            if (r.getStatus() == ReservationStatus.PENDING) {
+                pending.add(r);
             }
         }
-        if (!found) {
-            System.out.println("No pending reservations.");
+        if (pending.isEmpty()) {
+            System.out.println("\nNo pending reservations.");
+            return;
+        }
+        Tables.RESERVATIONS.page("PENDING RESERVATIONS", pending, validator);
+    }
+
+    private void showWaitlist() {
+        List<WaitlistManager.Entry> entries = waitlistManager.getEntriesForStudent(student.getStudentId());
+        System.out.println("\n=== YOUR WAITLIST ===");
+        if (entries.isEmpty()) {
+            System.out.println("You are not waiting for any items.");
+            return;
+        }
+        System.out.println("Code   | Name                           | Qty | Position");
+        System.out.println("-------|--------------------------------|-----|---------");
+        for (WaitlistManager.Entry e : entries) {
+            Item item = inventoryManager.findItemByCode(e.getItemCode());
+            String name = item == null ? "(removed)" : item.getName() + " (" + item.getSize() + ")";
+            System.out.printf("%-6d | %-30s | %-3d | %d%n", e.getItemCode(), name, e.getQuantity(),
+                waitlistManager.getPosition(student.getStudentId(), e.getItemCode()));
+        }
+        int code = validator.getValidInteger("\nEnter item code to leave its waitlist (0 to go back): ", 0, 9999);
+        if (code == 0) return;
+        if (waitlistManager.leave(student.getStudentId(), code)) {
+            System.out.println("Removed from the waitlist.");
+        } else {
+            System.out.println("You are not on the waitlist for that item.");
         }
     }
 
     private void cancelReservation() {
-        reservationManager.displayReservationsByStudent(student.getStudentId());
+        reservationManager.displayReservationsByStudent(student.getStudentId(), validator);
         int id = validator.getValidInteger("Enter Reservation ID to cancel (0 to go back): ", 0, 9999);
         if (id == 0) return;
 
         Reservation r = reservationManager.findReservationById(id);
         if (r != null && r.getStudentId().equals(student.getStudentId())) {
             if (validator.getValidYesNo("Cancel this reservation?")) {
-                if (reservationManager.cancelReservation(id)) {
-                    Item item = inventoryManager.findItemByCode(r.getItemCode());
-                    if (item != null) item.addQuantity(r.getQuantity());
+                // r was read before the prompt; if an admin changed it since,
+                // leave their change alone.
+                if (reservationService.cancelReservation(id, r.getStatus())) {
                     System.out.println("Reservation cancelled.");
+                } else {
+                    System.out.println("This reservation can no longer be cancelled.");
                 }
             }
         } else {
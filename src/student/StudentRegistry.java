@@ -0,0 +1,69 @@
+package student;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Registered students, indexed by username and by student ID. Both are
+// unique. Lookups are a single hash probe and never lock; registration
+// checks both indexes and inserts under one lock, so two concurrent signups
+// can never claim the same username or ID.
+public class StudentRegistry {
+    public enum Result {
+        REGISTERED,
+        USERNAME_TAKEN,
+        STUDENT_ID_TAKEN
+    }
+    
+    private final Map<String, Student> studentsByUsername = new ConcurrentHashMap<>();
+    private final Map<String, Student> studentsById = new ConcurrentHashMap<>();
+    // Signup order, for snapshots.
+    private final List<Student> students = new ArrayList<>();
+    
+    public synchronized Result register(Student student) {
+        if (studentsByUsername.containsKey(student.getUsername())) {
+            return Result.USERNAME_TAKEN;
+        }
+        if (studentsById.containsKey(student.getStudentId())) {
+            return Result.STUDENT_ID_TAKEN;
+        }
+        studentsById.put(student.getStudentId(), student);
+        studentsByUsername.put(student.getUsername(), student);
+        students.add(student);
+        return Result.REGISTERED;
+    }
+    
+    // Returns the student only if all three credentials match.
+    public Student authenticate(String username, String password, String studentId) {
+        Student s = studentsByUsername.get(username);
+        if (s != null && s.getStudentId().equals(studentId) && s.checkPassword(password)) {
+            return s;
+        }
+        return null;
+    }
+    
+    public Student findByUsername(String username) {
+        return studentsByUsername.get(username);
+    }
+    
+    public Student findByStudentId(String studentId) {
+        return studentsById.get(studentId);
+    }
+    
+    public boolean isUsernameTaken(String username) {
+        return studentsByUsername.containsKey(username);
+    }
+    
+    public boolean isStudentIdTaken(String studentId) {
+        return studentsById.containsKey(studentId);
+    }
+    
+    public int size() {
+        return studentsById.size();
+    }
+    
+    public synchronized List<Student> getAllStudents() {
+        return new ArrayList<>(students);
+    }
+}
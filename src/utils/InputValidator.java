@@ -1,8 +1,6 @@
 package utils;
 
 import java.util.Scanner;
-import java.util.Arrays;
-import java.util.List;
 
 public class InputValidator {
     private Scanner scanner;
@@ -19,6 +17,9 @@ public class InputValidator {
         "XS", "S", "M", "L", "XL", "XXL", "One Size"
     };
     
+    private static final String SPECIAL_COURSE = "STI Special";
+    private static final double MAX_PRICE = 10000;
+    
     public InputValidator(Scanner scanner) {
         this.scanner = scanner;
     }
@@ -53,7 +54,7 @@ public class InputValidator {
                     continue;
                 }
                 double price = Double.parseDouble(input);
-                if (price >= 0 && price <= 10000) {
+                if (isValidPrice(price)) {
                     return price;
                 }
                 System.out.println(" Error: Price must be between 0 and 10000.");
@@ -86,14 +87,15 @@ public class InputValidator {
             
             System.out.print(prompt);
             
-            String course = scanner.nextLine().trim().toUpperCase();
+            String course = scanner.nextLine().trim();
             if (course.isEmpty()) {
                 System.out.println(" Error: Course cannot be empty.");
                 continue;
             }
             
-            if (isValidCourse(course)) {
-                return course;
+            String canonical = normalizeCourse(course);
+            if (canonical != null) {
+                return canonical;
             }
             System.out.println(" Error: Invalid course code.");
         }
@@ -104,24 +106,26 @@ public class InputValidator {
             System.out.println("\n Valid Sizes: " + String.join(", ", VALID_SIZES));
             System.out.print(prompt);
             
-            String size = scanner.nextLine().trim().toUpperCase();
+            String size = scanner.nextLine().trim();
             if (size.isEmpty()) {
                 System.out.println(" Error: Size cannot be empty.");
                 continue;
             }
             
-            if (size.equals("ONE SIZE") || size.equals("ONESIZE")) {
-                return "One Size";
-            }
-            
-            List<String> validSizes = Arrays.asList(VALID_SIZES);
-            if (validSizes.contains(size)) {
-                return size;
+            String canonical = normalizeSize(size);
+            if (canonical != null) {
+                return canonical;
             }
             System.out.println(" Error: Invalid size.");
         }
     }
     
+    // Reads one line as typed (trimmed), empty included.
+    public String readLine(String prompt) {
+        System.out.print(prompt);
+        return scanner.nextLine().trim();
+    }
+    
     public String getValidNonEmptyString(String prompt, String fieldName) {
         while (true) {
             System.out.print(prompt);
@@ -162,16 +166,53 @@ public class InputValidator {
         }
     }
     
+    // Blocks until the user presses Enter.
+    public void waitForEnter() {
+        scanner.nextLine();
+    }
+    
     public static boolean isValidCourse(String course) {
-        if (course == null) return false;
-        String c = course.trim().toUpperCase();
+        return normalizeCourse(course) != null;
+    }
+    
+    // The course code as the lists spell it (e.g. "bscpe" -> "BSCpE"), or
+    // null if it isn't one.
+    public static String normalizeCourse(String course) {
+        if (course == null) return null;
+        String c = course.trim();
         for (String s : SHS_COURSES) {
-            if (s.equals(c)) return true;
+            if (s.equalsIgnoreCase(c)) return s;
         }
         for (String s : TERTIARY_COURSES) {
-            if (s.equals(c)) return true;
+            if (s.equalsIgnoreCase(c)) return s;
         }
-        return false;
+        return null;
+    }
+    
+    // Items can also be stocked for every student at once.
+    public static String normalizeItemCourse(String course) {
+        if (course != null && course.trim().equalsIgnoreCase(SPECIAL_COURSE)) {
+            return SPECIAL_COURSE;
+        }
+        return normalizeCourse(course);
+    }
+    
+    // The size as the catalog spells it ("m" -> "M", "onesize" -> "One Size"),
+    // or null if it isn't a valid size.
+    public static String normalizeSize(String size) {
+        if (size == null) return null;
+        String s = size.trim().toUpperCase();
+        if (s.equals("ONE SIZE") || s.equals("ONESIZE")) {
+            return "One Size";
+        }
+        for (String valid : VALID_SIZES) {
+            if (valid.equals(s)) return valid;
+        }
+        return null;
+    }
+    
+    public static boolean isValidPrice(double price) {
+        return price >= 0 && price <= MAX_PRICE;
     }
     
     public static String[] getAllValidCourses() {
@@ -0,0 +1,151 @@
+package utils;
+
+import java.util.Arrays;
+
+// Open-addressing hash map keyed by primitive int (no Integer boxing).
+// Linear probing with backward-shift deletion, so there are no tombstones
+// and lookups stay short after many removals.
+public class IntHashMap<V> {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+    private int resizeAt;
+
+    public IntHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(DEFAULT_CAPACITY, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    // Reads the arrays once so that a lookup racing with a writer stays in
+    // bounds and terminates. The result is only trustworthy if the caller
+    // validates it afterwards (e.g. with a StampedLock optimistic read).
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int[] ks = keys;
+        Object[] vs = values;
+        int m = Math.min(ks.length, vs.length) - 1;
+        int i = mix(key) & m;
+        Object v;
+        while ((v = vs[i]) != null) {
+            if (ks[i] == key) {
+                return (V) v;
+            }
+            i = (i + 1) & m;
+        }
+        return null;
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("IntHashMap does not accept null values");
+        }
+        int i = mix(key) & mask;
+        Object v;
+        while ((v = values[i]) != null) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return (V) v;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int i = mix(key) & mask;
+        Object v;
+        while ((v = values[i]) != null) {
+            if (keys[i] == key) {
+                shiftBack(i);
+                size--;
+                return (V) v;
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    // Moves later entries of the probe chain into the freed slot so that
+    // every remaining key is still reachable from its home bucket.
+    private void shiftBack(int free) {
+        int i = free;
+        while (true) {
+            i = (i + 1) & mask;
+            Object v = values[i];
+            if (v == null) {
+                break;
+            }
+            int home = mix(keys[i]) & mask;
+            boolean movable = free <= i ? (home <= free || home > i) : (home <= free && home > i);
+            if (movable) {
+                keys[free] = keys[i];
+                values[free] = v;
+                free = i;
+            }
+        }
+        values[free] = null;
+        keys[free] = 0;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int j = 0; j < oldValues.length; j++) {
+            Object v = oldValues[j];
+            if (v != null) {
+                int i = mix(oldKeys[j]) & mask;
+                while (values[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = v;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        Arrays.fill(keys, 0);
+        size = 0;
+    }
+}
@@ -0,0 +1,137 @@
+package utils;
+
+import java.util.Arrays;
+
+// IntHashMap's layout with int values: open addressing, linear probing and
+// backward-shift deletion, no boxing at all. Values are stored plus one so
+// that 0 can mark an empty slot; get() returns -1 for a missing key, so
+// values must be non-negative (e.g. array indexes). Not thread-safe.
+public class IntIntHashMap {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+    private int resizeAt;
+
+    public IntIntHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(DEFAULT_CAPACITY, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    public int get(int key) {
+        int i = mix(key) & mask;
+        int v;
+        while ((v = values[i]) != 0) {
+            if (keys[i] == key) {
+                return v - 1;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    public void put(int key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("IntIntHashMap values must be non-negative");
+        }
+        int i = mix(key) & mask;
+        while (values[i] != 0) {
+            if (keys[i] == key) {
+                values[i] = value + 1;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value + 1;
+        if (++size > resizeAt) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    public int remove(int key) {
+        int i = mix(key) & mask;
+        int v;
+        while ((v = values[i]) != 0) {
+            if (keys[i] == key) {
+                shiftBack(i);
+                size--;
+                return v - 1;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    // Moves later entries of the probe chain into the freed slot so that
+    // every remaining key is still reachable from its home bucket.
+    private void shiftBack(int free) {
+        int i = free;
+        while (true) {
+            i = (i + 1) & mask;
+            int v = values[i];
+            if (v == 0) {
+                break;
+            }
+            int home = mix(keys[i]) & mask;
+            boolean movable = free <= i ? (home <= free || home > i) : (home <= free && home > i);
+            if (movable) {
+                keys[free] = keys[i];
+                values[free] = v;
+                free = i;
+            }
+        }
+        values[free] = 0;
+        keys[free] = 0;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int j = 0; j < oldValues.length; j++) {
+            int v = oldValues[j];
+            if (v != 0) {
+                int i = mix(oldKeys[j]) & mask;
+                while (values[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = v;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(values, 0);
+        Arrays.fill(keys, 0);
+        size = 0;
+    }
+}
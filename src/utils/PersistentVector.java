@@ -0,0 +1,213 @@
+package utils;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+// Immutable list with structural sharing: a 32-way trie of arrays plus a
+// separate tail leaf, the layout of Clojure's vectors. append and set copy
+// only the path from the root to the changed leaf (at most ~log32(n) arrays
+// of 32 slots), so every older version stays valid and keeps sharing the
+// rest. get is a walk of the same depth: 4 levels cover a million elements.
+//
+// Removal from the middle would have to shift every later element, so
+// remove() rebuilds the vector; meant for rare edits such as deleting an
+// item from the catalog. Safe to share between threads once published.
+public final class PersistentVector<E> implements Iterable<E> {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    private static final Object[] EMPTY_NODE = new Object[WIDTH];
+    private static final PersistentVector<?> EMPTY = new PersistentVector<>(0, BITS, EMPTY_NODE, new Object[0]);
+
+    private final int size;
+    private final int shift;
+    private final Object[] root;
+    private final Object[] tail;
+
+    private PersistentVector(int size, int shift, Object[] root, Object[] tail) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentVector<E> empty() {
+        return (PersistentVector<E>) EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Index of the first element held in the tail rather than the trie.
+    private int tailOffset() {
+        return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+    }
+
+    private Object[] leafFor(int index) {
+        if (index >= tailOffset()) {
+            return tail;
+        }
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(index >>> level) & MASK];
+        }
+        return node;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        Objects.checkIndex(index, size);
+        return (E) leafFor(index)[index & MASK];
+    }
+
+    public PersistentVector<E> append(E element) {
+        if (size - tailOffset() < WIDTH) {
+            Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+            newTail[tail.length] = element;
+            return new PersistentVector<>(size + 1, shift, root, newTail);
+        }
+        // The tail is full: it moves into the trie and a new tail starts.
+        Object[] newRoot;
+        int newShift = shift;
+        if ((size >>> BITS) > (1 << shift)) {
+            newRoot = new Object[WIDTH];
+            newRoot[0] = root;
+            newRoot[1] = newPath(shift, tail);
+            newShift += BITS;
+        } else {
+            newRoot = pushTail(shift, root, tail);
+        }
+        return new PersistentVector<>(size + 1, newShift, newRoot, new Object[] {element});
+    }
+
+    private Object[] pushTail(int level, Object[] parent, Object[] leaf) {
+        int slot = ((size - 1) >>> level) & MASK;
+        Object[] result = parent.clone();
+        if (level == BITS) {
+            result[slot] = leaf;
+        } else {
+            Object[] child = (Object[]) parent[slot];
+            result[slot] = child != null ? pushTail(level - BITS, child, leaf) : newPath(level - BITS, leaf);
+        }
+        return result;
+    }
+
+    private static Object[] newPath(int level, Object[] leaf) {
+        if (level == 0) {
+            return leaf;
+        }
+        Object[] node = new Object[WIDTH];
+        node[0] = newPath(level - BITS, leaf);
+        return node;
+    }
+
+    public PersistentVector<E> set(int index, E element) {
+        Objects.checkIndex(index, size);
+        if (index >= tailOffset()) {
+            Object[] newTail = tail.clone();
+            newTail[index & MASK] = element;
+            return new PersistentVector<>(size, shift, root, newTail);
+        }
+        return new PersistentVector<>(size, shift, setIn(shift, root, index, element), tail);
+    }
+
+    private static Object[] setIn(int level, Object[] node, int index, Object element) {
+        Object[] result = node.clone();
+        if (level == 0) {
+            result[index & MASK] = element;
+        } else {
+            int slot = (index >>> level) & MASK;
+            result[slot] = setIn(level - BITS, (Object[]) node[slot], index, element);
+        }
+        return result;
+    }
+
+    // O(n): rebuilds the vector without the element at index.
+    public PersistentVector<E> remove(int index) {
+        Objects.checkIndex(index, size);
+        PersistentVector<E> result = empty();
+        int i = 0;
+        for (E element : this) {
+            if (i++ != index) {
+                result = result.append(element);
+            }
+        }
+        return result;
+    }
+
+    public int indexOf(Object element) {
+        int i = 0;
+        for (E e : this) {
+            if (Objects.equals(e, element)) {
+                return i;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    // Walks leaf by leaf, so each step is an array read.
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int index;
+            private Object[] leaf;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                if ((index & MASK) == 0 || leaf == null) {
+                    leaf = leafFor(index);
+                }
+                return (E) leaf[index++ & MASK];
+            }
+        };
+    }
+
+    // Read-only List over this version; nothing is copied.
+    public List<E> asList() {
+        return new ListView<>(this);
+    }
+
+    private static final class ListView<E> extends AbstractList<E> implements RandomAccess {
+        private final PersistentVector<E> vector;
+
+        ListView(PersistentVector<E> vector) {
+            this.vector = vector;
+        }
+
+        @Override
+        public E get(int index) {
+            return vector.get(index);
+        }
+
+        @Override
+        public int size() {
+            return vector.size;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return vector.iterator();
+        }
+    }
+}
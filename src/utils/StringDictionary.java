@@ -0,0 +1,84 @@
+package utils;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+// Assigns each distinct string a dense int id (0, 1, 2, ...) and keeps one
+// copy of it, so columns of repeated values can be stored as int[].
+// Open addressing over an int[] of ids, no boxing. Not thread-safe.
+public class StringDictionary {
+    private String[] values = new String[16];
+    // id + 1 per slot; 0 marks an empty slot.
+    private int[] table = new int[32];
+    private int size;
+
+    // Returns the string's id, adding it if it is new.
+    public int encode(String value) {
+        int mask = table.length - 1;
+        for (int i = mix(value.hashCode()) & mask; ; i = (i + 1) & mask) {
+            int entry = table[i];
+            if (entry == 0) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                values[size] = value;
+                table[i] = ++size;
+                if (size * 2 > table.length) {
+                    rehash(table.length * 2);
+                }
+                return size - 1;
+            }
+            if (values[entry - 1].equals(value)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    // Returns the string's id, or -1 if it has never been encoded.
+    public int lookup(String value) {
+        int mask = table.length - 1;
+        for (int i = mix(value.hashCode()) & mask; ; i = (i + 1) & mask) {
+            int entry = table[i];
+            if (entry == 0) {
+                return -1;
+            }
+            if (values[entry - 1].equals(value)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    public String decode(int id) {
+        return values[id];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Decodes every id assigned so far, reading the array as it is now.
+    // Later encodes only write past those ids or into a grown copy, so the
+    // decoder can go to another thread together with ids taken before it.
+    public IntFunction<String> decoder() {
+        String[] decoded = values;
+        return id -> decoded[id];
+    }
+
+    private void rehash(int capacity) {
+        int[] newTable = new int[capacity];
+        int mask = capacity - 1;
+        for (int id = 0; id < size; id++) {
+            int i = mix(values[id].hashCode()) & mask;
+            while (newTable[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            newTable[i] = id + 1;
+        }
+        table = newTable;
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
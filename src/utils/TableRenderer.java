@@ -0,0 +1,221 @@
+package utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Prints rows as the console's fixed-width tables ("Code   | Name   | ...").
+// The layout is worked out once, when the table is defined: header and
+// separator lines are prebuilt, and each row is appended cell by cell into
+// one StringBuilder reused for the whole screen, with no String.format and
+// no per-row strings. A screen goes out through a single buffered writer
+// and one flush.
+//
+// page() shows long tables PAGE_SIZE rows at a time and lets the user move
+// between pages. Only the rows on screen are read, so a list that builds
+// its elements on access (e.g. ReservationSnapshot's) builds only those.
+//
+// A renderer holds no per-call state, so one definition can be shared by
+// every session.
+public class TableRenderer<T> {
+    // Rows per screen; merch.page.size overrides it.
+    public static final int PAGE_SIZE = Math.max(1, Integer.getInteger("merch.page.size", 20));
+    private static final char[] SPACES = new char[256];
+    static {
+        Arrays.fill(SPACES, ' ');
+    }
+
+    // Appends one cell's value. Should append primitives and existing
+    // strings directly rather than build new ones.
+    public interface Cell<T> {
+        void append(StringBuilder out, T row);
+    }
+
+    private final List<String> titles = new ArrayList<>();
+    private final List<Integer> widths = new ArrayList<>();
+    private final List<Cell<T>> cells = new ArrayList<>();
+    private String header = "";
+    private String separator = "";
+
+    // Adds a left-aligned column padded to width; longer values widen the
+    // row rather than being cut.
+    public TableRenderer<T> column(String title, int width, Cell<T> cell) {
+        titles.add(title);
+        widths.add(width);
+        cells.add(cell);
+        layout();
+        return this;
+    }
+
+    private void layout() {
+        StringBuilder head = new StringBuilder();
+        StringBuilder rule = new StringBuilder();
+        int last = titles.size() - 1;
+        for (int i = 0; i <= last; i++) {
+            int start = head.length();
+            head.append(titles.get(i));
+            if (i < last) {
+                pad(head, start, widths.get(i));
+                head.append(" | ");
+            }
+            if (i > 0) {
+                rule.append('|');
+            }
+            rule.append("-".repeat(widths.get(i) + (i == 0 ? 1 : 2)));
+        }
+        header = head.toString();
+        separator = rule.toString();
+    }
+
+    private static void pad(StringBuilder out, int start, int width) {
+        int missing = width - (out.length() - start);
+        while (missing > 0) {
+            int n = Math.min(missing, SPACES.length);
+            out.append(SPACES, 0, n);
+            missing -= n;
+        }
+    }
+
+    private void appendRow(StringBuilder out, T row) {
+        int last = cells.size() - 1;
+        for (int i = 0; i <= last; i++) {
+            int start = out.length();
+            cells.get(i).append(out, row);
+            pad(out, start, widths.get(i));
+            if (i < last) {
+                out.append(" | ");
+            }
+        }
+    }
+
+    // One row on its own, as the table would print it.
+    public String row(T row) {
+        StringBuilder out = new StringBuilder(128);
+        appendRow(out, row);
+        return out.toString();
+    }
+
+    // Prints the whole table in one screen. A null title prints none.
+    public void print(String title, List<? extends T> rows) {
+        printPage(title, rows, 0, rows.size(), 1, 1);
+    }
+
+    // Prints the table a page at a time, asking between pages. Without a
+    // validator (no one to ask) it prints everything.
+    public void page(String title, List<? extends T> rows, InputValidator validator) {
+        int size = rows.size();
+        if (validator == null || size <= PAGE_SIZE) {
+            print(title, rows);
+            return;
+        }
+        int pages = (size + PAGE_SIZE - 1) / PAGE_SIZE;
+        int page = 0;
+        while (true) {
+            int from = page * PAGE_SIZE;
+            printPage(title, rows, from, Math.min(size, from + PAGE_SIZE), page + 1, pages);
+            String input = validator.readLine("[Enter] next page, [p] previous, [1-" + pages + "] go to page, [0] done: ");
+            if (input.isEmpty()) {
+                if (page + 1 == pages) {
+                    return;
+                }
+                page++;
+            } else if (input.equalsIgnoreCase("p")) {
+                page = Math.max(0, page - 1);
+            } else if (input.equals("0") || input.equalsIgnoreCase("q")) {
+                return;
+            } else {
+                try {
+                    int target = Integer.parseInt(input);
+                    if (target < 1 || target > pages) {
+                        System.out.println(" Error: There are " + pages + " pages.");
+                    } else {
+                        page = target - 1;
+                    }
+                } catch (NumberFormatException e) {
+                    System.out.println(" Error: Press Enter, 'p', a page number or 0.");
+                }
+            }
+        }
+    }
+
+    private void printPage(String title, List<? extends T> rows, int from, int to, int page, int pages) {
+        PrintStream console = System.out;
+        Writer out = new BufferedWriter(new OutputStreamWriter(console, console.charset()), 1 << 13);
+        StringBuilder line = new StringBuilder(256);
+        try {
+            if (title != null) {
+                out.write("\n=== ");
+                out.write(title);
+                out.write(pages > 1 ? " (page " + page + " of " + pages + ") ===\n" : " ===\n");
+            }
+            out.write(header);
+            out.write('\n');
+            out.write(separator);
+            out.write('\n');
+            for (int i = from; i < to; i++) {
+                line.setLength(0);
+                appendRow(line, rows.get(i));
+                line.append('\n');
+                out.append(line);
+            }
+            if (pages > 1) {
+                out.write("Rows " + (from + 1) + "-" + to + " of " + rows.size() + "\n");
+            }
+            // Only flushed: closing would close System.out.
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Appends value with two decimals, rounded half up, like "%.2f".
+    public static void appendMoney(StringBuilder out, double value) {
+        appendFixed(out, value, 2);
+    }
+
+    // Appends value with 1-9 decimals, rounded half up, like "%.nf".
+    public static void appendFixed(StringBuilder out, double value, int decimals) {
+        long scale = 1;
+        for (int i = 0; i < decimals; i++) {
+            scale *= 10;
+        }
+        long scaled = Math.round(Math.abs(value) * scale);
+        if (value < 0 && scaled != 0) {
+            out.append('-');
+        }
+        out.append(scaled / scale).append('.');
+        long fraction = scaled % scale;
+        for (long digit = scale / 10; digit > 1 && fraction < digit; digit /= 10) {
+            out.append('0');
+        }
+        out.append(fraction);
+    }
+
+    // Appends "yyyy-MM-dd HH:mm:ss".
+    public static void appendDateTime(StringBuilder out, LocalDateTime time) {
+        out.append(time.getYear()).append('-');
+        twoDigits(out, time.getMonthValue());
+        out.append('-');
+        twoDigits(out, time.getDayOfMonth());
+        out.append(' ');
+        twoDigits(out, time.getHour());
+        out.append(':');
+        twoDigits(out, time.getMinute());
+        out.append(':');
+        twoDigits(out, time.getSecond());
+    }
+
+    private static void twoDigits(StringBuilder out, int value) {
+        if (value < 10) {
+            out.append('0');
+        }
+        out.append(value);
+    }
+}
@@ -0,0 +1,153 @@
+package utils;
+
+import java.util.function.Consumer;
+
+// Hierarchical timing wheel (Varghese & Lauck, the layout of the classic
+// Linux timer wheel). Time is counted in ticks of tickMillis. There are
+// LEVELS wheels of 64 slots; level L holds timers due between 64^L and
+// 64^(L+1) ticks from now, so scheduling and cancelling are O(1). Each time
+// level 0 wraps, one slot of the level above is cascaded down, so a timer
+// is moved at most LEVELS - 1 times over its whole life.
+//
+// Timers further out than 64^LEVELS ticks are parked in the last level and
+// re-placed each time they come round. Not thread-safe.
+public class TimingWheel<T> {
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 5;
+    private static final long MAX_DELTA = 1L << (BITS * LEVELS);
+
+    public static final class Timer<T> {
+        private final T value;
+        private final long deadlineTick;
+        private Timer<T> prev;
+        private Timer<T> next;
+
+        private Timer(T value, long deadlineTick) {
+            this.value = value;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T getValue() { return value; }
+    }
+
+    private final long tickMillis;
+    private final long originMillis;
+    // One sentinel per slot heading a circular doubly-linked list.
+    private final Timer<T>[] slots;
+    // The next tick to be processed.
+    private long currentTick;
+    private int size;
+
+    public TimingWheel(long tickMillis, long nowMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.originMillis = nowMillis;
+        @SuppressWarnings("unchecked")
+        Timer<T>[] s = (Timer<T>[]) new Timer<?>[LEVELS * SLOTS];
+        this.slots = s;
+        for (int i = 0; i < slots.length; i++) {
+            Timer<T> sentinel = new Timer<>(null, 0);
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            slots[i] = sentinel;
+        }
+    }
+
+    // Deadlines are rounded up to the next tick, so a timer never fires early.
+    // One already in the past fires on the next advance().
+    public Timer<T> schedule(long deadlineMillis, T value) {
+        long offset = Math.max(0, deadlineMillis - originMillis);
+        Timer<T> timer = new Timer<>(value, (offset + tickMillis - 1) / tickMillis);
+        place(timer);
+        size++;
+        return timer;
+    }
+
+    // Returns false if the timer has already fired or been cancelled.
+    public boolean cancel(Timer<T> timer) {
+        if (timer.next == null) {
+            return false;
+        }
+        unlink(timer);
+        size--;
+        return true;
+    }
+
+    // Processes every tick up to nowMillis, passing each due timer's value to
+    // the callback, in deadline order (tick by tick).
+    public void advance(long nowMillis, Consumer<? super T> expired) {
+        long targetTick = (nowMillis - originMillis) / tickMillis;
+        while (currentTick <= targetTick) {
+            int index = (int) currentTick & MASK;
+            if (index == 0) {
+                for (int level = 1; level < LEVELS; level++) {
+                    int slot = (int) (currentTick >>> (BITS * level)) & MASK;
+                    cascade(level * SLOTS + slot);
+                    if (slot != 0) {
+                        break;
+                    }
+                }
+            }
+            Timer<T> head = slots[index];
+            while (head.next != head) {
+                Timer<T> timer = head.next;
+                unlink(timer);
+                size--;
+                expired.accept(timer.value);
+            }
+            currentTick++;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void place(Timer<T> timer) {
+        long expires = timer.deadlineTick;
+        long delta = expires - currentTick;
+        if (delta < 0) {
+            expires = currentTick;
+            delta = 0;
+        } else if (delta >= MAX_DELTA) {
+            expires = currentTick + MAX_DELTA - 1;
+            delta = MAX_DELTA - 1;
+        }
+        int level = 0;
+        while (delta >= 1L << (BITS * (level + 1))) {
+            level++;
+        }
+        int slot = (int) (expires >>> (BITS * level)) & MASK;
+        link(slots[level * SLOTS + slot], timer);
+    }
+
+    private void cascade(int slotIndex) {
+        Timer<T> head = slots[slotIndex];
+        Timer<T> timer = head.next;
+        head.prev = head;
+        head.next = head;
+        while (timer != head) {
+            Timer<T> next = timer.next;
+            place(timer);
+            timer = next;
+        }
+    }
+
+    private static <T> void link(Timer<T> head, Timer<T> timer) {
+        timer.prev = head.prev;
+        timer.next = head;
+        head.prev.next = timer;
+        head.prev = timer;
+    }
+
+    private static <T> void unlink(Timer<T> timer) {
+        timer.prev.next = timer.next;
+        timer.next.prev = timer.prev;
+        timer.prev = null;
+        timer.next = null;
+    }
+}